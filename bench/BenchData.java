@@ -0,0 +1,79 @@
+import java.io.File;
+import java.io.IOException;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.Random;
+
+/**
+ * Builds benchmark datasets of a given size, either directly in memory
+ * or as the four CSV files that readDataFromCSV reads.
+ * For a size N there are N products, N/10 customers, N reviews and N orders.
+ */
+public class BenchData {
+
+    private static final long SEED = 42L;
+
+    /**
+     * Builds a fully loaded system in memory.
+     * @param n The dataset size.
+     */
+    public static ECommerceSystem buildSystem(int n) {
+        Random random = new Random(SEED);
+        ECommerceSystem system = new ECommerceSystem();
+        int customers = Math.max(1, n / 10);
+        for (int i = 0; i < customers; i++) {
+            system.registerNewCustomer(new Customer(customerId(i), "Customer " + i, "c" + i + "@example.com"));
+        }
+        for (int i = 0; i < n; i++) {
+            system.addProduct(new Product(productId(i), "Product " + i,
+                    1 + random.nextInt(100_000) / 100.0, random.nextInt(50)));
+        }
+        for (int i = 0; i < n; i++) {
+            Product p = system.findProductById(productId(random.nextInt(n)));
+            p.addReview(new Review(customerId(random.nextInt(customers)), 1 + random.nextInt(5), "Review " + i));
+        }
+        for (int i = 0; i < n; i++) {
+            String customerId = customerId(random.nextInt(customers));
+            Order o = new Order(orderId(i), customerId, date(random.nextInt(365)));
+            o.addProductToOrder(system.findProductById(productId(random.nextInt(n))));
+            system.placeNewOrder(customerId, o);
+        }
+        return system;
+    }
+
+    /**
+     * Writes the four CSV files for a dataset into "dir" (using DataGenerator).
+     * @return {products, customers, orders, reviews} file paths.
+     */
+    public static String[] writeCsv(int n, File dir) throws IOException {
+        File sizeDir = new File(dir, "n" + n);
+        DataGenerator.withSizes(SEED, Math.max(1, n / 10), n, n, n).generate(sizeDir);
+        return new String[] {
+            new File(sizeDir, "prodcuts.csv").getPath(),
+            new File(sizeDir, "customers.csv").getPath(),
+            new File(sizeDir, "orders.csv").getPath(),
+            new File(sizeDir, "reviews.csv").getPath()
+        };
+    }
+
+    static String productId(int i) {
+        return String.valueOf(100_000_000 + i);
+    }
+
+    static String customerId(int i) {
+        return String.valueOf(200_000_000 + i);
+    }
+
+    static String orderId(int i) {
+        return String.valueOf(300_000_000 + i);
+    }
+
+    /** A date "dayOfYear" days into 2025. */
+    static Date date(int dayOfYear) {
+        Calendar c = Calendar.getInstance();
+        c.clear();
+        c.set(2025, Calendar.JANUARY, 1);
+        c.add(Calendar.DAY_OF_YEAR, dayOfYear);
+        return c.getTime();
+    }
+}
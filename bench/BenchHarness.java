@@ -0,0 +1,131 @@
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.Locale;
+
+/**
+ * A small, dependency-free micro-benchmark harness.
+ * Each benchmark runs a warmup phase (so the JIT compiles the hot code),
+ * then several timed measurement iterations. Results are printed and
+ * collected so they can be written as JSON for regression comparison.
+ */
+public class BenchHarness {
+
+    /**
+     * One benchmarked operation. The return value is fed into a sink
+     * so the JIT cannot remove the work as dead code.
+     */
+    public interface Op {
+        Object run() throws Exception;
+    }
+
+    /**
+     * The measured result of one benchmark at one dataset size.
+     */
+    public static final class Result {
+        final String name;
+        final int size;
+        final double meanNanosPerOp;
+        final double minNanosPerOp;
+        final double maxNanosPerOp;
+        final long ops;
+
+        Result(String name, int size, double mean, double min, double max, long ops) {
+            this.name = name;
+            this.size = size;
+            this.meanNanosPerOp = mean;
+            this.minNanosPerOp = min;
+            this.maxNanosPerOp = max;
+            this.ops = ops;
+        }
+    }
+
+    // Anything written here is "used", so benchmarked work is never dead code.
+    private static volatile Object sink;
+
+    private final int warmupIterations;
+    private final int measureIterations;
+    private final long iterationNanos;
+    private final MyLinkedList<Result> results = new MyLinkedList<>();
+
+    /**
+     * @param warmupIterations Untimed iterations before measuring.
+     * @param measureIterations Timed iterations.
+     * @param iterationMillis The target length of one iteration.
+     */
+    public BenchHarness(int warmupIterations, int measureIterations, long iterationMillis) {
+        this.warmupIterations = warmupIterations;
+        this.measureIterations = measureIterations;
+        this.iterationNanos = iterationMillis * 1_000_000L;
+    }
+
+    /**
+     * Runs one benchmark and records its result.
+     * @param name The benchmark name (e.g., "MyLinkedList.get").
+     * @param size The dataset size it ran against.
+     * @param op The operation to time.
+     */
+    public void run(String name, int size, Op op) {
+        try {
+            for (int i = 0; i < warmupIterations; i++) {
+                iteration(op);
+            }
+            double sum = 0;
+            double min = Double.MAX_VALUE;
+            double max = 0;
+            long totalOps = 0;
+            for (int i = 0; i < measureIterations; i++) {
+                long[] timing = iteration(op); // [0] = nanos, [1] = ops
+                double perOp = (double) timing[0] / timing[1];
+                sum += perOp;
+                min = Math.min(min, perOp);
+                max = Math.max(max, perOp);
+                totalOps += timing[1];
+            }
+            Result r = new Result(name, size, sum / measureIterations, min, max, totalOps);
+            results.add(r);
+            System.out.println(String.format(Locale.ROOT, "%-40s n=%-10d %14.1f ns/op  (min %.1f, max %.1f, %d ops)",
+                    name, size, r.meanNanosPerOp, r.minNanosPerOp, r.maxNanosPerOp, r.ops));
+        } catch (Exception e) {
+            System.err.println("Benchmark " + name + " (n=" + size + ") failed: " + e);
+        }
+    }
+
+    /**
+     * Runs the operation repeatedly until the iteration time is used up.
+     * @return {elapsed nanos, number of operations}
+     */
+    private long[] iteration(Op op) throws Exception {
+        long ops = 0;
+        long start = System.nanoTime();
+        long elapsed;
+        do {
+            sink = op.run();
+            ops++;
+            elapsed = System.nanoTime() - start;
+        } while (elapsed < iterationNanos);
+        return new long[] {elapsed, ops};
+    }
+
+    /**
+     * Writes every recorded result as a JSON array.
+     * @param path The output file.
+     */
+    public void writeJson(String path) throws IOException {
+        try (BufferedWriter out = new BufferedWriter(new FileWriter(path))) {
+            out.write("[\n");
+            boolean first = true;
+            for (Result r : results) {
+                if (!first) {
+                    out.write(",\n");
+                }
+                first = false;
+                out.write(String.format(Locale.ROOT,
+                        "  {\"benchmark\": \"%s\", \"size\": %d, \"unit\": \"ns/op\", "
+                        + "\"mean\": %.3f, \"min\": %.3f, \"max\": %.3f, \"ops\": %d}",
+                        r.name, r.size, r.meanNanosPerOp, r.minNanosPerOp, r.maxNanosPerOp, r.ops));
+            }
+            out.write("\n]\n");
+        }
+    }
+}
@@ -0,0 +1,292 @@
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * A stress test for the thread-safe ECommerceSystem: many threads look up
+ * products and orders, place and ship orders, write reviews, move stock
+ * and register customers at the same time. Every thread counts what it
+ * did; when all threads are done the final state must match those counts
+ * exactly, so a single lost update, duplicate ID or broken index fails
+ * the run.
+ *
+ * Checked at the end:
+ *   - every order ID and customer ID handed out is unique,
+ *   - every placed order can be found by ID and is in its customer's history,
+ *   - the order list, the order index and the customer histories agree,
+ *   - the pending/shipped counts match the orders shipped, and every
+ *     status queue holds as many orders as its count says,
+ *   - each product's stock equals its start stock plus all the changes,
+ *   - each product has exactly the reviews that were added to it, and its
+ *     rating aggregates match the reviews.
+ *
+ * Usage:
+ *   java -cp build/classes:build/bench/classes ConcurrencyStress
+ *        [--threads 8] [--ops 50000] [--products 200] [--customers 100] [--seed 42]
+ *
+ * Exits with status 1 if any check fails.
+ */
+public class ConcurrencyStress {
+
+    private static final int START_STOCK = 1_000;
+
+    // What one thread did (only that thread writes it; read after join)
+    private static final class Tally {
+        final int[] stockDelta;
+        final int[] reviewsAdded;
+        final List<Order> orders = new ArrayList<>();
+        final List<String> customerIds = new ArrayList<>();
+        long lookups;
+        long refused;
+        int shipped;
+
+        Tally(int products) {
+            stockDelta = new int[products];
+            reviewsAdded = new int[products];
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int threads = 8;
+        int ops = 50_000;
+        int products = 200;
+        int customers = 100;
+        long seed = 42;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--threads": threads = Integer.parseInt(args[i + 1]); break;
+                case "--ops": ops = Integer.parseInt(args[i + 1]); break;
+                case "--products": products = Integer.parseInt(args[i + 1]); break;
+                case "--customers": customers = Integer.parseInt(args[i + 1]); break;
+                case "--seed": seed = Long.parseLong(args[i + 1]); break;
+                default: throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+
+        // 1. Build a small store (few products, so threads really collide)
+        ECommerceSystem system = new ECommerceSystem();
+        String[] productIds = new String[products];
+        for (int p = 0; p < products; p++) {
+            productIds[p] = system.getNewProductId();
+            system.addProduct(new Product(productIds[p], "Stress Product " + p, 10 + p, START_STOCK));
+        }
+        String[] customerIds = new String[customers];
+        for (int c = 0; c < customers; c++) {
+            customerIds[c] = system.getNewCustomerId();
+            system.registerNewCustomer(new Customer(customerIds[c], "Stress Customer " + c, "c" + c + "@example.com"));
+        }
+
+        // 2. Run all threads at once
+        Tally[] tallies = new Tally[threads];
+        Thread[] workers = new Thread[threads];
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        SplittableRandom root = new SplittableRandom(seed);
+        for (int t = 0; t < threads; t++) {
+            Tally tally = new Tally(products);
+            tallies[t] = tally;
+            SplittableRandom random = root.split();
+            int threadNo = t;
+            int opsPerThread = ops;
+            workers[t] = new Thread(() -> {
+                try {
+                    start.await();
+                    for (int i = 0; i < opsPerThread; i++) {
+                        step(system, productIds, customerIds, random, tally, threadNo, i);
+                    }
+                } catch (Throwable e) {
+                    failure.compareAndSet(null, e);
+                }
+            }, "stress-" + t);
+            workers[t].start();
+        }
+        long began = System.nanoTime();
+        start.countDown();
+        for (Thread w : workers) {
+            w.join();
+        }
+        double seconds = (System.nanoTime() - began) / 1e9;
+        if (failure.get() != null) {
+            System.out.println("FAILED: a worker thread threw an exception");
+            failure.get().printStackTrace(System.out);
+            System.exit(1);
+        }
+        long total = (long) threads * ops;
+        System.out.printf("%d threads x %d ops = %d ops in %.2f s (%.0f ops/sec)%n",
+            threads, ops, total, seconds, total / seconds);
+
+        // 3. Check the final state against what the threads did
+        List<String> problems = check(system, productIds, customers, tallies);
+        if (problems.isEmpty()) {
+            System.out.println("OK: no lost updates, no duplicate IDs, all indexes agree.");
+        } else {
+            for (String p : problems) {
+                System.out.println("FAILED: " + p);
+            }
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Runs one random operation:
+     * 35% place an order, 20% add a review, 20% move stock up or down,
+     * 15% look something up, 5% ship the oldest pending order,
+     * 5% register a customer.
+     */
+    private static void step(ECommerceSystem system, String[] productIds, String[] customerIds,
+                             SplittableRandom random, Tally tally, int threadNo, int i) {
+        int roll = random.nextInt(100);
+        int p = random.nextInt(productIds.length);
+        if (roll < 35) {
+            // Place an order for 1-3 items, taking each from the stock first
+            String customerId = customerIds[random.nextInt(customerIds.length)];
+            Order order = new Order(system.getNewOrderId(), customerId, new Date());
+            int items = 1 + random.nextInt(3);
+            for (int k = 0; k < items; k++) {
+                int q = (k == 0) ? p : random.nextInt(productIds.length);
+                if (system.adjustStock(productIds[q], -1) >= 0) {
+                    order.addProductToOrder(system.findProductById(productIds[q]));
+                    tally.stockDelta[q]--;
+                } else {
+                    tally.refused++;
+                }
+            }
+            if (!system.placeNewOrder(customerId, order)) {
+                throw new IllegalStateException("placeNewOrder refused an existing customer");
+            }
+            tally.orders.add(order);
+        } else if (roll < 55) {
+            // Each review has its own author, so no review replaces another
+            String author = "stress-" + threadNo + "-" + i;
+            if (!system.addReview(productIds[p], new Review(author, 1 + random.nextInt(5), "Stress review"))) {
+                throw new IllegalStateException("addReview lost product " + productIds[p]);
+            }
+            tally.reviewsAdded[p]++;
+        } else if (roll < 75) {
+            int delta = random.nextBoolean() ? 1 : -1;
+            if (system.adjustStock(productIds[p], delta) >= 0) {
+                tally.stockDelta[p] += delta;
+            } else {
+                tally.refused++;
+            }
+        } else if (roll < 90) {
+            // Lookups must always see what this thread already wrote
+            if (system.findProductById(productIds[p]) == null) {
+                throw new IllegalStateException("Product " + productIds[p] + " disappeared");
+            }
+            if (!tally.orders.isEmpty()) {
+                Order mine = tally.orders.get(random.nextInt(tally.orders.size()));
+                if (system.findOrderById(mine.getOrderId()) != mine) {
+                    throw new IllegalStateException("Order " + mine.getOrderId() + " not found after it was placed");
+                }
+            }
+            tally.lookups++;
+        } else if (roll < 95) {
+            // Two threads must never ship the same order
+            Order next = system.takeOldestOrder(OrderStatus.PENDING, OrderStatus.SHIPPED);
+            if (next != null) {
+                if (next.getStatus() != OrderStatus.SHIPPED) {
+                    throw new IllegalStateException("Order " + next.getOrderId() + " was taken but is " + next.getStatus());
+                }
+                tally.shipped++;
+            }
+        } else {
+            String id = system.getNewCustomerId();
+            system.registerNewCustomer(new Customer(id, "New Customer", id + "@example.com"));
+            tally.customerIds.add(id);
+        }
+    }
+
+    private static List<String> check(ECommerceSystem system, String[] productIds, int startCustomers,
+                                      Tally[] tallies) {
+        List<String> problems = new ArrayList<>();
+
+        // 1. Orders: unique IDs, all findable, all in a customer history
+        Set<String> orderIds = new HashSet<>();
+        int placed = 0;
+        for (Tally t : tallies) {
+            for (Order o : t.orders) {
+                placed++;
+                if (!orderIds.add(o.getOrderId())) {
+                    problems.add("order ID " + o.getOrderId() + " was handed out twice");
+                }
+                if (system.findOrderById(o.getOrderId()) != o) {
+                    problems.add("order " + o.getOrderId() + " is missing from the order index");
+                }
+            }
+        }
+        int listed = system.getAllOrders().size();
+        if (listed != placed) {
+            problems.add("order list has " + listed + " orders, but " + placed + " were placed");
+        }
+        int inHistories = 0;
+        for (Customer c : system.getAllCustomers()) {
+            inHistories += system.getCustomerOrders(c.getCustomerId()).size();
+        }
+        if (inHistories != placed) {
+            problems.add("customer histories hold " + inHistories + " orders, but " + placed + " were placed");
+        }
+
+        int shipped = 0;
+        for (Tally t : tallies) {
+            shipped += t.shipped;
+        }
+        if (system.getOrderCount(OrderStatus.SHIPPED) != shipped
+                || system.getOrderCount(OrderStatus.PENDING) != placed - shipped) {
+            problems.add("status counts are pending=" + system.getOrderCount(OrderStatus.PENDING) + " shipped="
+                + system.getOrderCount(OrderStatus.SHIPPED) + ", expected " + (placed - shipped) + " and " + shipped);
+        }
+        for (OrderStatus st : OrderStatus.values()) {
+            if (system.getOrdersByStatus(st).size() != system.getOrderCount(st)) {
+                problems.add("the " + st + " queue does not match its count");
+            }
+        }
+
+        // 2. Customers: unique IDs, all findable
+        Set<String> customerIds = new HashSet<>();
+        int registered = startCustomers;
+        for (Tally t : tallies) {
+            for (String id : t.customerIds) {
+                registered++;
+                if (!customerIds.add(id)) {
+                    problems.add("customer ID " + id + " was handed out twice");
+                }
+                if (system.findCustomerById(id) == null) {
+                    problems.add("customer " + id + " is missing from the customer index");
+                }
+            }
+        }
+        if (system.getAllCustomers().size() != registered) {
+            problems.add("customer list has " + system.getAllCustomers().size()
+                + " customers, but " + registered + " were registered");
+        }
+
+        // 3. Products: exact stock and review counts, consistent aggregates
+        for (int p = 0; p < productIds.length; p++) {
+            int expectedStock = START_STOCK;
+            int expectedReviews = 0;
+            for (Tally t : tallies) {
+                expectedStock += t.stockDelta[p];
+                expectedReviews += t.reviewsAdded[p];
+            }
+            Product product = system.findProductById(productIds[p]);
+            if (product.getStock() != expectedStock) {
+                problems.add("product " + productIds[p] + " has stock " + product.getStock()
+                    + ", expected " + expectedStock);
+            }
+            if (product.getReviews().size() != expectedReviews) {
+                problems.add("product " + productIds[p] + " has " + product.getReviews().size()
+                    + " reviews, expected " + expectedReviews);
+            }
+            if (!product.verifyRatingAggregates()) {
+                problems.add("product " + productIds[p] + " has rating aggregates that do not match its reviews");
+            }
+        }
+        return problems;
+    }
+}
@@ -0,0 +1,322 @@
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * A deterministic generator for large synthetic datasets, written in
+ * exactly the four CSV formats that ECommerceSystem.readDataFromCSV reads:
+ *
+ *   customers.csv  customerId,name,email
+ *   prodcuts.csv   productId,name,price,stock
+ *   orders.csv     orderId,customerId,"101;102",totalPrice,yyyy-MM-dd,status
+ *   reviews.csv    reviewId,productId,customerId,rating,"comment, with commas"
+ *
+ * Rows are streamed straight to disk, so sizes of tens of millions of rows
+ * only need memory for one price and one popularity slot per product.
+ * The data is skewed like real traffic: product popularity (for orders and
+ * reviews) and customer activity follow Zipf distributions, and orders
+ * are spread over the days with weekly seasonality, a growth trend and
+ * random "sale day" bursts. The same seed always produces the same files.
+ *
+ * Usage:
+ *   java -cp build/classes:build/bench/classes DataGenerator
+ *        [--out dir] [--seed 42] [--customers 1000] [--products 5000]
+ *        [--orders 20000] [--reviews 20000] [--start 2024-01-01] [--days 365]
+ *        [--product-skew 1.1] [--customer-skew 0.8]
+ */
+public class DataGenerator {
+
+    // The first ID of each entity type (matches the shipped sample files)
+    private static final long FIRST_CUSTOMER_ID = 201;
+    private static final long FIRST_PRODUCT_ID = 101;
+    private static final long FIRST_ORDER_ID = 301;
+    private static final long FIRST_REVIEW_ID = 401;
+
+    private static final String[] FIRST_NAMES = {
+        "Alice", "Bob", "Charlie", "Diana", "Edward", "Fiona", "George", "Hannah",
+        "Ian", "Julia", "Kevin", "Laura", "Michael", "Nina", "Oscar", "Paula",
+        "Quinn", "Rachel", "Samuel", "Tina", "Umar", "Vera", "William", "Xena",
+        "Yusuf", "Zara"
+    };
+    private static final String[] LAST_NAMES = {
+        "Johnson", "Smith", "Brown", "Prince", "Wilson", "Clark", "Miller", "Davis",
+        "Thompson", "Roberts", "Lee", "Walker", "Hall", "Young", "King", "Wright",
+        "Lopez", "Hill", "Scott", "Green", "Adams", "Baker", "Nelson", "Carter"
+    };
+    private static final String[] ADJECTIVES = {
+        "Wireless", "Smart", "Portable", "Ergonomic", "Compact", "Gaming", "Pro",
+        "Ultra", "Mini", "Digital", "Bluetooth", "Mechanical", "Electric", "Classic"
+    };
+    private static final String[] NOUNS = {
+        "Mouse", "Keyboard", "Headphones", "Speaker", "Monitor", "Laptop", "Tablet",
+        "Camera", "Charger", "Router", "Watch", "Lamp", "Chair", "Backpack",
+        "Microphone", "Printer", "Drive", "Hub", "Controller", "Projector"
+    };
+    private static final String[] COMMENTS = {
+        "Great product, would buy again.",
+        "Works as expected, no complaints.",
+        "Good value, but shipping was slow.",
+        "Not bad, could be better.",
+        "Stopped working after a week, very disappointed.",
+        "Excellent quality, fast delivery, highly recommended!",
+        "Does the job, nothing special.",
+        "Nice design, a bit pricey."
+    };
+    // Rating 1..5 with a realistic J-shape (lots of 5s, some 1s)
+    private static final double[] RATING_CUMULATIVE = {0.07, 0.13, 0.25, 0.55, 1.0};
+
+    // --- Settings ---
+    private long seed = 42;
+    private int customers = 1_000;
+    private int products = 5_000;
+    private long orders = 20_000;
+    private long reviews = 20_000;
+    private LocalDate startDate = LocalDate.of(2024, 1, 1);
+    private int days = 365;
+    private double productSkew = 1.1;
+    private double customerSkew = 0.8;
+
+    public static void main(String[] args) throws IOException {
+        DataGenerator generator = new DataGenerator();
+        String out = "build/data";
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "--out": out = value; break;
+                case "--seed": generator.seed = Long.parseLong(value); break;
+                case "--customers": generator.customers = Integer.parseInt(value); break;
+                case "--products": generator.products = Integer.parseInt(value); break;
+                case "--orders": generator.orders = Long.parseLong(value); break;
+                case "--reviews": generator.reviews = Long.parseLong(value); break;
+                case "--start": generator.startDate = LocalDate.parse(value); break;
+                case "--days": generator.days = Integer.parseInt(value); break;
+                case "--product-skew": generator.productSkew = Double.parseDouble(value); break;
+                case "--customer-skew": generator.customerSkew = Double.parseDouble(value); break;
+                default: System.err.println("Unknown option: " + args[i]);
+            }
+        }
+        long start = System.nanoTime();
+        generator.generate(new File(out));
+        System.out.printf("Generated %d customers, %d products, %d orders, %d reviews in %s (%.1f s)%n",
+                generator.customers, generator.products, generator.orders, generator.reviews,
+                out, (System.nanoTime() - start) / 1e9);
+    }
+
+    /**
+     * Creates a generator with explicit sizes (the other settings keep their defaults).
+     */
+    public static DataGenerator withSizes(long seed, int customers, int products, long orders, long reviews) {
+        DataGenerator g = new DataGenerator();
+        g.seed = seed;
+        g.customers = customers;
+        g.products = products;
+        g.orders = orders;
+        g.reviews = reviews;
+        return g;
+    }
+
+    /**
+     * Writes customers.csv, prodcuts.csv, orders.csv and reviews.csv into "dir".
+     */
+    public void generate(File dir) throws IOException {
+        if (customers < 1 || products < 1) {
+            throw new IllegalArgumentException("Need at least one customer and one product");
+        }
+        dir.mkdirs();
+        Random random = new Random(seed);
+
+        // Popularity ranks are shuffled over the IDs, so "popular" is not just "low ID"
+        int[] productByRank = shuffledIdentity(products, random);
+        int[] customerByRank = shuffledIdentity(customers, random);
+        ZipfSampler productPopularity = new ZipfSampler(products, productSkew);
+        ZipfSampler customerActivity = new ZipfSampler(customers, customerSkew);
+
+        writeCustomers(new File(dir, "customers.csv"), random);
+        long[] priceCents = writeProducts(new File(dir, "prodcuts.csv"), random);
+        writeOrders(new File(dir, "orders.csv"), random, priceCents,
+                productPopularity, productByRank, customerActivity, customerByRank);
+        writeReviews(new File(dir, "reviews.csv"), random,
+                productPopularity, productByRank, customerActivity, customerByRank);
+    }
+
+    // --- The four files ---
+
+    private void writeCustomers(File file, Random random) throws IOException {
+        try (Writer out = open(file)) {
+            out.write("customerId,name,email\n");
+            StringBuilder line = new StringBuilder(96);
+            for (int i = 0; i < customers; i++) {
+                String first = FIRST_NAMES[random.nextInt(FIRST_NAMES.length)];
+                String last = LAST_NAMES[random.nextInt(LAST_NAMES.length)];
+                line.setLength(0);
+                line.append(FIRST_CUSTOMER_ID + i).append(',')
+                    .append(first).append(' ').append(last).append(',')
+                    .append(first.toLowerCase(Locale.ROOT)).append('.').append(last.toLowerCase(Locale.ROOT))
+                    .append(i).append("@example.com\n");
+                out.append(line);
+            }
+        }
+    }
+
+    private long[] writeProducts(File file, Random random) throws IOException {
+        long[] priceCents = new long[products];
+        try (Writer out = open(file)) {
+            out.write("productId,name,price,stock\n");
+            StringBuilder line = new StringBuilder(96);
+            for (int i = 0; i < products; i++) {
+                // Log-uniform prices between $5 and $2000
+                long cents = Math.round(500 * Math.pow(400, random.nextDouble()));
+                priceCents[i] = cents;
+                // ~3% of the catalog is out of stock
+                int stock = random.nextInt(100) < 3 ? 0 : 1 + random.nextInt(250);
+                line.setLength(0);
+                line.append(FIRST_PRODUCT_ID + i).append(',')
+                    .append(ADJECTIVES[random.nextInt(ADJECTIVES.length)]).append(' ')
+                    .append(NOUNS[random.nextInt(NOUNS.length)]).append(' ')
+                    .append((char) ('A' + random.nextInt(26))).append(100 + random.nextInt(900)).append(',');
+                appendCents(line, cents).append(',').append(stock).append('\n');
+                out.append(line);
+            }
+        }
+        return priceCents;
+    }
+
+    private void writeOrders(File file, Random random, long[] priceCents,
+                             ZipfSampler productPopularity, int[] productByRank,
+                             ZipfSampler customerActivity, int[] customerByRank) throws IOException {
+        long[] perDay = ordersPerDay(random);
+        long orderId = FIRST_ORDER_ID;
+        try (Writer out = open(file)) {
+            out.write("orderId,customerId,productIds,totalPrice,orderDate,status\n");
+            StringBuilder line = new StringBuilder(128);
+            for (int d = 0; d < days; d++) {
+                String date = startDate.plusDays(d).toString(); // yyyy-MM-dd
+                String status = statusForAge(days - 1 - d, random);
+                for (long k = 0; k < perDay[d]; k++) {
+                    int customer = customerByRank[customerActivity.sample(random) - 1];
+                    // 1-4 items, mostly 1
+                    int items = 1 + (random.nextInt(10) < 6 ? 0 : random.nextInt(4));
+                    line.setLength(0);
+                    line.append(orderId++).append(',').append(FIRST_CUSTOMER_ID + customer).append(",\"");
+                    long total = 0;
+                    for (int j = 0; j < items; j++) {
+                        int product = productByRank[productPopularity.sample(random) - 1];
+                        if (j > 0) {
+                            line.append(';');
+                        }
+                        line.append(FIRST_PRODUCT_ID + product);
+                        total += priceCents[product];
+                    }
+                    line.append("\",");
+                    appendCents(line, total).append(',').append(date).append(',').append(status).append('\n');
+                    out.append(line);
+                }
+            }
+        }
+    }
+
+    private void writeReviews(File file, Random random,
+                              ZipfSampler productPopularity, int[] productByRank,
+                              ZipfSampler customerActivity, int[] customerByRank) throws IOException {
+        try (Writer out = open(file)) {
+            out.write("reviewId,productId,customerId,rating,comment\n");
+            StringBuilder line = new StringBuilder(128);
+            for (long i = 0; i < reviews; i++) {
+                int product = productByRank[productPopularity.sample(random) - 1];
+                int customer = customerByRank[customerActivity.sample(random) - 1];
+                double r = random.nextDouble();
+                int rating = 1;
+                while (rating < 5 && r > RATING_CUMULATIVE[rating - 1]) {
+                    rating++;
+                }
+                line.setLength(0);
+                line.append(FIRST_REVIEW_ID + i).append(',')
+                    .append(FIRST_PRODUCT_ID + product).append(',')
+                    .append(FIRST_CUSTOMER_ID + customer).append(',')
+                    .append(rating).append(",\"")
+                    .append(COMMENTS[random.nextInt(COMMENTS.length)]).append("\"\n");
+                out.append(line);
+            }
+        }
+    }
+
+    // --- Helpers ---
+
+    /**
+     * Splits the orders over the days: weekends are busier, traffic grows
+     * over the period, and about 3% of days are 4-10x "sale day" bursts.
+     */
+    private long[] ordersPerDay(Random random) {
+        double[] weight = new double[days];
+        double total = 0;
+        for (int d = 0; d < days; d++) {
+            int dayOfWeek = startDate.plusDays(d).getDayOfWeek().getValue(); // 1 = Monday
+            double w = (dayOfWeek >= 6) ? 1.4 : 1.0;
+            w *= 1.0 + (double) d / days;
+            if (random.nextInt(100) < 3) {
+                w *= 4 + random.nextInt(7);
+            }
+            weight[d] = w;
+            total += w;
+        }
+        // Round the running total, so the counts add up to exactly "orders"
+        long[] perDay = new long[days];
+        double running = 0;
+        long assigned = 0;
+        for (int d = 0; d < days; d++) {
+            running += weight[d];
+            long upTo = Math.round(orders * (running / total));
+            perDay[d] = upTo - assigned;
+            assigned = upTo;
+        }
+        return perDay;
+    }
+
+    /** Recent orders are still pending, older ones shipped or delivered. */
+    private static String statusForAge(int daysAgo, Random random) {
+        if (daysAgo < 2) {
+            return "Pending";
+        }
+        if (daysAgo < 7) {
+            return random.nextBoolean() ? "Pending" : "Shipped";
+        }
+        if (daysAgo < 14) {
+            return random.nextInt(4) == 0 ? "Shipped" : "Delivered";
+        }
+        return "Delivered";
+    }
+
+    private static int[] shuffledIdentity(int n, Random random) {
+        int[] a = new int[n];
+        for (int i = 0; i < n; i++) {
+            a[i] = i;
+        }
+        for (int i = n - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int t = a[i];
+            a[i] = a[j];
+            a[j] = t;
+        }
+        return a;
+    }
+
+    private static StringBuilder appendCents(StringBuilder sb, long cents) {
+        sb.append(cents / 100).append('.');
+        long rest = cents % 100;
+        if (rest < 10) {
+            sb.append('0');
+        }
+        return sb.append(rest);
+    }
+
+    private static Writer open(File file) throws IOException {
+        return new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8), 1 << 16);
+    }
+}
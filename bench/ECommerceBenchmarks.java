@@ -0,0 +1,298 @@
+import java.io.File;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.Date;
+import java.util.Random;
+import java.util.stream.StreamSupport;
+
+/**
+ * The benchmark suite: MyLinkedList (and MyDoublyLinkedList) operations, big orders, CSV loading, the
+ * primary-key lookups and every Section 3 query, each run over a range
+ * of dataset sizes.
+ *
+ * Usage:
+ *   java -cp build/classes:build/bench/classes ECommerceBenchmarks
+ *        [--sizes 1000,10000,...] [--only prefix] [--out results.json]
+ *        [--warmup 3] [--iterations 5] [--millis 500]
+ * Large sizes (10^6 and up) need a big heap, e.g. -Xmx8g.
+ */
+public class ECommerceBenchmarks {
+
+    public static void main(String[] args) throws Exception {
+        String sizesArg = "1000,10000,100000,1000000,10000000";
+        String only = "";
+        String out = "build/bench/results.json";
+        int warmup = 3;
+        int iterations = 5;
+        long millis = 500;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--sizes": sizesArg = args[i + 1]; break;
+                case "--only": only = args[i + 1]; break;
+                case "--out": out = args[i + 1]; break;
+                case "--warmup": warmup = Integer.parseInt(args[i + 1]); break;
+                case "--iterations": iterations = Integer.parseInt(args[i + 1]); break;
+                case "--millis": millis = Long.parseLong(args[i + 1]); break;
+                default: System.err.println("Unknown option: " + args[i]);
+            }
+        }
+
+        BenchHarness harness = new BenchHarness(warmup, iterations, millis);
+        File dataDir = new File("build/bench/data");
+        for (String s : sizesArg.split(",")) {
+            int n = Integer.parseInt(s.trim());
+            System.out.println("=== Dataset size " + n + " ===");
+            linkedListBenchmarks(harness, n, only);
+            orderBenchmarks(harness, n, only);
+            systemBenchmarks(harness, n, only);
+            csvBenchmarks(harness, n, only, dataDir);
+        }
+
+        File outFile = new File(out);
+        if (outFile.getParentFile() != null) {
+            outFile.getParentFile().mkdirs();
+        }
+        harness.writeJson(out);
+        System.out.println("Results written to " + out);
+    }
+
+    // --- MyLinkedList ---
+
+    private static void linkedListBenchmarks(BenchHarness h, int n, String only) {
+        MyLinkedList<Integer> list = new MyLinkedList<>();
+        for (int i = 0; i < n; i++) {
+            list.add(i);
+        }
+        Random random = new Random(1);
+
+        if (selected("MyLinkedList.add", only)) {
+            MyLinkedList<Integer>[] growing = newListHolder();
+            h.run("MyLinkedList.add", n, () -> {
+                if (growing[0].size() >= n) {
+                    growing[0] = new MyLinkedList<>(); // Keep the list at most n long
+                }
+                growing[0].add(1);
+                return growing[0];
+            });
+        }
+        if (selected("MyLinkedList.get", only)) {
+            h.run("MyLinkedList.get", n, () -> list.get(random.nextInt(n)));
+        }
+        if (selected("MyLinkedList.removeMiddle", only)) {
+            h.run("MyLinkedList.removeMiddle", n, () -> {
+                list.remove(n / 2);
+                list.add(0); // Put one back so the size stays n
+                return list;
+            });
+        }
+        if (selected("MyDoublyLinkedList.removeMiddle", only)) {
+            // Same work as MyLinkedList.removeMiddle, but through a node handle
+            MyDoublyLinkedList<Integer> dlist = new MyDoublyLinkedList<>();
+            DNode<Integer> middle = null;
+            for (int i = 0; i < n; i++) {
+                DNode<Integer> node = dlist.add(i);
+                if (i == n / 2) {
+                    middle = node;
+                }
+            }
+            Object[] current = {middle};
+            h.run("MyDoublyLinkedList.removeMiddle", n, () -> {
+                @SuppressWarnings("unchecked")
+                DNode<Integer> node = (DNode<Integer>) current[0];
+                current[0] = dlist.next(node);
+                dlist.remove(node);
+                dlist.add(0); // Put one back so the size stays n
+                return dlist;
+            });
+        }
+        if (selected("MyLinkedList.iterate", only)) {
+            h.run("MyLinkedList.iterate", n, () -> {
+                long sum = 0;
+                for (Integer x : list) {
+                    sum += x;
+                }
+                return sum;
+            });
+        }
+        if (selected("MyLinkedList.stream.sequential", only)) {
+            h.run("MyLinkedList.stream.sequential", n,
+                () -> StreamSupport.stream(list.spliterator(), false).mapToLong(Integer::longValue).sum());
+        }
+        if (selected("MyLinkedList.stream.parallel", only)) {
+            // The same sum on the common ForkJoinPool (the balanced spliterator splits the list)
+            h.run("MyLinkedList.stream.parallel", n,
+                () -> StreamSupport.stream(list.spliterator(), true).mapToLong(Integer::longValue).sum());
+        }
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static MyLinkedList<Integer>[] newListHolder() {
+        return new MyLinkedList[] {new MyLinkedList<Integer>()};
+    }
+
+    // --- Orders ---
+
+    private static void orderBenchmarks(BenchHarness h, int n, String only) {
+        if (!selected("Order.buildBigOrder", only)) {
+            return;
+        }
+        // One order of n units spread over 10 products (packed into 10 line items)
+        Product[] products = new Product[10];
+        for (int p = 0; p < products.length; p++) {
+            products[p] = new Product(BenchData.productId(p), "Bench Product " + p, 9.99 + p, 100);
+        }
+        h.run("Order.buildBigOrder", n, () -> {
+            Order order = new Order("1", "1", null);
+            for (int i = 0; i < n; i++) {
+                order.addProductToOrder(products[i % products.length]);
+            }
+            return order.getTotalCents();
+        });
+    }
+
+    // --- Lookups and Section 3 queries ---
+
+    private static void systemBenchmarks(BenchHarness h, int n, String only) {
+        if (!selected("ECommerceSystem.", only)) {
+            return;
+        }
+        ECommerceSystem system = BenchData.buildSystem(n);
+        int customers = Math.max(1, n / 10);
+        Random random = new Random(2);
+
+        if (selected("ECommerceSystem.findProductById", only)) {
+            h.run("ECommerceSystem.findProductById", n,
+                () -> system.findProductById(BenchData.productId(random.nextInt(n))));
+        }
+        if (selected("ECommerceSystem.findCustomerById", only)) {
+            h.run("ECommerceSystem.findCustomerById", n,
+                () -> system.findCustomerById(BenchData.customerId(random.nextInt(customers))));
+        }
+        if (selected("ECommerceSystem.findOrderById", only)) {
+            h.run("ECommerceSystem.findOrderById", n,
+                () -> system.findOrderById(BenchData.orderId(random.nextInt(n))));
+        }
+        if (selected("ECommerceSystem.removeProduct", only)) {
+            // Remove a product and add it back, so the catalog keeps its size
+            h.run("ECommerceSystem.removeProduct", n, () -> {
+                Product p = system.findProductById(BenchData.productId(random.nextInt(n)));
+                system.removeProduct(p.getProductId());
+                system.addProduct(p);
+                return p;
+            });
+        }
+        if (selected("ECommerceSystem.extractCustomerReviews", only)) {
+            h.run("ECommerceSystem.extractCustomerReviews", n,
+                () -> system.extractCustomerReviews(BenchData.customerId(random.nextInt(customers))));
+        }
+        if (selected("ECommerceSystem.getTop3Products", only)) {
+            h.run("ECommerceSystem.getTop3Products", n, system::getTop3Products);
+        }
+        if (selected("ECommerceSystem.getOrdersBetweenDates", only)) {
+            h.run("ECommerceSystem.getOrdersBetweenDates", n, () -> {
+                int day = random.nextInt(335);
+                Date start = BenchData.date(day);
+                Date end = BenchData.date(day + 30);
+                return system.getOrdersBetweenDates(start, end);
+            });
+        }
+        if (selected("ECommerceSystem.cursorOrdersBetweenDates.firstPage", only)) {
+            // The same ranges, but only the first 20 orders are read
+            h.run("ECommerceSystem.cursorOrdersBetweenDates.firstPage", n, () -> {
+                int day = random.nextInt(335);
+                Date start = BenchData.date(day);
+                Date end = BenchData.date(day + 30);
+                return system.cursorOrdersBetweenDates(start, false, end, false, false).nextPage(20);
+            });
+        }
+        if (selected("ECommerceSystem.getAllProducts", only)) {
+            h.run("ECommerceSystem.getAllProducts", n, system::getAllProducts);
+        }
+        if (selected("ECommerceSystem.cursorAllProducts.firstPage", only)) {
+            h.run("ECommerceSystem.cursorAllProducts.firstPage", n,
+                () -> system.cursorAllProducts().nextPage(20));
+        }
+        if (selected("ECommerceSystem.cursorAllProducts.page100", only)) {
+            // Keyset paging: reading page 100 costs the same as page 1, once the cursor is there
+            h.run("ECommerceSystem.cursorAllProducts.page100", n, () -> {
+                QueryCursor<Product> cursor = system.cursorAllProducts();
+                MyLinkedList<Product> page = null;
+                for (int i = 0; i < 100; i++) {
+                    page = cursor.nextPage(20);
+                }
+                return page;
+            });
+        }
+        if (selected("ECommerceSystem.getProductsInPriceRange", only)) {
+            // The same query again: answered from the query cache
+            h.run("ECommerceSystem.getProductsInPriceRange", n,
+                () -> system.getProductsInPriceRange(20, 40));
+        }
+        if (selected("ECommerceSystem.getProductsInPriceRange.afterPriceChange", only)) {
+            // A price change first, so the cached result is stale every time
+            h.run("ECommerceSystem.getProductsInPriceRange.afterPriceChange", n, () -> {
+                String id = BenchData.productId(random.nextInt(n));
+                system.updatePrice(id, system.findProductById(id).getPrice());
+                return system.getProductsInPriceRange(20, 40);
+            });
+        }
+        if (selected("ECommerceSystem.getTotalRevenue", only)) {
+            h.run("ECommerceSystem.getTotalRevenue", n, system::getTotalRevenue);
+        }
+        if (selected("ECommerceSystem.getTotalInventoryValue.afterStockChange", only)) {
+            // A stock change first, so the scan runs every time (not the cached value)
+            h.run("ECommerceSystem.getTotalInventoryValue.afterStockChange", n, () -> {
+                system.adjustStock(BenchData.productId(random.nextInt(n)), 1);
+                return system.getTotalInventoryValue();
+            });
+        }
+        if (selected("ECommerceSystem.getCommonReviewedProducts", only)) {
+            h.run("ECommerceSystem.getCommonReviewedProducts", n,
+                () -> system.getCommonReviewedProducts(
+                        BenchData.customerId(random.nextInt(customers)),
+                        BenchData.customerId(random.nextInt(customers))));
+        }
+    }
+
+    // --- CSV loading ---
+
+    private static void csvBenchmarks(BenchHarness h, int n, String only, File dataDir) throws Exception {
+        boolean sequential = selected("ECommerceSystem.readDataFromCSV", only);
+        boolean parallel = selected("ECommerceSystem.readDataFromCSVParallel", only);
+        if (!sequential && !parallel) {
+            return;
+        }
+        String[] files = BenchData.writeCsv(n, dataDir);
+        PrintStream realOut = System.out;
+        PrintStream quiet = new PrintStream(OutputStream.nullOutputStream());
+        if (sequential) {
+            h.run("ECommerceSystem.readDataFromCSV", n, () -> {
+                ECommerceSystem system = new ECommerceSystem();
+                System.setOut(quiet); // The loader prints progress lines
+                try {
+                    system.readDataFromCSV(files[0], files[1], files[2], files[3]);
+                } finally {
+                    System.setOut(realOut);
+                }
+                return system;
+            });
+        }
+        if (parallel) {
+            int threads = Runtime.getRuntime().availableProcessors();
+            h.run("ECommerceSystem.readDataFromCSVParallel", n, () -> {
+                ECommerceSystem system = new ECommerceSystem();
+                System.setOut(quiet);
+                try {
+                    system.readDataFromCSVParallel(files[0], files[1], files[2], files[3], threads);
+                } finally {
+                    System.setOut(realOut);
+                }
+                return system;
+            });
+        }
+    }
+
+    private static boolean selected(String name, String only) {
+        return only.isEmpty() || name.startsWith(only) || only.startsWith(name);
+    }
+}
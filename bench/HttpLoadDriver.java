@@ -0,0 +1,205 @@
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A local load driver for HttpApi: many clients (one virtual thread each)
+ * send a mix of reads and writes for a fixed time, then the driver prints
+ * requests/sec, the answers by status code and the latency percentiles.
+ *
+ * Without --url it starts its own HttpApi on a free port, over a store of
+ * --products products and --customers customers built in memory.
+ *
+ * Usage:
+ *   java -cp build/classes:build/bench/classes HttpLoadDriver
+ *        [--url http://localhost:8080] [--clients 64] [--seconds 10]
+ *        [--products 200] [--customers 100] [--seed 42]
+ *
+ * The request mix: 40% GET /products/{id}, 15% GET /orders/{id},
+ * 10% GET /queries/top, 10% GET /customers/{id}/orders, 15% POST /orders,
+ * 10% POST /products/{id}/reviews.
+ */
+public class HttpLoadDriver {
+
+    public static void main(String[] args) throws Exception {
+        String url = null;
+        int clients = 64;
+        int seconds = 10;
+        int products = 200;
+        int customers = 100;
+        long seed = 42;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--url": url = args[i + 1]; break;
+                case "--clients": clients = Integer.parseInt(args[i + 1]); break;
+                case "--seconds": seconds = Integer.parseInt(args[i + 1]); break;
+                case "--products": products = Integer.parseInt(args[i + 1]); break;
+                case "--customers": customers = Integer.parseInt(args[i + 1]); break;
+                case "--seed": seed = Long.parseLong(args[i + 1]); break;
+                default: throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+
+        // 1. Start our own server unless one was given
+        HttpApi embedded = null;
+        String[] productIds;
+        String[] customerIds;
+        if (url == null) {
+            ECommerceSystem system = new ECommerceSystem();
+            productIds = new String[products];
+            for (int p = 0; p < products; p++) {
+                productIds[p] = system.getNewProductId();
+                system.addProduct(new Product(productIds[p], "Load Product " + p, 10 + p, 1_000_000));
+            }
+            customerIds = new String[customers];
+            for (int c = 0; c < customers; c++) {
+                customerIds[c] = system.getNewCustomerId();
+                system.registerNewCustomer(new Customer(customerIds[c], "Load Customer " + c, "c" + c + "@example.com"));
+            }
+            embedded = new HttpApi(system, 0);
+            embedded.start();
+            url = "http://localhost:" + embedded.getPort();
+        } else {
+            // The IDs the shipped CSV files (and DataGenerator) start from
+            productIds = new String[products];
+            for (int p = 0; p < products; p++) {
+                productIds[p] = String.valueOf(101 + p);
+            }
+            customerIds = new String[customers];
+            for (int c = 0; c < customers; c++) {
+                customerIds[c] = String.valueOf(201 + c);
+            }
+        }
+
+        // 2. Run the clients until the time is up
+        HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .executor(Executors.newVirtualThreadPerTaskExecutor())
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+        long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+        Map<Integer, AtomicLong> byStatus = new TreeMap<>();
+        long[][] latencies = new long[clients][];
+        int[] counts = new int[clients];
+        AtomicLong failures = new AtomicLong();
+        AtomicLong lastOrder = new AtomicLong(-1);
+        SplittableRandom root = new SplittableRandom(seed);
+        String base = url;
+        try (ExecutorService threads = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int t = 0; t < clients; t++) {
+                SplittableRandom random = root.split();
+                int me = t;
+                threads.submit(() -> {
+                    long[] mine = new long[1024];
+                    int n = 0;
+                    while (System.nanoTime() < deadline) {
+                        HttpRequest request = nextRequest(base, random, productIds, customerIds, lastOrder);
+                        long start = System.nanoTime();
+                        try {
+                            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+                            long nanos = System.nanoTime() - start;
+                            if (n == mine.length) {
+                                mine = Arrays.copyOf(mine, n * 2);
+                            }
+                            mine[n++] = nanos;
+                            synchronized (byStatus) {
+                                byStatus.computeIfAbsent(response.statusCode(), k -> new AtomicLong()).incrementAndGet();
+                            }
+                            rememberOrder(response, lastOrder);
+                        } catch (Exception e) {
+                            failures.incrementAndGet();
+                        }
+                    }
+                    latencies[me] = mine;
+                    counts[me] = n;
+                });
+            }
+        }
+        if (embedded != null) {
+            embedded.stop();
+        }
+
+        // 3. Report
+        int total = 0;
+        for (int c : counts) {
+            total += c;
+        }
+        long[] all = new long[total];
+        int at = 0;
+        for (int t = 0; t < clients; t++) {
+            System.arraycopy(latencies[t], 0, all, at, counts[t]);
+            at += counts[t];
+        }
+        Arrays.sort(all);
+        System.out.printf("%d clients, %d s: %d requests = %.0f requests/sec (%d failed to connect)%n",
+            clients, seconds, total, total / (double) seconds, failures.get());
+        System.out.println("By status: " + byStatus);
+        if (total > 0) {
+            System.out.printf("Latency (ms): p50 %.2f  p90 %.2f  p99 %.2f  max %.2f%n",
+                all[(int) (total * 0.50)] / 1e6, all[(int) (total * 0.90)] / 1e6,
+                all[Math.min(total - 1, (int) (total * 0.99))] / 1e6, all[total - 1] / 1e6);
+        }
+    }
+
+    /**
+     * Picks the next request of the mix.
+     */
+    private static HttpRequest nextRequest(String base, SplittableRandom random, String[] productIds,
+                                           String[] customerIds, AtomicLong lastOrder) {
+        String product = productIds[random.nextInt(productIds.length)];
+        String customer = customerIds[random.nextInt(customerIds.length)];
+        int roll = random.nextInt(100);
+        if (roll < 40) {
+            return get(base + "/products/" + product);
+        } else if (roll < 55) {
+            long order = lastOrder.get();
+            return get(base + (order < 0 ? "/products/" + product : "/orders/" + order));
+        } else if (roll < 65) {
+            return get(base + "/queries/top?k=10");
+        } else if (roll < 75) {
+            return get(base + "/customers/" + customer + "/orders");
+        } else if (roll < 90) {
+            String second = productIds[random.nextInt(productIds.length)];
+            return post(base + "/orders", "{\"customerId\":\"" + customer + "\",\"productIds\":[\""
+                + product + "\",\"" + second + "\"]}");
+        } else {
+            return post(base + "/products/" + product + "/reviews", "{\"customerId\":\"" + customer
+                + "\",\"rating\":" + (1 + random.nextInt(5)) + ",\"comment\":\"Load test review\"}");
+        }
+    }
+
+    /**
+     * Remembers the ID of a newly placed order, so later GETs can ask for it.
+     */
+    private static void rememberOrder(HttpResponse<String> response, AtomicLong lastOrder) {
+        String body = response.body();
+        if (response.statusCode() == 201 && body.startsWith("{\"orderId\":\"")) {
+            int end = body.indexOf('"', 12);
+            try {
+                lastOrder.set(Long.parseLong(body.substring(12, end)));
+            } catch (NumberFormatException e) {
+                // Not a numeric ID: just keep the old one
+            }
+        }
+    }
+
+    private static HttpRequest get(String uri) {
+        return HttpRequest.newBuilder(URI.create(uri)).GET().build();
+    }
+
+    private static HttpRequest post(String uri, String json) {
+        return HttpRequest.newBuilder(URI.create(uri))
+            .header("Content-Type", "application/json")
+            .POST(HttpRequest.BodyPublishers.ofString(json))
+            .build();
+    }
+}
@@ -0,0 +1,164 @@
+import java.util.Date;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A contention benchmark for the inventory reservations: many threads buy
+ * from the same few "hot" products at once. Each operation reserves 1-3
+ * units (all-or-nothing) and then either places the order (70%), gives the
+ * units back (20%) or places the order and cancels it again (10%, which
+ * restocks it). Products may sell out on the way; those reservations are
+ * refused and counted.
+ *
+ * --mode cas uses ECommerceSystem.reserveStock as is (no lock around it).
+ * --mode lock puts one global lock around every reservation, the way a
+ * single store-wide lock would, to show what the CAS path saves.
+ *
+ * At the end each product's stock must equal its start stock minus the
+ * units of the orders that were placed and not canceled.
+ *
+ * Usage:
+ *   java -cp build/classes:build/bench/classes InventoryContention
+ *        [--threads 8] [--ops 200000] [--hot 4] [--stock 100000] [--mode cas|lock] [--seed 42]
+ *
+ * Exits with status 1 if the stock does not add up.
+ */
+public class InventoryContention {
+
+    public static void main(String[] args) throws Exception {
+        int threads = 8;
+        int ops = 200_000;
+        int hot = 4;
+        int stock = 100_000;
+        String mode = "cas";
+        long seed = 42;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--threads": threads = Integer.parseInt(args[i + 1]); break;
+                case "--ops": ops = Integer.parseInt(args[i + 1]); break;
+                case "--hot": hot = Integer.parseInt(args[i + 1]); break;
+                case "--stock": stock = Integer.parseInt(args[i + 1]); break;
+                case "--mode": mode = args[i + 1]; break;
+                case "--seed": seed = Long.parseLong(args[i + 1]); break;
+                default: throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+        if (!mode.equals("cas") && !mode.equals("lock")) {
+            throw new IllegalArgumentException("--mode must be cas or lock");
+        }
+
+        // 1. A few hot products and one customer per thread
+        ECommerceSystem system = new ECommerceSystem();
+        Product[] products = new Product[hot];
+        for (int p = 0; p < hot; p++) {
+            products[p] = new Product(system.getNewProductId(), "Hot Product " + p, 10 + p, stock);
+            system.addProduct(products[p]);
+        }
+        String[] customerIds = new String[threads];
+        for (int t = 0; t < threads; t++) {
+            customerIds[t] = system.getNewCustomerId();
+            system.registerNewCustomer(new Customer(customerIds[t], "Buyer " + t, "b" + t + "@example.com"));
+        }
+
+        // 2. Run the threads; each one counts the units it sold per product
+        ReentrantLock globalLock = mode.equals("lock") ? new ReentrantLock() : null;
+        int[][] sold = new int[threads][hot];
+        long[] refused = new long[threads];
+        int perThread = ops / threads;
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] workers = new Thread[threads];
+        SplittableRandom root = new SplittableRandom(seed);
+        for (int t = 0; t < threads; t++) {
+            SplittableRandom random = root.split();
+            int me = t;
+            workers[t] = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < perThread; i++) {
+                    MyLinkedList<Product> items = new MyLinkedList<>();
+                    int count = 1 + random.nextInt(3);
+                    for (int k = 0; k < count; k++) {
+                        items.add(products[random.nextInt(products.length)]);
+                    }
+                    Reservation r;
+                    if (globalLock != null) {
+                        globalLock.lock();
+                        try {
+                            r = system.reserveStock(items);
+                        } finally {
+                            globalLock.unlock();
+                        }
+                    } else {
+                        r = system.reserveStock(items);
+                    }
+                    if (r == null) {
+                        refused[me]++;
+                        continue;
+                    }
+                    int roll = random.nextInt(10);
+                    if (roll < 2) {
+                        system.releaseReservation(r);
+                        continue;
+                    }
+                    Order order = new Order(system.getNewOrderId(), customerIds[me], new Date());
+                    for (Product p : items) {
+                        order.addProductToOrder(p);
+                    }
+                    system.placeReservedOrder(customerIds[me], order, r);
+                    if (roll == 9) {
+                        system.cancelOrder(order.getOrderId());
+                    } else {
+                        for (Product p : items) {
+                            sold[me][indexOf(products, p)]++;
+                        }
+                    }
+                }
+            }, "buyer-" + t);
+            workers[t].start();
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Thread w : workers) {
+            w.join();
+        }
+        double seconds = (System.nanoTime() - begin) / 1e9;
+
+        // 3. Report and check the stock
+        long totalRefused = 0;
+        for (long r : refused) {
+            totalRefused += r;
+        }
+        System.out.printf("%s: %d threads, %d hot products, %d ops in %.2f s = %.0f ops/sec (%d refused: sold out)%n",
+            mode, threads, hot, perThread * (long) threads, seconds, perThread * (long) threads / seconds, totalRefused);
+        boolean ok = true;
+        for (int p = 0; p < hot; p++) {
+            int expected = stock;
+            for (int t = 0; t < threads; t++) {
+                expected -= sold[t][p];
+            }
+            int actual = products[p].getStock();
+            if (actual != expected) {
+                System.out.println("FAIL: product " + products[p].getProductId() + " has stock " + actual
+                    + ", expected " + expected);
+                ok = false;
+            }
+        }
+        if (!ok) {
+            System.exit(1);
+        }
+        System.out.println("OK: every product's stock adds up");
+    }
+
+    private static int indexOf(Product[] products, Product p) {
+        for (int i = 0; i < products.length; i++) {
+            if (products[i] == p) {
+                return i;
+            }
+        }
+        throw new IllegalStateException("unknown product " + p.getProductId());
+    }
+}
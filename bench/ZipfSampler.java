@@ -0,0 +1,84 @@
+import java.util.Random;
+
+/**
+ * Samples ranks 1..n from a Zipf distribution: P(k) is proportional to 1/k^s.
+ * Uses rejection-inversion sampling (Hormann and Derflinger), so every
+ * sample is O(1) with no table of n probabilities, even for n in the millions.
+ */
+public class ZipfSampler {
+
+    private final int n;
+    private final double exponent;
+    private final double hIntegralX1;
+    private final double hIntegralN;
+    private final double threshold;
+
+    /**
+     * @param n The number of ranks (must be >= 1).
+     * @param exponent The skew "s" (> 0; about 1 is typical for popularity).
+     */
+    public ZipfSampler(int n, double exponent) {
+        if (n < 1 || exponent <= 0) {
+            throw new IllegalArgumentException("Zipf needs n >= 1 and exponent > 0");
+        }
+        this.n = n;
+        this.exponent = exponent;
+        this.hIntegralX1 = hIntegral(1.5) - 1.0;
+        this.hIntegralN = hIntegral(n + 0.5);
+        this.threshold = 2.0 - hIntegralInverse(hIntegral(2.5) - h(2));
+    }
+
+    /**
+     * Draws one rank in 1..n (1 is the most likely).
+     */
+    public int sample(Random random) {
+        while (true) {
+            double u = hIntegralN + random.nextDouble() * (hIntegralX1 - hIntegralN);
+            double x = hIntegralInverse(u);
+            int k = (int) (x + 0.5);
+            if (k < 1) {
+                k = 1;
+            } else if (k > n) {
+                k = n;
+            }
+            if (k - x <= threshold || u >= hIntegral(k + 0.5) - h(k)) {
+                return k;
+            }
+        }
+    }
+
+    // --- The helper functions from the paper ---
+
+    private double hIntegral(double x) {
+        double logX = Math.log(x);
+        return helper2((1.0 - exponent) * logX) * logX;
+    }
+
+    private double h(double x) {
+        return Math.exp(-exponent * Math.log(x));
+    }
+
+    private double hIntegralInverse(double x) {
+        double t = x * (1.0 - exponent);
+        if (t < -1.0) {
+            t = -1.0; // Guard against rounding just below the domain
+        }
+        return Math.exp(helper1(t) * x);
+    }
+
+    /** log(1 + x) / x, accurate near 0. */
+    private static double helper1(double x) {
+        if (Math.abs(x) > 1e-8) {
+            return Math.log1p(x) / x;
+        }
+        return 1.0 - x * (0.5 - x * (1.0 / 3.0 - 0.25 * x));
+    }
+
+    /** (exp(x) - 1) / x, accurate near 0. */
+    private static double helper2(double x) {
+        if (Math.abs(x) > 1e-8) {
+            return Math.expm1(x) / x;
+        }
+        return 1.0 + x * 0.5 * (1.0 + x / 3.0 * (1.0 + 0.25 * x));
+    }
+}
@@ -0,0 +1,679 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ *
+ * @author mraah
+ */
+/**
+ * Runs a script of operations against an ECommerceSystem without the menus
+ * ("java Main --batch script.txt"). One operation per line; arguments are
+ * separated by spaces, and "double quotes" keep spaces inside one argument.
+ * Lines starting with # are comments. "$product", "$customer" and "$order"
+ * stand for the last ID this script created of that kind.
+ *
+ * The script is run as a pipeline: a reader thread reads and splits the
+ * lines in blocks while this thread executes them, and results go to a
+ * large output buffer (not one console write per line). At the end a
+ * summary shows the operations/sec and the latency of each operation type.
+ *
+ * Operations:
+ *   add-product "name" price stock      add-customer "name" email
+ *   remove-product id                   find-product id
+ *   search-name "name"                  search-prefix prefix [limit]
+ *   set-stock id n   set-price id p     set-name id "name"
+ *   place-order customerId productId... (one unit of each; sold-out ones are skipped)
+ *   cancel-order id   order-status id status   find-order id   customer-orders customerId
+ *   status-counts   orders-by-status status   take-oldest fromStatus toStatus
+ *   add-review productId customerId rating "comment"
+ *   edit-review productId customerId rating "comment"
+ *   remove-review productId customerId
+ *   top k [minReviews]   out-of-stock   low-stock threshold   inventory-value
+ *   revenue   average-rating
+ *   customer-reviews customerId   common-reviews customerId1 customerId2
+ *   orders-between yyyy-MM-dd yyyy-MM-dd   save snapshotFile
+ */
+public class BatchRunner {
+
+    // Lines are handed from the reader thread to the executor in blocks
+    private static final int BLOCK_SIZE = 256;
+    private static final int QUEUE_BLOCKS = 16;
+    private static final Command[] END = new Command[0];
+
+    /**
+     * One script line, already split into its parts.
+     */
+    private static final class Command {
+        final int line;
+        final String[] parts;   // parts[0] is the operation name
+        final String error;     // Set if the line could not be split
+
+        Command(int line, String[] parts, String error) {
+            this.line = line;
+            this.parts = parts;
+            this.error = error;
+        }
+    }
+
+    /**
+     * The latencies of one operation type, kept in a log-scale histogram
+     * (each power of 2 is split into 8 buckets, so percentiles are within 12.5%).
+     */
+    private static final class LatencyStats {
+        private static final int SUB_BITS = 3;
+        private final long[] buckets = new long[64 << SUB_BITS];
+        long count;
+        long totalNanos;
+        long maxNanos;
+
+        void record(long nanos) {
+            count++;
+            totalNanos += nanos;
+            maxNanos = Math.max(maxNanos, nanos);
+            buckets[bucket(nanos)]++;
+        }
+
+        /**
+         * Returns (the upper edge of the bucket of) the given percentile, in nanoseconds.
+         */
+        long percentile(double p) {
+            long rank = (long) Math.ceil(count * p / 100.0);
+            long seen = 0;
+            for (int b = 0; b < buckets.length; b++) {
+                seen += buckets[b];
+                if (seen >= rank && seen > 0) {
+                    return Math.min(upperEdge(b), maxNanos);
+                }
+            }
+            return maxNanos;
+        }
+
+        private static int bucket(long v) {
+            if (v < (1 << SUB_BITS)) {
+                return (int) v; // Small values get one bucket each
+            }
+            int exp = 63 - Long.numberOfLeadingZeros(v);
+            int sub = (int) (v >>> (exp - SUB_BITS)) & ((1 << SUB_BITS) - 1);
+            return ((exp - SUB_BITS + 1) << SUB_BITS) + sub;
+        }
+
+        private static long upperEdge(int b) {
+            if (b < (1 << SUB_BITS)) {
+                return b;
+            }
+            int exp = (b >>> SUB_BITS) + SUB_BITS - 1;
+            long sub = b & ((1 << SUB_BITS) - 1);
+            return ((1L << SUB_BITS) + sub + 1 << (exp - SUB_BITS)) - 1;
+        }
+    }
+
+    private final ECommerceSystem system;
+    private final PrintWriter out;
+    private final boolean quiet;
+    private final SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd", Locale.ROOT);
+
+    // 1. The last IDs this script created (for $product, $customer, $order)
+    private String lastProductId;
+    private String lastCustomerId;
+    private String lastOrderId;
+
+    // 2. Statistics, per operation name (sorted for the summary)
+    private final Map<String, LatencyStats> stats = new TreeMap<>();
+    private long operations;
+    private long errors;
+
+    /**
+     * Creates a runner.
+     * @param system The system to run the operations against.
+     * @param output Where the result lines go (buffered; flushed by run()).
+     * @param quiet true to print only errors and the summary.
+     */
+    public BatchRunner(ECommerceSystem system, OutputStream output, boolean quiet) {
+        this.system = system;
+        this.out = new PrintWriter(new BufferedWriter(
+            new OutputStreamWriter(output, StandardCharsets.UTF_8), 1 << 16), false);
+        this.quiet = quiet;
+    }
+
+    /**
+     * Runs a script file ("-" reads the script from standard input) and
+     * prints the summary.
+     * @return The number of lines that failed.
+     * @throws IOException if the script cannot be read.
+     */
+    public long run(String scriptFile) throws IOException {
+        Reader source = "-".equals(scriptFile)
+            ? new InputStreamReader(System.in, StandardCharsets.UTF_8)
+            : Files.newBufferedReader(Paths.get(scriptFile), StandardCharsets.UTF_8);
+
+        // 1. Start the reader thread (it fills the queue while we execute)
+        BlockingQueue<Command[]> queue = new ArrayBlockingQueue<>(QUEUE_BLOCKS);
+        IOException[] readFailure = new IOException[1];
+        Thread reader = new Thread(() -> readScript(source, queue, readFailure), "batch-reader");
+        reader.setDaemon(true);
+        reader.start();
+
+        // 2. Execute the blocks in order, timing every operation
+        // (journaled changes do not wait for the disk one by one: we sync once at the end)
+        system.setJournalSyncDeferred(true);
+        long started = System.nanoTime();
+        try {
+            while (true) {
+                Command[] block = queue.take();
+                if (block == END) {
+                    break;
+                }
+                for (Command c : block) {
+                    execute(c);
+                }
+            }
+            system.syncJournal();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while running the script", e);
+        } finally {
+            system.setJournalSyncDeferred(false);
+        }
+        long elapsed = System.nanoTime() - started;
+        if (readFailure[0] != null) {
+            throw readFailure[0];
+        }
+
+        // 3. Results first, then the summary
+        printSummary(elapsed);
+        out.flush();
+        return errors;
+    }
+
+    // =================================================================
+    // --- The pipeline stages ---
+    // =================================================================
+
+    /**
+     * The reader thread: reads and splits lines, and hands them over in blocks.
+     */
+    private static void readScript(Reader source, BlockingQueue<Command[]> queue, IOException[] failure) {
+        try (BufferedReader in = new BufferedReader(source, 1 << 16)) {
+            List<Command> block = new ArrayList<>(BLOCK_SIZE);
+            int lineNumber = 0;
+            String line;
+            while ((line = in.readLine()) != null) {
+                lineNumber++;
+                String trimmed = line.trim();
+                if (trimmed.isEmpty() || trimmed.startsWith("#")) {
+                    continue;
+                }
+                try {
+                    block.add(new Command(lineNumber, split(trimmed), null));
+                } catch (IllegalArgumentException e) {
+                    block.add(new Command(lineNumber, null, e.getMessage()));
+                }
+                if (block.size() == BLOCK_SIZE) {
+                    queue.put(block.toArray(new Command[0]));
+                    block.clear();
+                }
+            }
+            if (!block.isEmpty()) {
+                queue.put(block.toArray(new Command[0]));
+            }
+        } catch (IOException e) {
+            failure[0] = e;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            try {
+                queue.put(END);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Splits a line at spaces; "double quotes" keep spaces (and "" is one quote).
+     */
+    static String[] split(String line) {
+        List<String> parts = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean inQuotes = false;
+        boolean hasPart = false;
+        for (int i = 0; i < line.length(); i++) {
+            char ch = line.charAt(i);
+            if (inQuotes) {
+                if (ch == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    current.append('"');
+                    i++;
+                } else if (ch == '"') {
+                    inQuotes = false;
+                } else {
+                    current.append(ch);
+                }
+            } else if (ch == '"') {
+                inQuotes = true;
+                hasPart = true;
+            } else if (Character.isWhitespace(ch)) {
+                if (hasPart) {
+                    parts.add(current.toString());
+                    current.setLength(0);
+                    hasPart = false;
+                }
+            } else {
+                current.append(ch);
+                hasPart = true;
+            }
+        }
+        if (inQuotes) {
+            throw new IllegalArgumentException("missing closing quote");
+        }
+        if (hasPart) {
+            parts.add(current.toString());
+        }
+        return parts.toArray(new String[0]);
+    }
+
+    /**
+     * Executes one command and records how long it took (under its operation name).
+     */
+    private void execute(Command c) {
+        operations++;
+        if (c.error != null) {
+            fail(c, c.error);
+            return;
+        }
+        String name = c.parts[0];
+        long start = System.nanoTime();
+        String result;
+        try {
+            result = apply(name, c.parts);
+        } catch (NumberFormatException e) {
+            result = null;
+            fail(c, "not a number (" + e.getMessage() + ")");
+        } catch (IllegalArgumentException | IllegalStateException | IOException e) {
+            result = null;
+            fail(c, e.getMessage());
+        }
+        long nanos = System.nanoTime() - start;
+        if (result == null) {
+            return; // Failed lines are counted, but not timed
+        }
+        LatencyStats s = stats.get(name);
+        if (s == null) {
+            s = new LatencyStats();
+            stats.put(name, s);
+        }
+        s.record(nanos);
+        if (!quiet) {
+            out.println("OK " + name + (result.isEmpty() ? "" : " " + result));
+        }
+    }
+
+    private void fail(Command c, String message) {
+        errors++;
+        out.println("ERROR line " + c.line + ": " + message);
+    }
+
+    // =================================================================
+    // --- The operations ---
+    // =================================================================
+
+    /**
+     * Runs one operation.
+     * @return The text after "OK name" (may be empty).
+     * @throws IllegalArgumentException if the operation or its arguments are wrong.
+     */
+    private String apply(String name, String[] a) throws IOException {
+        switch (name) {
+            // --- Products ---
+            case "add-product": {
+                need(a, 3);
+                String id = system.getNewProductId();
+                if (!system.addProduct(new Product(id, a[1], positive(a[2]), nonNegative(a[3])))) {
+                    throw new IllegalArgumentException("product ID " + id + " is already taken");
+                }
+                lastProductId = id;
+                return id;
+            }
+            case "remove-product": {
+                need(a, 1);
+                Product p = product(a[1]);
+                system.removeProduct(p.getProductId());
+                return p.getProductId();
+            }
+            case "find-product": {
+                need(a, 1);
+                return describe(product(a[1]));
+            }
+            case "search-name": {
+                need(a, 1);
+                return ids(system.findAllProductsByName(a[1]));
+            }
+            case "search-prefix": {
+                needBetween(a, 1, 2);
+                int limit = a.length > 2 ? Integer.parseInt(a[2]) : 10;
+                return ids(system.searchProductsByPrefix(a[1], limit));
+            }
+            case "set-stock": {
+                need(a, 2);
+                system.updateStock(product(a[1]).getProductId(), nonNegative(a[2]));
+                return a[1];
+            }
+            case "set-price": {
+                need(a, 2);
+                system.updatePrice(product(a[1]).getProductId(), positive(a[2]));
+                return a[1];
+            }
+            case "set-name": {
+                need(a, 2);
+                system.updateName(product(a[1]).getProductId(), a[2]);
+                return a[1];
+            }
+
+            // --- Customers and orders ---
+            case "add-customer": {
+                need(a, 2);
+                String id = system.getNewCustomerId();
+                if (!system.registerNewCustomer(new Customer(id, a[1], a[2]))) {
+                    throw new IllegalArgumentException("customer ID " + id + " is already taken");
+                }
+                lastCustomerId = id;
+                return id;
+            }
+            case "place-order":
+                return placeOrder(a);
+            case "cancel-order": {
+                need(a, 1);
+                if (!system.cancelOrder(resolve(a[1]))) {
+                    throw new IllegalArgumentException("no order with ID " + a[1]);
+                }
+                return resolve(a[1]);
+            }
+            case "order-status": {
+                need(a, 2);
+                if (!system.updateOrderStatus(resolve(a[1]), a[2])) {
+                    throw new IllegalArgumentException("no order with ID " + a[1]);
+                }
+                return resolve(a[1]) + " " + a[2];
+            }
+            case "find-order": {
+                need(a, 1);
+                Order o = system.findOrderById(resolve(a[1]));
+                if (o == null) {
+                    throw new IllegalArgumentException("no order with ID " + a[1]);
+                }
+                return o.getOrderId() + " customer=" + o.getCustomerId() + " status=" + o.getStatus()
+                    + " items=" + o.getItemCount() + " total=" + o.getTotalPrice();
+            }
+            case "status-counts": {
+                StringBuilder sb = new StringBuilder();
+                for (OrderStatus st : OrderStatus.values()) {
+                    sb.append(sb.length() == 0 ? "" : " ").append(st.getLabel()).append('=')
+                        .append(system.getOrderCount(st));
+                }
+                return sb.toString();
+            }
+            case "orders-by-status": {
+                need(a, 1);
+                MyLinkedList<Order> orders = system.getOrdersByStatus(OrderStatus.parse(a[1]));
+                StringBuilder sb = new StringBuilder().append(orders.size()).append(':');
+                for (Order o : orders) {
+                    sb.append(' ').append(o.getOrderId());
+                }
+                return sb.toString();
+            }
+            case "take-oldest": {
+                need(a, 2);
+                Order o = system.takeOldestOrder(OrderStatus.parse(a[1]), OrderStatus.parse(a[2]));
+                return o == null ? "none" : o.getOrderId() + " " + o.getStatus();
+            }
+            case "customer-orders": {
+                need(a, 1);
+                MyLinkedList<Order> orders = system.getCustomerOrders(resolve(a[1]));
+                if (orders == null) {
+                    throw new IllegalArgumentException("no customer with ID " + a[1]);
+                }
+                StringBuilder sb = new StringBuilder().append(orders.size()).append(':');
+                for (Order o : orders) {
+                    sb.append(' ').append(o.getOrderId());
+                }
+                return sb.toString();
+            }
+
+            // --- Reviews ---
+            case "add-review": {
+                need(a, 4);
+                String productId = product(a[1]).getProductId();
+                system.addReview(productId, new Review(customer(a[2]), rating(a[3]), a[4]));
+                return productId;
+            }
+            case "edit-review": {
+                need(a, 4);
+                if (!system.editReview(resolve(a[1]), resolve(a[2]), a[4], rating(a[3]))) {
+                    throw new IllegalArgumentException("no review by " + a[2] + " on product " + a[1]);
+                }
+                return resolve(a[1]);
+            }
+            case "remove-review": {
+                need(a, 2);
+                if (!system.removeReview(resolve(a[1]), resolve(a[2]))) {
+                    throw new IllegalArgumentException("no review by " + a[2] + " on product " + a[1]);
+                }
+                return resolve(a[1]);
+            }
+
+            // --- Reports and queries ---
+            case "top": {
+                needBetween(a, 1, 2);
+                int minReviews = a.length > 2 ? Integer.parseInt(a[2]) : 1;
+                return ids(system.getTopProducts(Integer.parseInt(a[1]), minReviews));
+            }
+            case "out-of-stock":
+                need(a, 0);
+                return ids(system.getOutOfStockProducts());
+            case "low-stock":
+                need(a, 1);
+                return ids(system.getLowStockProducts(Integer.parseInt(a[1])));
+            case "inventory-value":
+                need(a, 0);
+                return String.format(Locale.ROOT, "%.2f", system.getTotalInventoryValue());
+            case "revenue":
+                need(a, 0);
+                return String.format(Locale.ROOT, "%.2f", system.getTotalRevenue());
+            case "average-rating":
+                need(a, 0);
+                return String.format(Locale.ROOT, "%.2f", system.getAverageCatalogRating());
+            case "customer-reviews": {
+                need(a, 1);
+                MyLinkedList<Review> reviews = system.extractCustomerReviews(customer(a[1]));
+                StringBuilder sb = new StringBuilder().append(reviews.size()).append(':');
+                for (Review r : reviews) {
+                    sb.append(' ').append(r.getProduct() == null ? "?" : r.getProduct().getProductId());
+                }
+                return sb.toString();
+            }
+            case "common-reviews":
+                need(a, 2);
+                return ids(system.getCommonReviewedProducts(customer(a[1]), customer(a[2])));
+            case "orders-between": {
+                need(a, 2);
+                MyLinkedList<Order> orders = system.getOrdersBetweenDates(date(a[1]), date(a[2]));
+                StringBuilder sb = new StringBuilder().append(orders.size()).append(':');
+                for (Order o : orders) {
+                    sb.append(' ').append(o.getOrderId());
+                }
+                return sb.toString();
+            }
+            case "save":
+                need(a, 1);
+                system.checkpoint(a[1]); // Also empties the journal, if there is one
+                return a[1];
+            default:
+                throw new IllegalArgumentException("unknown operation '" + name + "'");
+        }
+    }
+
+    /**
+     * place-order customerId productId...: takes one unit of each product
+     * from the stock (sold-out products are skipped) and places the order.
+     */
+    private String placeOrder(String[] a) {
+        if (a.length < 3) {
+            throw new IllegalArgumentException("place-order needs a customer ID and at least one product ID");
+        }
+        String customerId = customer(a[1]);
+        MyLinkedList<Product> items = new MyLinkedList<>();
+        int soldOut = 0;
+        for (int i = 2; i < a.length; i++) {
+            Product p = product(a[i]);
+            if (system.adjustStock(p.getProductId(), -1) < 0) {
+                soldOut++;
+            } else {
+                items.add(p);
+            }
+        }
+        if (items.isEmpty()) {
+            throw new IllegalArgumentException("every product is out of stock (no order placed)");
+        }
+        Order order = new Order(system.getNewOrderId(), customerId, new Date());
+        for (Product p : items) {
+            order.addProductToOrder(p);
+        }
+        order.markStockTaken(); // So canceling it puts the units back
+        if (!system.placeNewOrder(customerId, order)) {
+            for (Product p : items) {
+                system.adjustStock(p.getProductId(), +1); // Give the units back
+            }
+            throw new IllegalArgumentException("order ID " + order.getOrderId() + " is already taken");
+        }
+        lastOrderId = order.getOrderId();
+        return order.getOrderId() + " items=" + items.size() + " total=" + order.getTotalPrice()
+            + (soldOut > 0 ? " skipped(out of stock)=" + soldOut : "");
+    }
+
+    // =================================================================
+    // --- Small helpers ---
+    // =================================================================
+
+    private void printSummary(long elapsedNanos) {
+        double seconds = elapsedNanos / 1e9;
+        out.println();
+        out.println("--- Batch Summary ---");
+        out.printf(Locale.ROOT, "Operations: %d (%d failed) in %.3f s = %.0f ops/sec%n",
+            operations, errors, seconds, seconds > 0 ? operations / seconds : 0.0);
+        out.printf(Locale.ROOT, "%-18s %10s %10s %10s %10s %10s%n", "operation", "count", "mean(us)", "p50(us)", "p99(us)", "max(us)");
+        for (Map.Entry<String, LatencyStats> e : stats.entrySet()) {
+            LatencyStats s = e.getValue();
+            out.printf(Locale.ROOT, "%-18s %10d %10.1f %10.1f %10.1f %10.1f%n", e.getKey(), s.count,
+                s.totalNanos / 1e3 / s.count, s.percentile(50) / 1e3, s.percentile(99) / 1e3, s.maxNanos / 1e3);
+        }
+        out.println("Query cache: " + system.getQueryCache());
+    }
+
+    /**
+     * Replaces $product, $customer and $order with the last ID created.
+     */
+    private String resolve(String arg) {
+        String id;
+        switch (arg) {
+            case "$product": id = lastProductId; break;
+            case "$customer": id = lastCustomerId; break;
+            case "$order": id = lastOrderId; break;
+            default: return arg;
+        }
+        if (id == null) {
+            throw new IllegalArgumentException(arg + " is used before anything was created");
+        }
+        return id;
+    }
+
+    private Product product(String arg) {
+        Product p = system.findProductById(resolve(arg));
+        if (p == null) {
+            throw new IllegalArgumentException("no product with ID " + arg);
+        }
+        return p;
+    }
+
+    private String customer(String arg) {
+        String id = resolve(arg);
+        if (system.findCustomerById(id) == null) {
+            throw new IllegalArgumentException("no customer with ID " + arg);
+        }
+        return id;
+    }
+
+    private Date date(String arg) {
+        try {
+            return dateFormat.parse(arg);
+        } catch (ParseException e) {
+            throw new IllegalArgumentException("not a yyyy-MM-dd date: " + arg);
+        }
+    }
+
+    private static double positive(String arg) {
+        double v = Double.parseDouble(arg);
+        if (!(v > 0)) {
+            throw new IllegalArgumentException("price must be greater than 0: " + arg);
+        }
+        return v;
+    }
+
+    private static int nonNegative(String arg) {
+        int v = Integer.parseInt(arg);
+        if (v < 0) {
+            throw new IllegalArgumentException("stock cannot be negative: " + arg);
+        }
+        return v;
+    }
+
+    private static int rating(String arg) {
+        int v = Integer.parseInt(arg);
+        if (v < 1 || v > 5) {
+            throw new IllegalArgumentException("rating must be 1 to 5: " + arg);
+        }
+        return v;
+    }
+
+    private static void need(String[] a, int args) {
+        needBetween(a, args, args);
+    }
+
+    private static void needBetween(String[] a, int min, int max) {
+        int given = a.length - 1;
+        if (given < min || given > max) {
+            throw new IllegalArgumentException(a[0] + " takes " + (min == max ? "" + min : min + " to " + max)
+                + " argument(s), got " + given);
+        }
+    }
+
+    private static String ids(MyLinkedList<Product> products) {
+        StringBuilder sb = new StringBuilder().append(products.size()).append(':');
+        for (Product p : products) {
+            sb.append(' ').append(p.getProductId());
+        }
+        return sb.toString();
+    }
+
+    private static String describe(Product p) {
+        return p.getProductId() + " \"" + p.getName() + "\" price=" + p.getPrice() + " stock=" + p.getStock()
+            + " rating=" + String.format(Locale.ROOT, "%.2f", p.getAverageRating()) + " reviews=" + p.getReviews().size();
+    }
+}
@@ -0,0 +1,471 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.Date;
+
+/**
+ *
+ * @author mraah
+ */
+/**
+ * A fast, streaming CSV reader that works directly on bytes.
+ * It reads the file through a FileChannel in large blocks and parses one
+ * row at a time into a reusable buffer, so no String or String[] is
+ * created per row: callers pull only the fields they need, as a String,
+ * an int, a double or a Date.
+ *
+ * Quoting follows RFC 4180: a field may be wrapped in double quotes, and
+ * then it may contain commas, line breaks and "" (an escaped quote).
+ * Spaces around unquoted fields are trimmed (like String.trim() in the
+ * old loader), and blank lines are skipped.
+ */
+public class CsvReader implements Closeable {
+
+    private static final int BLOCK_SIZE = 1 << 16;
+
+    // 1. The file, and the block of raw bytes we are currently reading from
+    private final FileChannel channel;
+    private final byte[] block = new byte[BLOCK_SIZE];
+    private final ByteBuffer blockBuffer = ByteBuffer.wrap(block);
+    private int pos;
+    private int limit;
+
+    // 2. The current row: the (unquoted) bytes of all its fields, back to back
+    private byte[] row = new byte[256];
+    private int rowLength;
+    private int[] fieldStart = new int[16];
+    private int[] fieldEnd = new int[16];
+    private int fieldCount;
+
+    // 3. Statistics
+    private long rowCount;
+    private long bytesRead;
+
+    // 4. The byte range of the file this reader covers (see the range constructor)
+    private final long startOffset;
+    private final long endOffset;
+
+    // Dates repeat a lot (many orders per day), so remember the last one
+    private final ZoneId zone = ZoneId.systemDefault();
+    private int lastYear = -1, lastMonth = -1, lastDay = -1;
+    private long lastDateMillis;
+
+    /**
+     * Opens a CSV file for reading.
+     * @param fileName The path of the file.
+     * @throws IOException if the file cannot be opened.
+     */
+    public CsvReader(String fileName) throws IOException {
+        this(Paths.get(fileName));
+    }
+
+    /**
+     * Opens a CSV file for reading.
+     * @param path The path of the file.
+     * @throws IOException if the file cannot be opened.
+     */
+    public CsvReader(Path path) throws IOException {
+        this(path, 0, Long.MAX_VALUE);
+    }
+
+    /**
+     * Opens one byte range of a CSV file, so several readers can parse
+     * chunks of the same file in parallel. "start" must be the beginning
+     * of a row; the reader returns every row that *starts* before "end"
+     * (the last one may run past it).
+     * Note: chunk boundaries come from findRowBoundaries, which assumes
+     * that quoted fields do not contain line breaks.
+     * @param path The path of the file.
+     * @param start The offset of the first row to read.
+     * @param end The offset at which no new row is started.
+     * @throws IOException if the file cannot be opened.
+     */
+    public CsvReader(Path path, long start, long end) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        this.channel.position(start);
+        this.startOffset = start;
+        this.endOffset = end;
+    }
+
+    /**
+     * Splits a file into about "chunks" byte ranges that each start at the
+     * beginning of a line.
+     * (Time Complexity: O(chunks) small reads)
+     * @return The boundaries: range i is [result[i], result[i + 1]).
+     * @throws IOException if the file cannot be read.
+     */
+    public static long[] findRowBoundaries(Path path, int chunks) throws IOException {
+        try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = ch.size();
+            long[] bounds = new long[chunks + 1];
+            int count = 0;
+            bounds[count++] = 0;
+            ByteBuffer probe = ByteBuffer.allocate(4096);
+            for (int k = 1; k < chunks; k++) {
+                long p = Math.max(size * k / chunks, bounds[count - 1]);
+                // Move forward to just after the next '\n'
+                long boundary = -1;
+                while (boundary < 0 && p < size) {
+                    probe.clear();
+                    int n = ch.read(probe, p);
+                    if (n <= 0) {
+                        break;
+                    }
+                    for (int i = 0; i < n; i++) {
+                        if (probe.get(i) == '\n') {
+                            boundary = p + i + 1;
+                            break;
+                        }
+                    }
+                    p += n;
+                }
+                if (boundary < 0 || boundary >= size) {
+                    break; // No more line breaks: the last chunk runs to the end
+                }
+                if (boundary > bounds[count - 1]) {
+                    bounds[count++] = boundary;
+                }
+            }
+            bounds[count++] = size;
+            return Arrays.copyOf(bounds, count);
+        }
+    }
+
+    /**
+     * Reads the next (non-blank) row.
+     * (Time Complexity: O(length of the row))
+     * @return true if a row was read, false at the end of the file.
+     * @throws IOException if reading fails.
+     */
+    public boolean nextRow() throws IOException {
+        while (true) {
+            rowLength = 0;
+            fieldCount = 0;
+            if (position() >= endOffset) {
+                return false; // The next row belongs to the following chunk
+            }
+            int b = read();
+            if (b < 0) {
+                return false; // End of file
+            }
+            if (b == '\n' || b == '\r') {
+                skipLineFeedAfter(b);
+                continue; // Blank line
+            }
+            parseRow(b);
+            rowCount++;
+            return true;
+        }
+    }
+
+    /**
+     * Returns the number of fields in the current row.
+     */
+    public int getFieldCount() {
+        return fieldCount;
+    }
+
+    /**
+     * Returns a field as a String (decoded as UTF-8).
+     * @param i The field index (starts from 0).
+     */
+    public String getString(int i) {
+        checkField(i);
+        return new String(row, fieldStart[i], fieldEnd[i] - fieldStart[i], StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Parses a field as an int, straight from the bytes.
+     * @param i The field index (starts from 0).
+     * @throws NumberFormatException if the field is not a whole number.
+     */
+    public int getInt(int i) {
+        checkField(i);
+        int p = fieldStart[i];
+        int end = fieldEnd[i];
+        boolean negative = false;
+        if (p < end && (row[p] == '-' || row[p] == '+')) {
+            negative = row[p] == '-';
+            p++;
+        }
+        if (p == end || end - p > 10) {
+            throw new NumberFormatException("Not an int: \"" + getString(i) + "\"");
+        }
+        long value = 0;
+        for (; p < end; p++) {
+            int d = row[p] - '0';
+            if (d < 0 || d > 9) {
+                throw new NumberFormatException("Not an int: \"" + getString(i) + "\"");
+            }
+            value = value * 10 + d;
+        }
+        value = negative ? -value : value;
+        if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+            throw new NumberFormatException("Out of int range: \"" + getString(i) + "\"");
+        }
+        return (int) value;
+    }
+
+    /**
+     * Parses a field as a double.
+     * Plain decimals like "1499.99" are parsed straight from the bytes; the
+     * result is exactly what Double.parseDouble would return. Anything else
+     * (exponents, very long numbers) falls back to Double.parseDouble.
+     * @param i The field index (starts from 0).
+     * @throws NumberFormatException if the field is not a number.
+     */
+    public double getDouble(int i) {
+        checkField(i);
+        int p = fieldStart[i];
+        int end = fieldEnd[i];
+        boolean negative = false;
+        if (p < end && (row[p] == '-' || row[p] == '+')) {
+            negative = row[p] == '-';
+            p++;
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int fractionDigits = 0;
+        boolean seenPoint = false;
+        for (; p < end; p++) {
+            byte c = row[p];
+            if (c >= '0' && c <= '9') {
+                mantissa = mantissa * 10 + (c - '0');
+                digits++;
+                if (seenPoint) {
+                    fractionDigits++;
+                }
+            } else if (c == '.' && !seenPoint) {
+                seenPoint = true;
+            } else {
+                digits = -1; // Something we do not handle here
+                break;
+            }
+        }
+        // mantissa < 2^53 and 10^fractionDigits <= 10^22 are both exact
+        // doubles, so one division gives the correctly rounded result.
+        if (digits > 0 && digits <= 15 && fractionDigits <= 22) {
+            double value = (double) mantissa / POWERS_OF_TEN[fractionDigits];
+            return negative ? -value : value;
+        }
+        return Double.parseDouble(getString(i).trim());
+    }
+
+    // Longer date parts are rejected (9 digits always fit in an int)
+    private static final int MAX_DATE_DIGITS = 9;
+
+    /**
+     * Parses a "yyyy-MM-dd" field as a Date at local midnight (the same
+     * result as SimpleDateFormat("yyyy-MM-dd"), including its leniency:
+     * out-of-range months/days roll over into the next month/year).
+     * @param i The field index (starts from 0).
+     * @throws IllegalArgumentException if the field is not a date, or is
+     *         out of range (a part longer than 9 digits, or a year Date cannot hold).
+     */
+    public Date getDate(int i) {
+        checkField(i);
+        int p = fieldStart[i];
+        int end = fieldEnd[i];
+        int[] parts = new int[3];
+        int part = 0;
+        int digits = 0;
+        for (; p < end; p++) {
+            byte c = row[p];
+            if (c >= '0' && c <= '9' && digits < MAX_DATE_DIGITS) {
+                parts[part] = parts[part] * 10 + (c - '0');
+                digits++;
+            } else if (c == '-' && digits > 0 && part < 2) {
+                part++;
+                digits = 0;
+            } else {
+                throw new IllegalArgumentException("Not a yyyy-MM-dd date: \"" + getString(i) + "\"");
+            }
+        }
+        if (part != 2 || digits == 0) {
+            throw new IllegalArgumentException("Not a yyyy-MM-dd date: \"" + getString(i) + "\"");
+        }
+        int year = parts[0], month = parts[1], day = parts[2];
+        if (year != lastYear || month != lastMonth || day != lastDay) {
+            try {
+                LocalDate date = LocalDate.of(year, 1, 1).plusMonths(month - 1L).plusDays(day - 1L);
+                lastDateMillis = date.atStartOfDay(zone).toInstant().toEpochMilli();
+            } catch (DateTimeException | ArithmeticException e) {
+                // The year is out of range (so the row is skipped like any other bad field)
+                throw new IllegalArgumentException("Date out of range: \"" + getString(i) + "\"", e);
+            }
+            lastYear = year;
+            lastMonth = month;
+            lastDay = day;
+        }
+        return new Date(lastDateMillis);
+    }
+
+    /**
+     * Returns the number of rows read so far (including a header row).
+     */
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * Returns the number of bytes read from the file so far.
+     */
+    public long getBytesRead() {
+        return bytesRead;
+    }
+
+    /**
+     * The file offset of the next byte to be parsed.
+     */
+    private long position() {
+        return startOffset + bytesRead - (limit - pos);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    // --- Internal helpers ---
+
+    private static final double[] POWERS_OF_TEN = new double[23];
+    static {
+        POWERS_OF_TEN[0] = 1.0;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+
+    /**
+     * Parses one row, whose first byte "b" was already read.
+     */
+    private void parseRow(int b) throws IOException {
+        while (true) {
+            // 1. Start a new field (skip leading spaces)
+            while (b == ' ' || b == '\t') {
+                b = read();
+            }
+            int start = rowLength;
+            boolean quoted = false;
+
+            if (b == '"') {
+                // 2a. Quoted field: read until the closing quote
+                quoted = true;
+                while (true) {
+                    b = read();
+                    if (b < 0) {
+                        break; // Unterminated quote: take what we have
+                    }
+                    if (b == '"') {
+                        b = read();
+                        if (b != '"') {
+                            break; // Closing quote ("" is an escaped quote)
+                        }
+                    }
+                    append(b);
+                }
+                // Ignore anything between the closing quote and the delimiter
+                while (b >= 0 && b != ',' && b != '\n' && b != '\r') {
+                    b = read();
+                }
+            } else {
+                // 2b. Unquoted field: read until a comma or the end of the line
+                while (b >= 0 && b != ',' && b != '\n' && b != '\r') {
+                    append(b);
+                    b = read();
+                }
+            }
+
+            // 3. Record the field (trim trailing spaces of unquoted fields)
+            int end = rowLength;
+            if (!quoted) {
+                while (end > start && (row[end - 1] == ' ' || row[end - 1] == '\t')) {
+                    end--;
+                }
+            }
+            addField(start, end);
+
+            // 4. A comma starts another field; anything else ends the row
+            if (b == ',') {
+                b = read();
+                if (b < 0 || b == '\n' || b == '\r') {
+                    addField(rowLength, rowLength); // Trailing empty field
+                    skipLineFeedAfter(b);
+                    return;
+                }
+                continue;
+            }
+            skipLineFeedAfter(b);
+            return;
+        }
+    }
+
+    /** After a '\r', also consume a following '\n' (Windows line ends). */
+    private void skipLineFeedAfter(int b) throws IOException {
+        if (b == '\r') {
+            if (pos >= limit && !fill()) {
+                return;
+            }
+            if (block[pos] == '\n') {
+                pos++;
+            }
+        }
+    }
+
+    private void addField(int start, int end) {
+        if (fieldCount == fieldStart.length) {
+            fieldStart = Arrays.copyOf(fieldStart, fieldCount * 2);
+            fieldEnd = Arrays.copyOf(fieldEnd, fieldCount * 2);
+        }
+        fieldStart[fieldCount] = start;
+        fieldEnd[fieldCount] = end;
+        fieldCount++;
+    }
+
+    private void append(int b) {
+        if (rowLength == row.length) {
+            row = Arrays.copyOf(row, row.length * 2);
+        }
+        row[rowLength++] = (byte) b;
+    }
+
+    private int read() throws IOException {
+        if (pos >= limit && !fill()) {
+            return -1;
+        }
+        return block[pos++] & 0xFF; // Bytes >= 0x80 (UTF-8) must not look like EOF
+    }
+
+    private boolean fill() throws IOException {
+        blockBuffer.clear();
+        int n;
+        do {
+            n = channel.read(blockBuffer);
+        } while (n == 0);
+        if (n < 0) {
+            limit = 0;
+            pos = 0;
+            return false;
+        }
+        bytesRead += n;
+        pos = 0;
+        limit = n;
+        return true;
+    }
+
+    private void checkField(int i) {
+        if (i < 0 || i >= fieldCount) {
+            throw new IllegalArgumentException("Row " + rowCount + " has no field " + i
+                + " (it has " + fieldCount + ")");
+        }
+    }
+}
@@ -0,0 +1,84 @@
+
+
+/**
+ *
+ * @author mraah
+ */
+/**
+ * An index from a customer ID to every review that customer has written.
+ * Each Review knows its Product, so "what did this customer review?"
+ * costs O(reviews by that customer) instead of a sweep over every
+ * product and every review in the catalog.
+ */
+public class CustomerReviewIndex {
+
+    // customerId -> that customer's reviews (in the order they were added)
+    private MyHashMap<String, MyLinkedList<Review>> byCustomer;
+
+    /**
+     * Constructor to create a new, empty index.
+     */
+    public CustomerReviewIndex() {
+        this.byCustomer = new MyHashMap<>();
+    }
+
+    /**
+     * Adds a review to its author's list.
+     * (Time Complexity: O(1) expected)
+     * @param review The review to add.
+     */
+    public void add(Review review) {
+        MyLinkedList<Review> list = byCustomer.get(review.getCustomerId());
+        if (list == null) {
+            list = new MyLinkedList<>();
+            byCustomer.put(review.getCustomerId(), list);
+        }
+        list.add(review);
+    }
+
+    /**
+     * Removes a review from its author's list.
+     * The list itself stays even when it becomes empty: a paging cursor
+     * parked on a removed review finds its place again by the review's
+     * number in that list (see MyLinkedList.copyAfter), and a new list
+     * would number its reviews from 0 again.
+     * (Time Complexity: O(reviews by that customer))
+     * @param review The review to remove.
+     */
+    public void remove(Review review) {
+        MyLinkedList<Review> list = byCustomer.get(review.getCustomerId());
+        if (list != null) {
+            list.removeIf(r -> r == review);
+        }
+    }
+
+    /**
+     * Returns the reviews written by a customer.
+     * The returned list is the index's own list, so callers must not change it.
+     * (Time Complexity: O(1) expected)
+     * @param customerId The author.
+     * @return The reviews (an empty list if there are none).
+     */
+    public MyLinkedList<Review> get(String customerId) {
+        MyLinkedList<Review> list = byCustomer.get(customerId);
+        return list != null ? list : new MyLinkedList<>();
+    }
+
+    /**
+     * Adds up to "limit" of a customer's reviews to "out", starting right
+     * after the node "after" (null to start from their first review).
+     * (Time Complexity: O(1) expected + O(limit), see MyLinkedList.copyAfter)
+     * @return The node of the last review added ("after" if none was).
+     */
+    public Node<Review> page(String customerId, Node<Review> after, int limit, MyLinkedList<Review> out) {
+        MyLinkedList<Review> list = byCustomer.get(customerId);
+        return list == null ? after : list.copyAfter(after, limit, out);
+    }
+
+    /**
+     * Removes every review from the index.
+     */
+    public void clear() {
+        byCustomer.clear();
+    }
+}
@@ -0,0 +1,51 @@
+
+
+/**
+ *
+ * @author mraah
+ */
+/**
+ * A single node of a MyDoublyLinkedList. add() and the insert methods
+ * return the node, so the caller can keep it as a "handle" and later
+ * remove the element or insert next to it in O(1), without searching.
+ * @param <T> The type of data this node will hold (e.g., Product).
+ */
+public class DNode<T> {
+
+    // 1. The actual data stored in this node.
+    T data;
+
+    // 2. The pointers to the previous and the next node in the chain.
+    DNode<T> prev;
+    DNode<T> next;
+
+    // 3. The list this node is in (null once it has been removed),
+    //    so a stale or foreign handle is detected instead of corrupting a list.
+    MyDoublyLinkedList<T> owner;
+
+    // 4. Its place in the order the list was built in (see MyDoublyLinkedList.nextAfter).
+    long seq;
+
+    /**
+     * Constructor to create a new node.
+     * @param data The data to be stored.
+     */
+    DNode(T data, MyDoublyLinkedList<T> owner) {
+        this.data = data;
+        this.owner = owner;
+    }
+
+    /**
+     * Returns the data stored in this node.
+     */
+    public T getData() {
+        return data;
+    }
+
+    /**
+     * Checks if this node is still in a list.
+     */
+    public boolean isLinked() {
+        return owner != null;
+    }
+}
@@ -1,376 +1,2116 @@
-// Imports needed for File I/O and Date parsing
-import java.io.File;
-import java.io.FileNotFoundException;
-import java.util.Scanner;
-import java.text.SimpleDateFormat;
-import java.text.ParseException;
+// Imports needed for File I/O and Dates
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.Date; 
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * The main class that manages the entire e-commerce system.
+ *
+ * It is safe to use from many threads at once (e.g., several sessions):
+ * - ID lookups go through lock-striped hash maps,
+ * - new IDs come from atomic counters,
+ * - the catalog, the customers and the orders each have a read-write
+ *   lock, so queries run in parallel, and e.g. placing an order does
+ *   not wait for someone writing a review.
+ * Every public method is atomic. Threads must change products and
+ * orders through the system (addReview, updateStock, updateOrderStatus,
+ * ...) rather than through Product/Order directly.
  */
 public class ECommerceSystem {
 
     // --- Master Lists ---
-    private MyLinkedList<Product> allProducts;
+    // (Products can be removed, so their list is doubly-linked: see productIndex)
+    private MyDoublyLinkedList<Product> allProducts;
     private MyLinkedList<Customer> allCustomers;
     private MyLinkedList<Order> allOrders;
 
+    // --- Primary-Key Indexes (ID -> object), kept next to the master lists ---
+    // They make findProductById/findCustomerById/findOrderById O(1) expected.
+    // The product index holds each product's node in allProducts (its "handle"),
+    // so removeProduct unlinks it in O(1) instead of walking the list.
+    private MyStripedHashMap<String, DNode<Product>> productIndex;
+    private MyStripedHashMap<String, Customer> customerIndex;
+    private MyStripedHashMap<String, Order> orderIndex;
+
+    // --- Locks (always taken in this order: catalog, customers, orders, inventory) ---
+    // catalog: the products, their reviews and the product indexes
+    // orders: the orders, the date index and the customers' order histories
+    // inventory: stock changes made with compare-and-set (reservations) hold its
+    //   read lock; snapshots hold its write lock, so they never see half of a
+    //   reservation and no stock record is journaled while the journal is cut
+    private final ReentrantReadWriteLock catalogLock = new ReentrantReadWriteLock();
+    private final ReentrantReadWriteLock customerLock = new ReentrantReadWriteLock();
+    private final ReentrantReadWriteLock orderLock = new ReentrantReadWriteLock();
+    private final ReentrantReadWriteLock inventoryLock = new ReentrantReadWriteLock();
+
+    // --- Secondary Indexes (kept up to date through ProductListener) ---
+    private ProductLeaderboard leaderboard;
+    private OrderDateIndex orderDateIndex;
+    private OrderStatusIndex orderStatusIndex;
+    private CustomerReviewIndex customerReviewIndex;
+    private StockIndex stockIndex;
+    private ProductNameIndex nameIndex;
+
+    // --- Cached report results (see QueryCache) ---
+    private static final int QUERY_CACHE_SIZE = 256;
+    private final QueryCache queryCache = new QueryCache(QUERY_CACHE_SIZE);
+
+    // --- Parallel scans ---
+    // Scans over at least this many elements run on a parallel stream (the
+    // common ForkJoinPool); smaller ones stay sequential, where splitting
+    // the list and joining the results costs more than it saves.
+    // Run with -Decommerce.parallelThreshold=N to change it.
+    static final int PARALLEL_THRESHOLD = Integer.getInteger("ecommerce.parallelThreshold", 20_000);
+
+    // --- Optional columnar catalog (null when products keep their own fields) ---
+    private ProductStore productStore;
+    private IndexMaintainer indexMaintainer;
+
     // --- NEW: Auto-Increment Counter for Order IDs ---
     // We start from 501 (assuming CSV orders are below this)
-    private int orderCounter = 501;
-    private int productCounter = 151; 
-    private int customerCounter = 231;  
+    // (Atomic, so two threads never get the same ID)
+    private final AtomicInteger orderCounter = new AtomicInteger(501);
+    private final AtomicInteger productCounter = new AtomicInteger(151);
+    private final AtomicInteger customerCounter = new AtomicInteger(231);
+
+    // --- Optional write-ahead journal (null when changes are only kept in memory) ---
+    private volatile MutationJournal journal;
+    private volatile boolean journalSyncDeferred;
+    private String checkpointFile;
+    private long checkpointBytes;
+    // The last journal record contained in the loaded snapshot (0 if none)
+    private long journalSeq;
+
+    // Journal record types (never renumber them: old journals must still replay)
+    private static final int J_ADD_PRODUCT = 1;
+    private static final int J_REMOVE_PRODUCT = 2;
+    private static final int J_ADD_CUSTOMER = 3;
+    private static final int J_PLACE_ORDER = 4;
+    private static final int J_ORDER_STATUS = 5;
+    private static final int J_ADD_REVIEW = 6;
+    private static final int J_EDIT_REVIEW = 7;
+    private static final int J_REMOVE_REVIEW = 8;
+    private static final int J_SET_STOCK = 9;
+    private static final int J_SET_PRICE = 10;
+    private static final int J_SET_NAME = 11;
+    private static final int J_PLACE_ORDER_LINES = 12; // Replaces J_PLACE_ORDER (still replayed)
+    private static final int J_PLACE_ORDER_TAKEN = 13; // J_PLACE_ORDER_LINES for an order that took its stock
+
+    /**
+     * Constructor to initialize the system.
+     */
+    public ECommerceSystem() {
+        this(false);
+    }
+
+    /**
+     * Constructor to initialize the system.
+     * @param columnarCatalog true to keep product name/price/stock in a
+     *        columnar ProductStore (less memory per product, faster scans).
+     */
+    public ECommerceSystem(boolean columnarCatalog) {
+        this.allProducts = new MyDoublyLinkedList<>();
+        this.allCustomers = new MyLinkedList<>();
+        this.allOrders = new MyLinkedList<>();
+        this.productIndex = new MyStripedHashMap<>();
+        this.customerIndex = new MyStripedHashMap<>();
+        this.orderIndex = new MyStripedHashMap<>();
+        this.leaderboard = new ProductLeaderboard();
+        this.orderDateIndex = new OrderDateIndex();
+        this.orderStatusIndex = new OrderStatusIndex();
+        this.customerReviewIndex = new CustomerReviewIndex();
+        this.stockIndex = new StockIndex();
+        this.nameIndex = new ProductNameIndex();
+        this.indexMaintainer = new IndexMaintainer();
+        this.productStore = columnarCatalog ? new ProductStore() : null;
+    }
+
+    /**
+     * Receives change notifications from the products and orders in this
+     * system, updates the secondary indexes, and records each change in
+     * the journal (when one is open).
+     */
+    private class IndexMaintainer implements ProductListener, OrderListener {
+        @Override
+        public void onRatingChanged(Product product) {
+            leaderboard.update(product);
+            queryCache.bump(QueryCache.Source.REVIEWS);
+        }
+
+        @Override
+        public void onReviewAdded(Product product, Review review) {
+            customerReviewIndex.add(review);
+            queryCache.bump(QueryCache.Source.REVIEWS);
+            if (journal != null) {
+                journalReview(J_ADD_REVIEW, product, review);
+            }
+        }
+
+        @Override
+        public void onReviewRemoved(Product product, Review review) {
+            customerReviewIndex.remove(review);
+            queryCache.bump(QueryCache.Source.REVIEWS);
+            if (journal != null) {
+                journalRecord(J_REMOVE_REVIEW, new MutationJournal.Encoder()
+                    .putString(product.getProductId()).putString(review.getCustomerId()));
+            }
+        }
+
+        @Override
+        public void onReviewEdited(Product product, Review review) {
+            if (journal != null) {
+                journalReview(J_EDIT_REVIEW, product, review);
+            }
+        }
+
+        @Override
+        public void onStockChanged(Product product) {
+            // Several threads may get here at once (reservations): the index
+            // and the journal must both end with the latest stock
+            synchronized (stockIndex) {
+                stockIndex.update(product);
+                queryCache.bump(QueryCache.Source.STOCK);
+                if (journal != null) {
+                    journalRecord(J_SET_STOCK, new MutationJournal.Encoder()
+                        .putString(product.getProductId()).putInt(product.getStock()));
+                }
+            }
+        }
+
+        @Override
+        public void onNameChanged(Product product) {
+            nameIndex.update(product);
+            if (journal != null) {
+                journalRecord(J_SET_NAME, new MutationJournal.Encoder()
+                    .putString(product.getProductId()).putString(product.getName()));
+            }
+        }
+
+        @Override
+        public void onPriceChanged(Product product) {
+            queryCache.bump(QueryCache.Source.PRICES);
+            if (journal != null) {
+                journalRecord(J_SET_PRICE, new MutationJournal.Encoder()
+                    .putString(product.getProductId()).putDouble(product.getPrice()));
+            }
+        }
+
+        @Override
+        public void onStatusChanged(Order order, OrderStatus oldStatus) {
+            orderStatusIndex.move(order, oldStatus);
+            if (journal != null) {
+                journalRecord(J_ORDER_STATUS, new MutationJournal.Encoder()
+                    .putString(order.getOrderId()).putString(order.getStatus().getLabel()));
+            }
+        }
+    }
+    
+    // --- : Helper method to get a new, unique order ID ---
+    /**
+     * Generates a new unique Order ID and increments the counter.
+     * @return A new Order ID as a String.
+     */
+    public String getNewOrderId() {
+        // Return the current counter value, then increment it for next time
+        return String.valueOf(orderCounter.getAndIncrement());
+    }
+    
+    // --- : Helper method to get all products (for the menu) ---
+    /**
+     * Returns the entire list of products in the system.
+     * (A copy, so it is safe to walk while other threads change the catalog.)
+     * @return The MyLinkedList of all products.
+     */
+    public MyLinkedList<Product> getAllProducts() {
+        return copyOf(allProducts, catalogLock);
+    }
+
+    /**
+     * Copies a master list while holding its read lock.
+     * (Time Complexity: O(N))
+     */
+    private static <T> MyLinkedList<T> copyOf(Iterable<T> list, ReentrantReadWriteLock lock) {
+        lock.readLock().lock();
+        try {
+            MyLinkedList<T> copy = new MyLinkedList<>();
+            for (T item : list) {
+                copy.add(item);
+            }
+            return copy;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Streams a master list for a scan or an aggregation: in parallel when
+     * it has at least PARALLEL_THRESHOLD elements and the common pool has
+     * more than one worker (on a single core it would only add overhead),
+     * sequentially otherwise.
+     * The caller must hold the list's read lock until the stream is done;
+     * the worker threads rely on it (no writer can get in meanwhile).
+     */
+    private static <T> Stream<T> scan(Iterable<T> list, int size) {
+        boolean parallel = size >= PARALLEL_THRESHOLD && ForkJoinPool.getCommonPoolParallelism() > 1;
+        return StreamSupport.stream(list.spliterator(), parallel);
+    }
+
+    /**
+     * Collects a (possibly parallel) stream into a MyLinkedList, in stream
+     * order. The threads' pieces are joined with transferFrom, O(1) each.
+     */
+    private static <T> MyLinkedList<T> toMyLinkedList(Stream<T> stream) {
+        return stream.collect(MyLinkedList::new, MyLinkedList::add, MyLinkedList::transferFrom);
+    }
+
+    /**
+     *  "Read data from CSV file"
+     * This method reads all 4 CSV files to populate the system.
+     * Each file is streamed through a CsvReader (byte-level, RFC 4180
+     * quoting), so a file of N rows is loaded in O(N) with no per-row
+     * String[] or Scanner overhead. Rows that cannot be parsed are skipped
+     * and counted; a missing file is reported and the others still load.
+     */
+    public void readDataFromCSV(String productsFile, String customersFile, String ordersFile, String reviewsFile) {
+        loadFile(customersFile, "customers", this::parseCustomerRow, this::applyCustomer);
+        loadFile(productsFile, "products", this::parseProductRow, this::applyProduct);
+        loadFile(reviewsFile, "reviews", this::parseReviewRow, this::linkReview);
+        loadFile(ordersFile, "orders", this::parseOrderRow, this::linkOrder);
+        moveCountersPastLoadedIds();
+    }
+
+    /**
+     * The parallel version of readDataFromCSV (same files, same result).
+     * 1. All 4 files are parsed at the same time on a ForkJoinPool, and big
+     *    files are split into line-aligned chunks that are parsed in parallel.
+     *    Parsing only builds objects; it never touches the system.
+     * 2. This thread then adds the parsed objects in dependency order:
+     *    customers and products first, then reviews (linked to their
+     *    product), then orders (linked to their customer and products).
+     *    Each step only waits for the files it depends on, so e.g. the
+     *    customers are added while orders.csv is still being parsed.
+     * Note: chunks are split at line breaks, so quoted fields must not
+     * contain line breaks (use readDataFromCSV for such files).
+     * (Time Complexity: O(N / P) parsing + O(N) linking, for P threads)
+     * @param parallelism The number of parsing threads.
+     */
+    public void readDataFromCSVParallel(String productsFile, String customersFile, String ordersFile,
+                                        String reviewsFile, int parallelism) {
+        long start = System.nanoTime();
+        ForkJoinPool pool = new ForkJoinPool(Math.max(1, parallelism));
+        try {
+            // 1. Start parsing everything at once
+            CompletableFuture<ParsedFile<Customer>> customers =
+                parseAsync(customersFile, "customers", this::parseCustomerRow, pool);
+            CompletableFuture<ParsedFile<Product>> products =
+                parseAsync(productsFile, "products", this::parseProductRow, pool);
+            CompletableFuture<ParsedFile<PendingReview>> reviews =
+                parseAsync(reviewsFile, "reviews", this::parseReviewRow, pool);
+            CompletableFuture<ParsedFile<PendingOrder>> orders =
+                parseAsync(ordersFile, "orders", this::parseOrderRow, pool);
+
+            // 2. Add and link them in dependency order, as each file becomes ready
+            long rows = 0;
+            rows += applyParsed(customers.join(), this::applyCustomer, start);
+            rows += applyParsed(products.join(), this::applyProduct, start);
+            rows += applyParsed(reviews.join(), this::linkReview, start);
+            rows += applyParsed(orders.join(), this::linkOrder, start);
+            moveCountersPastLoadedIds();
+
+            double seconds = Math.max(System.nanoTime() - start, 1) / 1e9;
+            System.out.println("Parallel load: " + rows + " rows in " + Math.round(seconds * 1000)
+                + " ms on " + pool.getParallelism() + " threads.");
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    // Files smaller than this are parsed as one chunk
+    private static final long MIN_CHUNK_BYTES = 1 << 20;
+
+    // The largest numeric IDs seen while loading (to move the ID counters past them)
+    private int maxProductId;
+    private int maxCustomerId;
+    private int maxOrderId;
+
+    /**
+     * Make sure new IDs never collide with the IDs we just loaded.
+     */
+    private void moveCountersPastLoadedIds() {
+        orderCounter.accumulateAndGet(maxOrderId + 1, Math::max);
+        productCounter.accumulateAndGet(maxProductId + 1, Math::max);
+        customerCounter.accumulateAndGet(maxCustomerId + 1, Math::max);
+    }
+
+    /**
+     * Turns one CSV row into an object, without touching the system
+     * (so rows can be parsed on any thread).
+     */
+    private interface RowParser<T> {
+        T parse(CsvReader row);
+    }
+
+    /**
+     * Adds one parsed object to the system (always on the loading thread).
+     */
+    private interface RowApplier<T> {
+        void apply(T parsed);
+    }
+
+    /** A review row waiting for its product to be loaded. */
+    private static final class PendingReview {
+        final String productId;
+        final Review review;
+
+        PendingReview(String productId, Review review) {
+            this.productId = productId;
+            this.review = review;
+        }
+    }
+
+    /** An order row waiting for its customer and products to be loaded. */
+    private static final class PendingOrder {
+        final Order order;
+        final String productIds;
+
+        PendingOrder(Order order, String productIds) {
+            this.order = order;
+            this.productIds = productIds;
+        }
+    }
+
+    /** The parsed rows of one file, one list per chunk (in file order). */
+    private static final class ParsedFile<T> {
+        final String fileName;
+        final String what;
+        MyLinkedList<MyLinkedList<T>> chunks = new MyLinkedList<>();
+        final AtomicLong skipped = new AtomicLong();
+
+        ParsedFile(String fileName, String what) {
+            this.fileName = fileName;
+            this.what = what;
+        }
+    }
+
+    /**
+     * Streams one CSV file (skipping its header), parsing and applying each
+     * row, then reports how many rows were loaded and how fast.
+     */
+    private <T> void loadFile(String fileName, String what, RowParser<T> parser, RowApplier<T> applier) {
+        long start = System.nanoTime();
+        long loaded = 0;
+        long skipped = 0;
+        try (CsvReader reader = new CsvReader(fileName)) {
+            reader.nextRow(); // Skip header
+            while (reader.nextRow()) {
+                try {
+                    applier.apply(parser.parse(reader));
+                    loaded++;
+                } catch (IllegalArgumentException e) { // Includes NumberFormatException
+                    skipped++;
+                    if (skipped <= 5) {
+                        System.err.println("Skipping bad row " + reader.getRowCount() + " in " + fileName + ": " + e.getMessage());
+                    }
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Error reading " + fileName + ": " + e);
+            return;
+        }
+        reportLoaded(what, loaded, skipped, start);
+    }
+
+    private static void reportLoaded(String what, long loaded, long skipped, long startNanos) {
+        double seconds = Math.max(System.nanoTime() - startNanos, 1) / 1e9;
+        System.out.println("Loaded " + loaded + " " + what + " ("
+            + Math.round(loaded / seconds) + " rows/sec)"
+            + (skipped > 0 ? ", skipped " + skipped + " bad rows." : "."));
+    }
+
+    /**
+     * Parses one file on the pool: splits it into line-aligned chunks and
+     * parses the chunks in parallel.
+     */
+    private static <T> CompletableFuture<ParsedFile<T>> parseAsync(String fileName, String what,
+                                                                   RowParser<T> parser, ForkJoinPool pool) {
+        return CompletableFuture.supplyAsync(() -> {
+            ParsedFile<T> parsed = new ParsedFile<>(fileName, what);
+            try {
+                // 1. Pick the chunks (about 4 per thread, but at least 1 MB each)
+                Path path = Paths.get(fileName);
+                long size = Files.size(path);
+                int chunks = (int) Math.max(1, Math.min(pool.getParallelism() * 4L, size / MIN_CHUNK_BYTES));
+                long[] bounds = CsvReader.findRowBoundaries(path, chunks);
+
+                // 2. Parse them all in parallel (invokeAll waits for every chunk)
+                List<ForkJoinTask<MyLinkedList<T>>> tasks = new ArrayList<>();
+                for (int i = 0; i + 1 < bounds.length; i++) {
+                    long from = bounds[i];
+                    long to = bounds[i + 1];
+                    tasks.add(ForkJoinTask.adapt(() -> parseChunk(parsed, path, from, to, parser)));
+                }
+                for (ForkJoinTask<MyLinkedList<T>> task : ForkJoinTask.invokeAll(tasks)) {
+                    parsed.chunks.add(task.join());
+                }
+            } catch (IOException | RuntimeException e) {
+                System.err.println("Error reading " + fileName + ": " + e);
+                parsed.chunks = new MyLinkedList<>(); // Load nothing from a broken file
+            }
+            return parsed;
+        }, pool);
+    }
+
+    /**
+     * Parses the rows that start in [from, to). The chunk at offset 0 skips the header.
+     */
+    private static <T> MyLinkedList<T> parseChunk(ParsedFile<T> parsed, Path path, long from, long to,
+                                                  RowParser<T> parser) throws IOException {
+        MyLinkedList<T> rows = new MyLinkedList<>();
+        try (CsvReader reader = new CsvReader(path, from, to)) {
+            if (from == 0) {
+                reader.nextRow(); // Skip header
+            }
+            while (reader.nextRow()) {
+                try {
+                    rows.add(parser.parse(reader));
+                } catch (IllegalArgumentException e) { // Includes NumberFormatException
+                    if (parsed.skipped.incrementAndGet() <= 5) {
+                        System.err.println("Skipping bad row near byte " + from + " in "
+                            + parsed.fileName + ": " + e.getMessage());
+                    }
+                }
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Adds every parsed object of a file to the system, in file order.
+     * @return The number of rows loaded.
+     */
+    private <T> long applyParsed(ParsedFile<T> parsed, RowApplier<T> applier, long startNanos) {
+        long loaded = 0;
+        for (MyLinkedList<T> chunk : parsed.chunks) {
+            for (T item : chunk) {
+                try {
+                    applier.apply(item);
+                    loaded++;
+                } catch (IllegalArgumentException e) {
+                    if (parsed.skipped.incrementAndGet() <= 5) {
+                        System.err.println("Skipping bad row in " + parsed.fileName + ": " + e.getMessage());
+                    }
+                }
+            }
+        }
+        reportLoaded(parsed.what, loaded, parsed.skipped.get(), startNanos);
+        return loaded;
+    }
+
+    // customers.csv: customerId,name,email
+    private Customer parseCustomerRow(CsvReader row) {
+        return new Customer(row.getString(0), row.getString(1), row.getString(2));
+    }
+
+    private void applyCustomer(Customer c) {
+        this.registerNewCustomer(c);
+        maxCustomerId = Math.max(maxCustomerId, numericId(c.getCustomerId()));
+    }
+
+    // prodcuts.csv: productId,name,price,stock
+    private Product parseProductRow(CsvReader row) {
+        return new Product(
+            row.getString(0),  // productId
+            row.getString(1),  // name
+            row.getDouble(2),  // price
+            row.getInt(3)      // stock
+        );
+    }
+
+    private void applyProduct(Product p) {
+        this.addProduct(p);
+        maxProductId = Math.max(maxProductId, numericId(p.getProductId()));
+    }
+
+    // reviews.csv: reviewId,productId,customerId,rating,comment (comment may be quoted)
+    private PendingReview parseReviewRow(CsvReader row) {
+        return new PendingReview(row.getString(1),
+            new Review(row.getString(2), row.getInt(3), row.getString(4)));
+    }
+
+    private void linkReview(PendingReview r) {
+        Product p = this.findProductById(r.productId);
+        if (p != null) {
+            p.addReview(r.review);
+        }
+    }
+
+    // orders.csv: orderId,customerId,"101;102",totalPrice,orderDate,status
+    private PendingOrder parseOrderRow(CsvReader row) {
+        String orderId = row.getString(0);
+        String customerId = row.getString(1);
+        String productIds = row.getString(2); // The quotes are already removed
+        Date orderDate = row.getDate(4);
+        String status = row.getString(5);
+
+        Order order = new Order(orderId, customerId, orderDate);
+        order.restoreStatus(OrderStatus.parse(status)); // Unknown statuses skip the row
+        return new PendingOrder(order, productIds);
+    }
+
+    private void linkOrder(PendingOrder pending) {
+        Order order = pending.order;
+        String productIds = pending.productIds;
+
+        // Walk the ';'-separated IDs without building a String[]
+        int from = 0;
+        while (from <= productIds.length()) {
+            int to = productIds.indexOf(';', from);
+            if (to < 0) {
+                to = productIds.length();
+            }
+            Product p = this.findProductById(productIds.substring(from, to).trim());
+            if (p != null) {
+                order.addProductToOrder(p);
+            }
+            from = to + 1;
+        }
+        this.placeNewOrder(order.getCustomerId(), order);
+        maxOrderId = Math.max(maxOrderId, numericId(order.getOrderId()));
+    }
+
+    // =================================================================
+    // --- Binary snapshot (fast startup, and saving on exit) ---
+    // =================================================================
+
+    // The snapshot format version (bump it whenever the layout changes)
+    // Version 2 added the last journal record contained in the snapshot.
+    // Version 3 stores orders as line items with an exact total in cents.
+    // Version 4 adds whether each order took its items out of the stock.
+    private static final int SNAPSHOT_VERSION = 4;
+
+    /**
+     * Saves the whole system to a binary snapshot file:
+     * 1. the order/product/customer ID counters (and the last journal record),
+     * 2. the products with their reviews (plus any removed products that
+     *    old orders still refer to),
+     * 3. the customers,
+     * 4. the orders, referring to products by their position in part 2.
+     * Orders keep their saved total, status and date. The file is
+     * replaced only when the whole snapshot has been written.
+     * (Time Complexity: O(P + R + C + O) for every product, review, customer and order line)
+     * @param fileName The snapshot file.
+     * @throws IOException if the snapshot cannot be written.
+     */
+    public void saveSnapshot(String fileName) throws IOException {
+        lockAllForReading(); // Nobody changes anything while we write
+        try {
+            writeSnapshot(fileName);
+        } finally {
+            unlockAllForReading();
+        }
+    }
+
+    private void writeSnapshot(String fileName) throws IOException {
+        // 1. Number the products (catalog first, then removed ones still in orders)
+        MyHashMap<Product, Integer> productNumbers = new MyHashMap<>(allProducts.size());
+        MyLinkedList<Product> removedProducts = new MyLinkedList<>();
+        for (Product p : allProducts) {
+            productNumbers.putIfAbsent(p, productNumbers.size());
+        }
+        int catalogCount = productNumbers.size();
+        for (Order o : allOrders) {
+            for (int line = 0; line < o.getLineCount(); line++) {
+                Product p = o.getLineProduct(line);
+                if (productNumbers.putIfAbsent(p, productNumbers.size()) == null) {
+                    removedProducts.add(p);
+                }
+            }
+        }
+
+        SnapshotWriter out = new SnapshotWriter(Paths.get(fileName), SNAPSHOT_VERSION);
+        try {
+            out.writeInt(orderCounter.get());
+            out.writeInt(productCounter.get());
+            out.writeInt(customerCounter.get());
+            out.writeLong(journal != null ? journal.getLastSeq() : journalSeq);
+
+            // 2. Products and their reviews
+            out.writeInt(catalogCount);
+            out.writeInt(removedProducts.size());
+            for (Product p : allProducts) {
+                writeProduct(out, p);
+            }
+            for (Product p : removedProducts) {
+                writeProduct(out, p);
+            }
+
+            // 3. Customers
+            out.writeInt(allCustomers.size());
+            for (Customer c : allCustomers) {
+                out.writeString(c.getCustomerId());
+                out.writeString(c.getName());
+                out.writeString(c.getEmail());
+            }
+
+            // 4. Orders
+            out.writeInt(allOrders.size());
+            for (Order o : allOrders) {
+                out.writeString(o.getOrderId());
+                out.writeString(o.getCustomerId());
+                out.writeLong(o.getOrderDate() == null ? Long.MIN_VALUE : o.getOrderDate().getTime());
+                out.writeString(o.getStatus().getLabel());
+                out.writeByte(o.isStockTaken() ? 1 : 0);
+                out.writeLong(o.getTotalCents());
+                out.writeInt(o.getLineCount());
+                for (int line = 0; line < o.getLineCount(); line++) {
+                    out.writeInt(productNumbers.get(o.getLineProduct(line)));
+                    out.writeInt(o.getLineQuantity(line));
+                    out.writeLong(o.getLineUnitCents(line));
+                }
+            }
+            out.close();
+        } catch (IOException | RuntimeException e) {
+            out.abort();
+            throw e;
+        }
+    }
+
+    /**
+     * Loads a snapshot written by saveSnapshot, in one sequential read.
+     * The whole file is read and checked before the system is changed,
+     * so a corrupt snapshot leaves the system as it was.
+     * (Time Complexity: O(size of the snapshot))
+     * @param fileName The snapshot file.
+     * @throws IOException if the file is missing, corrupt, or has another version.
+     */
+    public void loadSnapshot(String fileName) throws IOException {
+        long start = System.nanoTime();
+        Product[] products;
+        Customer[] customers;
+        Order[] orders;
+        int catalogCount;
+        int savedOrderCounter, savedProductCounter, savedCustomerCounter;
+        long savedJournalSeq = 0;
+
+        try (SnapshotReader in = new SnapshotReader(Paths.get(fileName), SNAPSHOT_VERSION)) {
+            savedOrderCounter = in.readInt();
+            savedProductCounter = in.readInt();
+            savedCustomerCounter = in.readInt();
+            if (in.getVersion() >= 2) {
+                savedJournalSeq = in.readLong();
+            }
+
+            // 1. Products and their reviews
+            catalogCount = readCount(in);
+            products = new Product[catalogCount + readCount(in)];
+            for (int i = 0; i < products.length; i++) {
+                products[i] = readProduct(in);
+            }
+
+            // 2. Customers
+            customers = new Customer[readCount(in)];
+            for (int i = 0; i < customers.length; i++) {
+                customers[i] = new Customer(in.readString(), in.readString(), in.readString());
+            }
+
+            // 3. Orders, linked back to their products
+            orders = new Order[readCount(in)];
+            for (int i = 0; i < orders.length; i++) {
+                String orderId = in.readString();
+                String customerId = in.readString();
+                long millis = in.readLong();
+                Order order = new Order(orderId, customerId, millis == Long.MIN_VALUE ? null : new Date(millis));
+                String statusText = in.readString();
+                OrderStatus status = savedStatus(statusText);
+                if (status == null) {
+                    throw new IOException("Snapshot order " + orderId + " has unknown status '" + statusText + "'");
+                }
+                order.restoreStatus(status);
+                // (Before version 4 no order was known to have taken its stock)
+                if (in.getVersion() >= 4 && in.readByte() != 0) {
+                    order.markStockTaken();
+                }
+                // (Before version 3: a double total and one product number per unit)
+                boolean packed = in.getVersion() >= 3;
+                long totalCents = packed ? in.readLong() : Order.toCents(in.readDouble());
+                int lines = readCount(in);
+                for (int j = 0; j < lines; j++) {
+                    int number = in.readInt();
+                    if (number < 0 || number >= products.length) {
+                        throw new IOException("Snapshot order " + orderId + " refers to unknown product " + number);
+                    }
+                    if (!packed) {
+                        order.addProductToOrder(products[number]);
+                        continue;
+                    }
+                    int quantity = in.readInt();
+                    if (quantity <= 0) {
+                        throw new IOException("Snapshot order " + orderId + " has quantity " + quantity);
+                    }
+                    order.restoreLine(products[number], quantity, in.readLong());
+                }
+                order.restoreTotalCents(totalCents);
+                orders[i] = order;
+            }
+            in.verifyEnd();
+        }
+
+        // 4. Everything checked out: add it all to the system
+        for (int i = 0; i < catalogCount; i++) {
+            addProduct(products[i]);
+        }
+        for (Customer c : customers) {
+            registerNewCustomer(c);
+        }
+        for (Order o : orders) {
+            placeNewOrder(o.getCustomerId(), o);
+        }
+        orderCounter.accumulateAndGet(savedOrderCounter, Math::max);
+        productCounter.accumulateAndGet(savedProductCounter, Math::max);
+        customerCounter.accumulateAndGet(savedCustomerCounter, Math::max);
+        journalSeq = savedJournalSeq;
+
+        System.out.println("Loaded snapshot: " + catalogCount + " products, " + customers.length
+            + " customers, " + orders.length + " orders in "
+            + Math.round((System.nanoTime() - start) / 1e6) + " ms.");
+    }
+
+    private static void writeProduct(SnapshotWriter out, Product p) throws IOException {
+        out.writeString(p.getProductId());
+        out.writeString(p.getName());
+        out.writeDouble(p.getPrice());
+        out.writeInt(p.getStock());
+        out.writeInt(p.getReviews().size());
+        for (Review r : p.getReviews()) {
+            out.writeString(r.getCustomerId());
+            out.writeInt(r.getRatingScore());
+            out.writeString(r.getTextComment());
+        }
+    }
+
+    private static Product readProduct(SnapshotReader in) throws IOException {
+        Product p = new Product(in.readString(), in.readString(), in.readDouble(), in.readInt());
+        int reviews = readCount(in);
+        for (int j = 0; j < reviews; j++) {
+            p.addReview(new Review(in.readString(), in.readInt(), in.readString()));
+        }
+        return p;
+    }
+
+    private static int readCount(SnapshotReader in) throws IOException {
+        int n = in.readInt();
+        if (n < 0) {
+            throw new IOException("Snapshot has a negative count (" + n + ")");
+        }
+        // (Checked before the count sizes an array: a corrupt one must not run out of memory)
+        if (n > in.remaining()) {
+            throw new IOException("Snapshot has a count of " + n + " but only "
+                + in.remaining() + " bytes are left (the file is corrupt)");
+        }
+        return n;
+    }
+
+    // =================================================================
+    // --- Write-ahead journal (changes survive a crash or "Exit Without Saving") ---
+    // =================================================================
+
+    /**
+     * Opens the journal and replays the changes it holds on top of the data
+     * already loaded (from the CSV files or a snapshot). From then on every
+     * change (products, customers, orders, statuses, reviews, stock, price,
+     * name) is appended to the journal and is on disk when the call returns.
+     * Call it after loading, since loading itself is not journaled.
+     * @param journalFile The journal file (created if missing).
+     * @param snapshotFile The snapshot that checkpoints are saved to.
+     * @param latencyBudgetMillis How long a change may wait to share an fsync with others.
+     * @param checkpointBytes Checkpoint when the journal grows past this size.
+     * @throws IOException if the journal cannot be opened or does not fit the loaded data.
+     */
+    public void openJournal(String journalFile, String snapshotFile, long latencyBudgetMillis,
+                            long checkpointBytes) throws IOException {
+        if (journal != null) {
+            throw new IllegalStateException("The journal is already open");
+        }
+        MutationJournal opened = MutationJournal.open(Paths.get(journalFile), latencyBudgetMillis,
+            journalSeq, this::replayRecord);
+        this.checkpointFile = snapshotFile;
+        this.checkpointBytes = checkpointBytes;
+        this.journal = opened; // Only now: replaying must not journal again
+    }
+
+    /**
+     * Saves a snapshot that contains every journaled change, then empties
+     * the journal. (If there is no journal, this just saves the snapshot.)
+     * (Time Complexity: the same as saveSnapshot)
+     * @param snapshotFile The snapshot file.
+     * @throws IOException if the snapshot or the journal cannot be written.
+     */
+    public void checkpoint(String snapshotFile) throws IOException {
+        if (journal == null) {
+            saveSnapshot(snapshotFile);
+            return;
+        }
+        // While we hold every read lock, no change is half-done, so the
+        // snapshot holds exactly journal records 1..seq
+        lockAllForReading();
+        try {
+            journal.sync();
+            long seq = journal.getLastSeq();
+            saveSnapshot(snapshotFile);
+            journal.truncate(seq);
+            journalSeq = seq;
+        } finally {
+            unlockAllForReading();
+        }
+    }
+
+    /**
+     * Checkpoints if the journal has grown past the size given to openJournal.
+     * Call it between operations (never in the middle of one).
+     * @return true if a checkpoint was made.
+     * @throws IOException if the checkpoint fails.
+     */
+    public boolean checkpointIfDue() throws IOException {
+        if (journal == null || journal.size() < checkpointBytes) {
+            return false;
+        }
+        checkpoint(checkpointFile);
+        return true;
+    }
+
+    /**
+     * Writes any waiting journal records and closes the journal.
+     */
+    public void closeJournal() throws IOException {
+        if (journal != null) {
+            MutationJournal closing = journal;
+            journal = null;
+            closing.close();
+        }
+    }
+
+    /**
+     * Lets changes return without waiting for their journal records to reach
+     * the disk (they are still journaled, in order). Used by batch runs,
+     * which call syncJournal() at the end instead of paying one wait per
+     * change. A crash before that sync loses only the newest changes.
+     * @param deferred true to stop waiting, false to wait again (the default).
+     */
+    public void setJournalSyncDeferred(boolean deferred) {
+        this.journalSyncDeferred = deferred;
+    }
+
+    /**
+     * Waits until every journaled change is on disk (does nothing without a journal).
+     */
+    public void syncJournal() {
+        MutationJournal j = journal;
+        if (j != null) {
+            j.sync();
+        }
+    }
+
+    // The last journal record this thread made inside a locked operation.
+    // It is waited for after unlocking, so other threads can share its fsync.
+    private final ThreadLocal<long[]> unsyncedRecord = ThreadLocal.withInitial(() -> new long[1]);
+
+    /**
+     * Appends a journal record. Inside a locked operation we only enqueue
+     * it (records keep the order of the changes) and wait in awaitJournal().
+     */
+    private void journalRecord(int type, MutationJournal.Encoder fields) {
+        long seq = journal.enqueue(type, fields);
+        if (journalSyncDeferred) {
+            return; // Someone calls syncJournal() later
+        }
+        if (holdsWriteLock()) {
+            long[] last = unsyncedRecord.get();
+            last[0] = Math.max(last[0], seq);
+        } else {
+            journal.awaitDurable(seq);
+        }
+    }
+
+    /**
+     * Called after unlocking: waits until this thread's journal records are on disk.
+     */
+    private void awaitJournal() {
+        MutationJournal j = journal;
+        if (j == null || holdsWriteLock()) {
+            return; // No journal, or still inside an outer operation
+        }
+        long[] last = unsyncedRecord.get();
+        if (last[0] > 0) {
+            long seq = last[0];
+            last[0] = 0;
+            if (!journalSyncDeferred) {
+                j.awaitDurable(seq);
+            }
+        }
+    }
+
+    /**
+     * Checks if this thread is inside an operation that may journal
+     * (a write lock, or the inventory lock used by reservations).
+     */
+    private boolean holdsWriteLock() {
+        return catalogLock.isWriteLockedByCurrentThread()
+            || customerLock.isWriteLockedByCurrentThread()
+            || orderLock.isWriteLockedByCurrentThread()
+            || inventoryLock.getReadHoldCount() > 0;
+    }
+
+    /**
+     * Locks everything for a snapshot (nothing can change, not even the stock).
+     */
+    private void lockAllForReading() {
+        catalogLock.readLock().lock();
+        customerLock.readLock().lock();
+        orderLock.readLock().lock();
+        inventoryLock.writeLock().lock();
+    }
+
+    private void unlockAllForReading() {
+        inventoryLock.writeLock().unlock();
+        orderLock.readLock().unlock();
+        customerLock.readLock().unlock();
+        catalogLock.readLock().unlock();
+    }
+
+    /**
+     * Locks for a compare-and-set stock change: the catalog read lock keeps
+     * the products (and the columnar store's slots) in place, and the
+     * inventory read lock keeps snapshots out. Many threads can hold both.
+     */
+    private void lockInventory() {
+        catalogLock.readLock().lock();
+        inventoryLock.readLock().lock();
+    }
+
+    private void unlockInventory() {
+        inventoryLock.readLock().unlock();
+        catalogLock.readLock().unlock();
+    }
+
+    private void journalReview(int type, Product product, Review review) {
+        journalRecord(type, new MutationJournal.Encoder()
+            .putString(product.getProductId()).putString(review.getCustomerId())
+            .putInt(review.getRatingScore()).putString(review.getTextComment()));
+    }
+
+    private void journalOrder(Order order) {
+        MutationJournal.Encoder fields = new MutationJournal.Encoder()
+            .putString(order.getOrderId()).putString(order.getCustomerId())
+            .putLong(order.getOrderDate() == null ? Long.MIN_VALUE : order.getOrderDate().getTime())
+            .putString(order.getStatus().getLabel()).putLong(order.getTotalCents())
+            .putInt(order.getLineCount());
+        for (int line = 0; line < order.getLineCount(); line++) {
+            fields.putString(order.getLineProduct(line).getProductId())
+                .putInt(order.getLineQuantity(line)).putLong(order.getLineUnitCents(line));
+        }
+        journalRecord(order.isStockTaken() ? J_PLACE_ORDER_TAKEN : J_PLACE_ORDER_LINES, fields);
+    }
+
+    // Journals and snapshots from before OrderStatus may hold any text: null if unknown
+    private static OrderStatus savedStatus(String text) {
+        try {
+            return OrderStatus.parse(text);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Applies one journal record during openJournal (the journal is not open yet,
+     * so nothing is journaled twice). A record whose product/order no longer
+     * exists, or whose status is unknown, is skipped.
+     */
+    private void replayRecord(long seq, int type, MutationJournal.Decoder in) {
+        Product p;
+        switch (type) {
+            case J_ADD_PRODUCT: {
+                p = new Product(in.getString(), in.getString(), in.getDouble(), in.getInt());
+                addProduct(p);
+                productCounter.accumulateAndGet(numericId(p.getProductId()) + 1, Math::max);
+                return;
+            }
+            case J_REMOVE_PRODUCT:
+                removeProduct(in.getString());
+                return;
+            case J_ADD_CUSTOMER: {
+                Customer c = new Customer(in.getString(), in.getString(), in.getString());
+                registerNewCustomer(c);
+                customerCounter.accumulateAndGet(numericId(c.getCustomerId()) + 1, Math::max);
+                return;
+            }
+            case J_PLACE_ORDER:
+            case J_PLACE_ORDER_LINES:
+            case J_PLACE_ORDER_TAKEN: {
+                // (J_PLACE_ORDER: a double total and one product ID per unit)
+                boolean packed = type != J_PLACE_ORDER;
+                String orderId = in.getString();
+                String customerId = in.getString();
+                long millis = in.getLong();
+                Order order = new Order(orderId, customerId, millis == Long.MIN_VALUE ? null : new Date(millis));
+                OrderStatus status = savedStatus(in.getString());
+                if (status != null) {
+                    order.restoreStatus(status);
+                }
+                long totalCents = packed ? in.getLong() : Order.toCents(in.getDouble());
+                int lines = in.getInt();
+                for (int i = 0; i < lines; i++) {
+                    Product item = findProductById(in.getString());
+                    if (!packed) {
+                        if (item != null) {
+                            order.addProductToOrder(item);
+                        }
+                        continue;
+                    }
+                    int quantity = in.getInt();
+                    long unitCents = in.getLong();
+                    if (item != null) {
+                        order.restoreLine(item, quantity, unitCents);
+                    }
+                }
+                order.restoreTotalCents(totalCents);
+                if (type == J_PLACE_ORDER_TAKEN) {
+                    order.markStockTaken();
+                }
+                placeNewOrder(customerId, order);
+                orderCounter.accumulateAndGet(numericId(orderId) + 1, Math::max);
+                return;
+            }
+            case J_ORDER_STATUS: {
+                Order order = findOrderById(in.getString());
+                OrderStatus status = savedStatus(in.getString());
+                if (order != null && status != null) {
+                    order.restoreStatus(status);
+                }
+                return;
+            }
+            case J_ADD_REVIEW:
+            case J_EDIT_REVIEW:
+            case J_REMOVE_REVIEW:
+            case J_SET_STOCK:
+            case J_SET_PRICE:
+            case J_SET_NAME:
+                p = findProductById(in.getString());
+                if (p == null) {
+                    return; // The product was removed later on
+                }
+                break;
+            default:
+                System.err.println("Skipping journal record " + seq + " of unknown type " + type);
+                return;
+        }
+
+        // The product-level records
+        switch (type) {
+            case J_ADD_REVIEW: {
+                String customerId = in.getString();
+                int rating = in.getInt();
+                p.addReview(new Review(customerId, rating, in.getString()));
+                break;
+            }
+            case J_EDIT_REVIEW: {
+                String customerId = in.getString();
+                int rating = in.getInt();
+                p.editReview(customerId, in.getString(), rating);
+                break;
+            }
+            case J_REMOVE_REVIEW:
+                p.removeReview(in.getString());
+                break;
+            case J_SET_STOCK:
+                p.setStock(in.getInt());
+                break;
+            case J_SET_PRICE:
+                p.setPrice(in.getDouble());
+                break;
+            default: // J_SET_NAME
+                p.setName(in.getString());
+                break;
+        }
+    }
+
+    /**
+     * Returns the ID as a number, or 0 if it is not a (small) number.
+     */
+    private static int numericId(String id) {
+        if (id.isEmpty() || id.length() > 9) {
+            return 0;
+        }
+        for (int i = 0; i < id.length(); i++) {
+            if (!Character.isDigit(id.charAt(i))) {
+                return 0;
+            }
+        }
+        return Integer.parseInt(id);
+    }
+
+    // --- ( methods: addProduct, findProductById, getTop3Products, etc...) ---
+    // =================================================================
+    // --- SECTION 2: Core Operations (from PDF Page 1) ---
+    // =================================================================
+
+    // --- Product Operations ---
+    /**
+     * Adds a product to the catalog and to every index.
+     * @return false if a product with the same ID already exists (then
+     *         nothing is added anywhere).
+     */
+    public boolean addProduct(Product product) {
+        catalogLock.writeLock().lock();
+        try {
+            // 1. Check the ID first: a second product with the same ID would
+            //    overwrite the first one's index entries and could never be removed
+            if (productIndex.get(product.getProductId()) != null) {
+                return false;
+            }
+            // 2. Journal it before other threads can find it (so it is replayed first)
+            if (journal != null) {
+                journalRecord(J_ADD_PRODUCT, new MutationJournal.Encoder()
+                    .putString(product.getProductId()).putString(product.getName())
+                    .putDouble(product.getPrice()).putInt(product.getStock()));
+                for (Review r : product.getReviews()) {
+                    journalReview(J_ADD_REVIEW, product, r);
+                }
+            }
+            if (productStore != null) {
+                productStore.attach(product);
+            }
+            DNode<Product> handle = allProducts.add(product);
+            productIndex.put(product.getProductId(), handle);
+            product.setListener(indexMaintainer);
+            leaderboard.update(product);
+            stockIndex.update(product);
+            nameIndex.update(product);
+            // A product may arrive with reviews already attached
+            for (Review r : product.getReviews()) {
+                customerReviewIndex.add(r);
+            }
+            queryCache.bump(QueryCache.Source.PRODUCTS);
+            return true;
+        } finally {
+            catalogLock.writeLock().unlock();
+            awaitJournal();
+        }
+    }
+    public void removeProduct(String productId) {
+        catalogLock.writeLock().lock();
+        try {
+            DNode<Product> handle = productIndex.remove(productId);
+            if (handle == null) {
+                return; // Not found
+            }
+            Product target = handle.getData();
+            allProducts.remove(handle); // O(1): no walk at all
+            leaderboard.remove(target);
+            stockIndex.remove(target);
+            nameIndex.remove(target);
+            for (Review r : target.getReviews()) {
+                customerReviewIndex.remove(r);
+            }
+            queryCache.bump(QueryCache.Source.PRODUCTS);
+            target.setListener(null);
+            if (productStore != null) {
+                productStore.detach(target);
+            }
+            if (journal != null) {
+                journalRecord(J_REMOVE_PRODUCT, new MutationJournal.Encoder().putString(productId));
+            }
+        } finally {
+            catalogLock.writeLock().unlock();
+            awaitJournal();
+        }
+    }
+    public Product findProductById(String productId) {
+        DNode<Product> handle = productIndex.get(productId);
+        return (handle == null) ? null : handle.getData(); // null if not found
+    }
 
     /**
-     * Constructor to initialize the system.
+     * Adds a review to a product (the thread-safe way to call Product.addReview).
+     * @return false if the product does not exist.
      */
-    public ECommerceSystem() {
-        this.allProducts = new MyLinkedList<>();
-        this.allCustomers = new MyLinkedList<>();
-        this.allOrders = new MyLinkedList<>();
+    public boolean addReview(String productId, Review review) {
+        catalogLock.writeLock().lock();
+        try {
+            Product p = findProductById(productId);
+            if (p == null) {
+                return false;
+            }
+            p.addReview(review);
+            return true;
+        } finally {
+            catalogLock.writeLock().unlock();
+            awaitJournal();
+        }
     }
-    
-    // --- : Helper method to get a new, unique order ID ---
+
     /**
-     * Generates a new unique Order ID and increments the counter.
-     * @return A new Order ID as a String.
+     * Returns a copy of a product's reviews (safe to walk while other
+     * threads add or remove reviews).
+     * @return The reviews, or null if the product does not exist.
      */
-    public String getNewOrderId() {
-        // Return the current counter value, then increment it for next time
-        return String.valueOf(orderCounter++); 
+    public MyLinkedList<Review> getProductReviews(String productId) {
+        Product p = findProductById(productId);
+        return (p == null) ? null : copyOf(p.getReviews(), catalogLock);
     }
-    
-    // --- : Helper method to get all products (for the menu) ---
+
     /**
-     * Returns the entire list of products in the system.
-     * @return The MyLinkedList of all products.
+     * Edits a customer's review of a product (see Product.editReview).
+     * @return false if the product or the review does not exist.
      */
-    public MyLinkedList<Product> getAllProducts() {
-        return this.allProducts;
+    public boolean editReview(String productId, String customerId, String newComment, int newRating) {
+        catalogLock.writeLock().lock();
+        try {
+            Product p = findProductById(productId);
+            return p != null && p.editReview(customerId, newComment, newRating);
+        } finally {
+            catalogLock.writeLock().unlock();
+            awaitJournal();
+        }
     }
 
     /**
-     *  "Read data from CSV file"
-     * This method reads all 4 CSV files to populate the system.
-     * It handles file errors and parsing.
+     * Removes a customer's review of a product (see Product.removeReview).
+     * @return false if the product or the review does not exist.
      */
-    public void readDataFromCSV(String productsFile, String customersFile, String ordersFile, String reviewsFile) {
-        
-        // 1. Read Customers (customers.csv)
-        try (Scanner scanner = new Scanner(new File(customersFile))) {
-            scanner.nextLine(); // Skip header
-            while (scanner.hasNextLine()) {
-                String line = scanner.nextLine();
-                String[] data = line.split(","); // [0]=customerId, [1]=name, [2]=email
-                Customer c = new Customer(data[0].trim(), data[1].trim(), data[2].trim());
-                this.registerNewCustomer(c);
-            }
-            System.out.println("Loaded " + allCustomers.size() + " customers.");
-        } catch (FileNotFoundException e) {
-            System.err.println("Error reading customers.csv: " + e.getMessage());
-        }
-
-        // 2. Read Products (prodcuts.csv)
-        try (Scanner scanner = new Scanner(new File(productsFile))) {
-            scanner.nextLine(); // Skip header
-            while (scanner.hasNextLine()) {
-                String line = scanner.nextLine();
-                String[] data = line.split(","); // [0]=productId, [1]=name, [2]=price, [3]=stock
-                Product p = new Product(
-                    data[0].trim(),                     // productId
-                    data[1].trim(),                     // name
-                    Double.parseDouble(data[2].trim()), // price
-                    Integer.parseInt(data[3].trim())    // stock
-                );
-                this.addProduct(p);
-            }
-            System.out.println("Loaded " + allProducts.size() + " products.");
-        } catch (FileNotFoundException e) {
-            System.err.println("Error reading prodcuts.csv: " + e.getMessage());
-        }
-
-        // 3. Read Reviews (reviews.csv)
-        try (Scanner scanner = new Scanner(new File(reviewsFile))) {
-            scanner.nextLine(); // Skip header
-            while (scanner.hasNextLine()) {
-                String line = scanner.nextLine();
-                
-                // --- THIS IS THE FIX ---
-                // We limit the split to 5 parts.
-                // The 5th part (data[4]) will contain "everything else"
-                // including the commas inside the comment.
-                String[] data = line.split(",", 5); 
-                
-                String productId = data[1].trim();
-                String customerId = data[2].trim();
-                int rating = Integer.parseInt(data[3].trim());
-                String comment = data[4].trim(); // This now has the full comment
-
-                // Also, let's remove the quotes ("") if they exist
-                if (comment.startsWith("\"") && comment.endsWith("\"")) {
-                    comment = comment.substring(1, comment.length() - 1);
-                }
-                // --- END OF FIX ---
-                
-                Review r = new Review(customerId, rating, comment);
-                Product p = this.findProductById(productId);
-                if (p != null) {
-                    p.addReview(r); 
-                }
+    public boolean removeReview(String productId, String customerId) {
+        catalogLock.writeLock().lock();
+        try {
+            Product p = findProductById(productId);
+            return p != null && p.removeReview(customerId);
+        } finally {
+            catalogLock.writeLock().unlock();
+            awaitJournal();
+        }
+    }
+
+    /**
+     * Sets a product's stock level.
+     * @return false if the product does not exist.
+     */
+    public boolean updateStock(String productId, int stock) {
+        catalogLock.writeLock().lock();
+        try {
+            Product p = findProductById(productId);
+            if (p == null) {
+                return false;
             }
-            System.out.println("Loaded reviews.");
-        } catch (FileNotFoundException e) {
-            System.err.println("Error reading reviews.csv: " + e.getMessage());
-        }
-
-        // 4. Read Orders (orders.csv)
-        try (Scanner scanner = new Scanner(new File(ordersFile))) {
-            scanner.nextLine(); // Skip header
-            SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd");
-
-            while (scanner.hasNextLine()) {
-                String line = scanner.nextLine();
-                String[] data = line.split(","); 
-                
-                String orderId = data[0].trim();
-                String customerId = data[1].trim();
-                String productIdsString = data[2].trim(); 
-                Date orderDate = dateFormat.parse(data[4].trim());
-                String status = data[5].trim();
-                
-                Order order = new Order(orderId, customerId, orderDate);
-                order.updateStatus(status);
-                
-                String[] productIds = productIdsString.split(";");
-                for (String pid : productIds) {
-                    Product p = this.findProductById(pid.trim());
-                    if (p != null) {
-                        order.addProductToOrder(p);
-                    }
-                }
-                this.placeNewOrder(customerId, order);
+            p.setStock(stock);
+            return true;
+        } finally {
+            catalogLock.writeLock().unlock();
+            awaitJournal();
+        }
+    }
+
+    /**
+     * Adds "delta" to a product's stock in one atomic step (no update is
+     * lost when several threads do this at once). The stock never goes
+     * below 0: such a change is refused. Uses compare-and-set, so threads
+     * changing the stock of the same product never block each other.
+     * @return The new stock, or -1 if the product does not exist or has too little stock.
+     */
+    public int adjustStock(String productId, int delta) {
+        lockInventory();
+        try {
+            Product p = findProductById(productId);
+            if (p == null) {
+                return -1;
+            }
+            if (delta < 0) {
+                return p.reserveStock(-delta);
             }
-            System.out.println("Loaded " + allOrders.size() + " orders.");
-        } catch (FileNotFoundException e) {
-            System.err.println("Error reading orders.csv: " + e.getMessage());
-        } catch (ParseException e) {
-            System.err.println("Error parsing date in orders.csv: " + e.getMessage());
+            return (delta == 0) ? p.getStock() : p.releaseStock(delta);
+        } finally {
+            unlockInventory();
+            awaitJournal();
         }
     }
 
-    // --- ( methods: addProduct, findProductById, getTop3Products, etc...) ---
-    // =================================================================
-    // --- SECTION 2: Core Operations (from PDF Page 1) ---
-    // =================================================================
+    /**
+     * Reserves the stock for an order, all-or-nothing: one unit per item
+     * (a product listed twice needs two units). If any product is short,
+     * nothing is reserved. Finish with placeReservedOrder or releaseReservation.
+     * (Time Complexity: O(K) for K items; lock-free on the stock itself)
+     * @param items The products of the order.
+     * @return The reservation, or null if some product has too little stock.
+     */
+    public Reservation reserveStock(MyLinkedList<Product> items) {
+        lockInventory();
+        try {
+            return Reservation.tryReserve(items);
+        } finally {
+            unlockInventory();
+            awaitJournal();
+        }
+    }
 
-    // --- Product Operations ---
-    public void addProduct(Product product) {
-        allProducts.add(product);
+    /**
+     * Puts the stock of an unused reservation back.
+     * @return false if it was already committed or released.
+     */
+    public boolean releaseReservation(Reservation reservation) {
+        lockInventory();
+        try {
+            return reservation.release();
+        } finally {
+            unlockInventory();
+            awaitJournal();
+        }
     }
-    public void removeProduct(String productId) {
-        for (int i = 0; i < allProducts.size(); i++) {
-            if (allProducts.get(i).getProductId().equals(productId)) {
-                allProducts.remove(i);
-                break;
+
+    /**
+     * Places an order whose stock was reserved with reserveStock, and
+     * commits the reservation (so canceling the order puts the stock back).
+     * If the order cannot be placed, the stock is released instead.
+     * @return false if the customer does not exist or an order with the
+     *         same ID already exists.
+     * @throws IllegalStateException if the reservation was already used.
+     */
+    public boolean placeReservedOrder(String customerId, Order order, Reservation reservation) {
+        boolean placed = false;
+        try {
+            placed = placeOrder(customerId, order, reservation);
+            return placed;
+        } finally {
+            if (!placed) {
+                releaseReservation(reservation); // Does nothing if it was already used
             }
         }
     }
-    public Product findProductById(String productId) {
-        for (int i = 0; i < allProducts.size(); i++) {
-            Product p = allProducts.get(i);
-            if (p.getProductId().equals(productId)) {
-                return p;
+
+    /**
+     * Sets a product's price.
+     * @return false if the product does not exist.
+     */
+    public boolean updatePrice(String productId, double price) {
+        catalogLock.writeLock().lock();
+        try {
+            Product p = findProductById(productId);
+            if (p == null) {
+                return false;
             }
+            p.setPrice(price);
+            return true;
+        } finally {
+            catalogLock.writeLock().unlock();
+            awaitJournal();
         }
-        return null; // Not found
     }
-    public MyLinkedList<Product> getOutOfStockProducts() {
-        MyLinkedList<Product> outOfStock = new MyLinkedList<>();
-        for (int i = 0; i < allProducts.size(); i++) {
-            Product p = allProducts.get(i);
-            if (p.getStock() == 0) {
-                outOfStock.add(p);
+
+    /**
+     * Renames a product.
+     * @return false if the product does not exist.
+     */
+    public boolean updateName(String productId, String name) {
+        catalogLock.writeLock().lock();
+        try {
+            Product p = findProductById(productId);
+            if (p == null) {
+                return false;
             }
+            p.setName(name);
+            return true;
+        } finally {
+            catalogLock.writeLock().unlock();
+            awaitJournal();
         }
-        return outOfStock;
     }
 
-    // --- Customer Operations ---
-    public void registerNewCustomer(Customer customer) {
-        allCustomers.add(customer);
+    /**
+     * Returns the products whose stock is exactly 0.
+     * (Time Complexity: O(log N + K) - read from the stock index)
+     */
+    public MyLinkedList<Product> getOutOfStockProducts() {
+        return cachedList("out-of-stock", () -> {
+            catalogLock.readLock().lock();
+            try {
+                return stockIndex.withStock(0);
+            } finally {
+                catalogLock.readLock().unlock();
+            }
+        }, QueryCache.Source.PRODUCTS, QueryCache.Source.STOCK);
     }
-    public Customer findCustomerById(String customerId) {
-        for (int i = 0; i < allCustomers.size(); i++) {
-            Customer c = allCustomers.get(i);
-            if (c.getCustomerId().equals(customerId)) {
-                return c;
+
+    /**
+     * Returns the total value of the stock on hand (sum of price * stock).
+     * (Time Complexity: O(N) - a primitive-array scan when the catalog is
+     * columnar, otherwise a parallel scan when there are many products)
+     */
+    public double getTotalInventoryValue() {
+        return queryCache.get("inventory-value", () -> {
+            catalogLock.readLock().lock();
+            try {
+                if (productStore != null) {
+                    return productStore.totalInventoryValue();
+                }
+                return scan(allProducts, allProducts.size())
+                    .mapToDouble(p -> p.getPrice() * p.getStock())
+                    .sum();
+            } finally {
+                catalogLock.readLock().unlock();
+            }
+        }, QueryCache.Source.PRODUCTS, QueryCache.Source.STOCK, QueryCache.Source.PRICES);
+    }
+
+    /**
+     * Returns the products whose price is between min and max (inclusive),
+     * in catalog order.
+     * (Time Complexity: O(N) - a primitive-array scan when the catalog is
+     * columnar, otherwise a parallel scan when there are many products)
+     */
+    public MyLinkedList<Product> getProductsInPriceRange(double min, double max) {
+        return cachedList("price-range|" + min + "|" + max, () -> {
+            catalogLock.readLock().lock();
+            try {
+                if (productStore != null) {
+                    return productStore.productsPriceBetween(min, max);
+                }
+                return toMyLinkedList(scan(allProducts, allProducts.size())
+                    .filter(p -> p.getPrice() >= min && p.getPrice() <= max));
+            } finally {
+                catalogLock.readLock().unlock();
+            }
+        }, QueryCache.Source.PRODUCTS, QueryCache.Source.PRICES);
+    }
+
+    /**
+     * Returns the average score of every review in the catalog (0 if there
+     * are none). Each product keeps its own rating sum and count, so this
+     * adds up two numbers per product.
+     * (Time Complexity: O(N) - a parallel scan when there are many products)
+     */
+    public double getAverageCatalogRating() {
+        return queryCache.get("catalog-rating", () -> {
+            catalogLock.readLock().lock();
+            try {
+                // [0] = sum of the scores, [1] = number of reviews
+                long[] totals = scan(allProducts, allProducts.size()).collect(
+                    () -> new long[2],
+                    (t, p) -> {
+                        t[0] += p.getRatingSum();
+                        t[1] += p.getRatingCount();
+                    },
+                    (a, b) -> {
+                        a[0] += b[0];
+                        a[1] += b[1];
+                    });
+                return totals[1] == 0 ? 0.0 : (double) totals[0] / totals[1];
+            } finally {
+                catalogLock.readLock().unlock();
+            }
+        }, QueryCache.Source.PRODUCTS, QueryCache.Source.REVIEWS);
+    }
+
+    /**
+     * Returns the products whose stock is at or below "threshold", lowest first.
+     * (Time Complexity: O(K) - read from the stock index)
+     */
+    public MyLinkedList<Product> getLowStockProducts(int threshold) {
+        return cachedList("low-stock|" + threshold, () -> {
+            catalogLock.readLock().lock();
+            try {
+                return stockIndex.atOrBelow(threshold);
+            } finally {
+                catalogLock.readLock().unlock();
+            }
+        }, QueryCache.Source.PRODUCTS, QueryCache.Source.STOCK);
+    }
+
+    // --- Customer Operations ---
+    /**
+     * Registers a new customer.
+     * @return false if a customer with the same ID already exists (then
+     *         nothing is added).
+     */
+    public boolean registerNewCustomer(Customer customer) {
+        customerLock.writeLock().lock();
+        try {
+            if (customerIndex.get(customer.getCustomerId()) != null) {
+                return false; // The ID is taken
+            }
+            // Journal it before other threads can find it (so it is replayed first)
+            if (journal != null) {
+                journalRecord(J_ADD_CUSTOMER, new MutationJournal.Encoder().putString(customer.getCustomerId())
+                    .putString(customer.getName()).putString(customer.getEmail()));
             }
+            allCustomers.add(customer);
+            customerIndex.put(customer.getCustomerId(), customer);
+            return true;
+        } finally {
+            customerLock.writeLock().unlock();
+            awaitJournal();
         }
-        return null; // Not found
+    }
+    public Customer findCustomerById(String customerId) {
+        return customerIndex.get(customerId); // null if not found
     }
 
     // --- Order Operations ---
+    /**
+     * Places an order (its stock is not touched; see placeReservedOrder).
+     * @return false if the customer does not exist or an order with the
+     *         same ID already exists (then nothing is added).
+     */
     public boolean placeNewOrder(String customerId, Order order) {
+        return placeOrder(customerId, order, null);
+    }
+
+    /**
+     * Places an order and, if it is given, commits its reservation in the
+     * same step: the ID check, the commit and the insert all happen under
+     * the order write lock, so a reservation is never committed for an
+     * order that was not placed. (Customers are never removed, so the
+     * customer found first is still there.)
+     */
+    private boolean placeOrder(String customerId, Order order, Reservation reservation) {
         Customer c = findCustomerById(customerId);
-        if (c != null) {
+        if (c == null) {
+            return false; // Customer not found
+        }
+        orderLock.writeLock().lock();
+        try {
+            if (orderIndex.get(order.getOrderId()) != null) {
+                return false; // The ID is taken
+            }
+            if (reservation != null) {
+                if (!reservation.commit()) {
+                    throw new IllegalStateException("This reservation was already committed or released");
+                }
+                order.markStockTaken();
+            }
+            if (journal != null) {
+                journalOrder(order);
+            }
             c.addOrderToHistory(order);
             allOrders.add(order);
+            orderIndex.put(order.getOrderId(), order);
+            orderDateIndex.add(order);
+            orderStatusIndex.add(order);
+            order.setListener(indexMaintainer);
+            queryCache.bump(QueryCache.Source.ORDERS);
             return true;
+        } finally {
+            orderLock.writeLock().unlock();
+            awaitJournal();
         }
-        return false; // Customer not found
     }
     public Order findOrderById(String orderId) {
-        for (int i = 0; i < allOrders.size(); i++) {
-            Order o = allOrders.get(i);
-            if (o.getOrderId().equals(orderId)) {
-                return o;
+        return orderIndex.get(orderId); // null if not found
+    }
+
+    /**
+     * Changes an order's status from text (e.g., "shipped").
+     * @return false if the order does not exist.
+     * @throws IllegalArgumentException if the text is not a known status.
+     * @throws IllegalStateException if the order's status cannot change to it.
+     */
+    public boolean updateOrderStatus(String orderId, String newStatus) {
+        return updateOrderStatus(orderId, OrderStatus.parse(newStatus));
+    }
+
+    /**
+     * Changes an order's status (the thread-safe way to call Order.updateStatus).
+     * Canceling an order that took its stock (see Order.isStockTaken)
+     * puts its items back into the stock.
+     * @return false if the order does not exist.
+     * @throws IllegalStateException if the order's status cannot change to it.
+     */
+    public boolean updateOrderStatus(String orderId, OrderStatus newStatus) {
+        catalogLock.readLock().lock();
+        orderLock.writeLock().lock();
+        inventoryLock.readLock().lock();
+        try {
+            Order o = findOrderById(orderId);
+            if (o == null) {
+                return false;
+            }
+            changeStatus(o, newStatus);
+            return true;
+        } finally {
+            inventoryLock.readLock().unlock();
+            orderLock.writeLock().unlock();
+            catalogLock.readLock().unlock();
+            awaitJournal();
+        }
+    }
+
+    /**
+     * Moves the order that has had status "from" the longest to status "to",
+     * in one step, so two fulfillment workers never get the same order
+     * (e.g. takeOldestOrder(PENDING, SHIPPED) ships the next order in line).
+     * (Time Complexity: O(1), plus O(L) to restock L line items when canceling)
+     * @return The order that was moved, or null if no order has status "from".
+     * @throws IllegalArgumentException if "from" cannot change to "to".
+     */
+    public Order takeOldestOrder(OrderStatus from, OrderStatus to) {
+        if (from == to || !from.canMoveTo(to)) {
+            throw new IllegalArgumentException("An order cannot go from " + from + " to " + to);
+        }
+        catalogLock.readLock().lock();
+        orderLock.writeLock().lock();
+        inventoryLock.readLock().lock();
+        try {
+            Order o = orderStatusIndex.oldest(from);
+            if (o != null) {
+                changeStatus(o, to);
+            }
+            return o;
+        } finally {
+            inventoryLock.readLock().unlock();
+            orderLock.writeLock().unlock();
+            catalogLock.readLock().unlock();
+            awaitJournal();
+        }
+    }
+
+    // Called with the catalog (read), order (write) and inventory (read) locks held
+    private void changeStatus(Order o, OrderStatus newStatus) {
+        boolean canceling = newStatus == OrderStatus.CANCELED && o.getStatus() != OrderStatus.CANCELED;
+        o.updateStatus(newStatus);
+        if (canceling && o.isStockTaken()) {
+            // The items were never delivered: put them back into the stock
+            for (int line = 0; line < o.getLineCount(); line++) {
+                o.getLineProduct(line).releaseStock(o.getLineQuantity(line));
+            }
+        }
+    }
+
+    /**
+     * Returns how many orders have a status.
+     * (Time Complexity: O(1))
+     */
+    public int getOrderCount(OrderStatus status) {
+        orderLock.readLock().lock();
+        try {
+            return orderStatusIndex.count(status);
+        } finally {
+            orderLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the orders with a status, in the order they reached it
+     * (for PENDING: the order they should be shipped in).
+     * (Time Complexity: O(K), K = orders with that status)
+     */
+    public MyLinkedList<Order> getOrdersByStatus(OrderStatus status) {
+        orderLock.readLock().lock();
+        try {
+            return orderStatusIndex.list(status);
+        } finally {
+            orderLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the revenue of every order that was not canceled.
+     * The totals are whole cents added up as a long, so the result is exact
+     * and the same whether the scan runs in parallel or not.
+     * (Time Complexity: O(N) - a parallel scan when there are many orders)
+     */
+    public double getTotalRevenue() {
+        orderLock.readLock().lock();
+        try {
+            long cents = scan(allOrders, allOrders.size())
+                .filter(o -> o.getStatus() != OrderStatus.CANCELED)
+                .mapToLong(Order::getTotalCents)
+                .sum();
+            return cents / 100.0;
+        } finally {
+            orderLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns a copy of a customer's order history (safe to walk while
+     * other threads place orders).
+     * @return The orders, oldest first, or null if the customer does not exist.
+     */
+    public MyLinkedList<Order> getCustomerOrders(String customerId) {
+        Customer c = findCustomerById(customerId);
+        if (c == null) {
+            return null;
+        }
+        orderLock.readLock().lock();
+        try {
+            MyLinkedList<Order> copy = new MyLinkedList<>();
+            for (Order o : c.getOrderHistory()) {
+                copy.add(o);
             }
+            return copy;
+        } finally {
+            orderLock.readLock().unlock();
         }
-        return null; // Not found
     }
 
     // =================================================================
     // --- SECTION 3: Complex Queries (from PDF Page 2) ---
     // =================================================================
 
+    /**
+     * Returns every review written by a customer.
+     * (Time Complexity: O(reviews by that customer) - read from the review index)
+     */
     public MyLinkedList<Review> extractCustomerReviews(String customerId) {
-        MyLinkedList<Review> customerReviews = new MyLinkedList<>();
-        for (int i = 0; i < allProducts.size(); i++) {
-            Product p = allProducts.get(i);
-            MyLinkedList<Review> productReviews = p.getReviews();
-            for (int j = 0; j < productReviews.size(); j++) {
-                Review r = productReviews.get(j);
-                if (r.getCustomerId().equals(customerId)) {
-                    customerReviews.add(r);
-                }
+        catalogLock.readLock().lock();
+        try {
+            MyLinkedList<Review> customerReviews = new MyLinkedList<>();
+            for (Review r : customerReviewIndex.get(customerId)) {
+                customerReviews.add(r);
             }
+            return customerReviews;
+        } finally {
+            catalogLock.readLock().unlock();
         }
-        return customerReviews;
     }
 
+    /**
+     * Returns the 3 best-rated products (that have at least one review).
+     * (Time Complexity: O(1) - read from the live leaderboard)
+     */
     public MyLinkedList<Product> getTop3Products() {
-        Product top1 = null, top2 = null, top3 = null;
-        double avg1 = -1, avg2 = -1, avg3 = -1;
-
-        for (int i = 0; i < allProducts.size(); i++) {
-            Product p = allProducts.get(i);
-            double currentAvg = p.getAverageRating(); 
+        return getTopProducts(3, 1);
+    }
 
-            if (currentAvg > avg1) {
-                top3 = top2; avg3 = avg2;
-                top2 = top1; avg2 = avg1;
-                top1 = p; avg1 = currentAvg;
-            } else if (currentAvg > avg2) {
-                top3 = top2; avg3 = avg2;
-                top2 = p; avg2 = currentAvg;
-            } else if (currentAvg > avg3) {
-                top3 = p; avg3 = currentAvg;
+    /**
+     * Returns the "k" best-rated products with at least "minReviews" reviews,
+     * best first. Ties are broken by review count, then by product ID.
+     * (Time Complexity: O(K) - read from the live leaderboard)
+     * @param k How many products to return.
+     * @param minReviews The minimum number of reviews a product needs.
+     */
+    public MyLinkedList<Product> getTopProducts(int k, int minReviews) {
+        return cachedList("top|" + k + "|" + minReviews, () -> {
+            catalogLock.readLock().lock();
+            try {
+                return leaderboard.top(k, minReviews);
+            } finally {
+                catalogLock.readLock().unlock();
             }
-        }
-        MyLinkedList<Product> top3List = new MyLinkedList<>();
-        if (top1 != null) top3List.add(top1);
-        if (top2 != null) top3List.add(top2);
-        if (top3 != null) top3List.add(top3);
-        return top3List;
+        }, QueryCache.Source.PRODUCTS, QueryCache.Source.REVIEWS);
     }
 
+    /**
+     * Returns the orders placed strictly after "startDate" and strictly
+     * before "endDate", oldest first.
+     * (Time Complexity: O(log N + K) - read from the date index)
+     */
     public MyLinkedList<Order> getOrdersBetweenDates(Date startDate, Date endDate) {
-        MyLinkedList<Order> result = new MyLinkedList<>();
-        for (int i = 0; i < allOrders.size(); i++) {
-            Order order = allOrders.get(i);
-            Date orderDate = order.getOrderDate();
-            if (orderDate.after(startDate) && orderDate.before(endDate)) {
-                result.add(order);
+        return getOrdersBetweenDates(startDate, false, endDate, false, false);
+    }
+
+    /**
+     * Returns the orders placed between two dates, with explicit bounds.
+     * (Time Complexity: O(log N + K) - read from the date index)
+     * @param startDate The start of the range.
+     * @param startInclusive true to include orders placed exactly at startDate.
+     * @param endDate The end of the range.
+     * @param endInclusive true to include orders placed exactly at endDate.
+     * @param descending true for newest first, false for oldest first.
+     */
+    public MyLinkedList<Order> getOrdersBetweenDates(Date startDate, boolean startInclusive,
+                                                     Date endDate, boolean endInclusive,
+                                                     boolean descending) {
+        String key = "orders-between|" + millis(startDate) + "|" + startInclusive + "|"
+            + millis(endDate) + "|" + endInclusive + "|" + descending;
+        return cachedList(key, () -> {
+            orderLock.readLock().lock();
+            try {
+                return orderDateIndex.range(startDate, startInclusive, endDate, endInclusive, descending);
+            } finally {
+                orderLock.readLock().unlock();
             }
-        }
-        return result;
+        }, QueryCache.Source.ORDERS);
+    }
+
+    private static String millis(Date date) {
+        return date == null ? "-" : String.valueOf(date.getTime());
     }
 
+    /**
+     * Returns the products (with an average rating above 4) that both
+     * customers have reviewed.
+     * We collect the products of the customer with fewer reviews in a hash
+     * set, then probe it with the other customer's reviews.
+     * (Time Complexity: O(R1 + R2) - the two customers' review counts)
+     */
     public MyLinkedList<Product> getCommonReviewedProducts(String customerId1, String customerId2) {
-        MyLinkedList<Product> finalResult = new MyLinkedList<>();
-        for (int i = 0; i < allProducts.size(); i++) {
-            Product p = allProducts.get(i);
-            
-            if (p.getAverageRating() > 4.0) {
-                boolean customer1Reviewed = false;
-                boolean customer2Reviewed = false;
-                MyLinkedList<Review> reviews = p.getReviews();
-                
-                for (int j = 0; j < reviews.size(); j++) {
-                    String reviewerId = reviews.get(j).getCustomerId();
-                    if (reviewerId.equals(customerId1)) {
-                        customer1Reviewed = true;
-                    }
-                    if (reviewerId.equals(customerId2)) {
-                        customer2Reviewed = true;
-                    }
-                    if (customer1Reviewed && customer2Reviewed) {
-                        break;
-                    }
+        return cachedList("common-reviewed|" + customerId1 + "|" + customerId2,
+            () -> commonReviewedProducts(customerId1, customerId2),
+            QueryCache.Source.PRODUCTS, QueryCache.Source.REVIEWS);
+    }
+
+    private MyLinkedList<Product> commonReviewedProducts(String customerId1, String customerId2) {
+        catalogLock.readLock().lock();
+        try {
+            MyLinkedList<Product> finalResult = new MyLinkedList<>();
+            MyLinkedList<Review> reviews1 = customerReviewIndex.get(customerId1);
+            MyLinkedList<Review> reviews2 = customerReviewIndex.get(customerId2);
+            if (reviews1.size() > reviews2.size()) {
+                MyLinkedList<Review> swap = reviews1;
+                reviews1 = reviews2;
+                reviews2 = swap;
+            }
+
+            // 1. The (well-rated) products reviewed by the smaller side
+            MyHashMap<Product, Boolean> candidates = new MyHashMap<>(reviews1.size());
+            for (Review r : reviews1) {
+                Product p = r.getProduct();
+                if (p != null && p.getAverageRating() > 4.0) {
+                    candidates.put(p, Boolean.FALSE); // FALSE = not reported yet
                 }
-                
-                if (customer1Reviewed && customer2Reviewed) {
+            }
+
+            // 2. Keep the ones the other customer reviewed too (each product once)
+            for (Review r : reviews2) {
+                Product p = r.getProduct();
+                if (p != null && candidates.get(p) == Boolean.FALSE) {
+                    candidates.put(p, Boolean.TRUE);
                     finalResult.add(p);
                 }
             }
+            return finalResult;
+        } finally {
+            catalogLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Runs a list query through the query cache and returns a copy of the
+     * result (the cached list is shared, but callers may change theirs).
+     * (Time Complexity: O(K) on a hit, plus the query on a miss)
+     */
+    private <T> MyLinkedList<T> cachedList(String key, Supplier<MyLinkedList<T>> query,
+                                           QueryCache.Source... sources) {
+        MyLinkedList<T> shared = queryCache.get(key, query, sources);
+        MyLinkedList<T> copy = new MyLinkedList<>();
+        for (T item : shared) {
+            copy.add(item);
         }
-        return finalResult;
+        return copy;
+    }
+
+    /**
+     * Returns the cache behind the report queries (for its hit/miss statistics).
+     */
+    public QueryCache getQueryCache() {
+        return queryCache;
+    }
+
+    // --- Lazy, paged queries ---
+    // Each cursor reads one page at a time under the read lock, resuming
+    // right after the previous page (see QueryCursor), so a caller that
+    // stops after the first page never pays for the whole result.
+    // They bypass the query cache: a page is already O(limit).
+
+    /**
+     * Opens a cursor over every product, in catalog order.
+     * (Time Complexity: O(limit) per page, plus O(N) once if the product
+     * the previous page ended on was removed in the meantime)
+     */
+    public QueryCursor<Product> cursorAllProducts() {
+        return QueryCursor.over((DNode<Product> after, int limit, MyLinkedList<Product> out) -> {
+            catalogLock.readLock().lock();
+            try {
+                // 1. Find the node after the previous page
+                DNode<Product> node = (after == null) ? allProducts.first() : allProducts.nextAfter(after);
+                // 2. Copy the page
+                DNode<Product> last = after;
+                for (int i = 0; i < limit && node != null; i++) {
+                    out.add(node.getData());
+                    last = node;
+                    node = allProducts.next(node);
+                }
+                return last;
+            } finally {
+                catalogLock.readLock().unlock();
+            }
+        });
+    }
+
+    /**
+     * Opens a cursor over every customer, in registration order.
+     * (Time Complexity: O(limit) per page, see MyLinkedList.copyAfter)
+     */
+    public QueryCursor<Customer> cursorAllCustomers() {
+        return QueryCursor.over((Node<Customer> after, int limit, MyLinkedList<Customer> out) -> {
+            customerLock.readLock().lock();
+            try {
+                return allCustomers.copyAfter(after, limit, out);
+            } finally {
+                customerLock.readLock().unlock();
+            }
+        });
+    }
+
+    /**
+     * Opens a cursor over every order, in the order they were placed.
+     * (Time Complexity: O(limit) per page, see MyLinkedList.copyAfter)
+     */
+    public QueryCursor<Order> cursorAllOrders() {
+        return QueryCursor.over((Node<Order> after, int limit, MyLinkedList<Order> out) -> {
+            orderLock.readLock().lock();
+            try {
+                return allOrders.copyAfter(after, limit, out);
+            } finally {
+                orderLock.readLock().unlock();
+            }
+        });
+    }
+
+    /**
+     * Opens a cursor over the products whose stock is exactly 0, by product ID.
+     * (Time Complexity: O(log N + limit) per page - read from the stock index)
+     */
+    public QueryCursor<Product> cursorOutOfStockProducts() {
+        return QueryCursor.over((StockIndex.StockKey after, int limit, MyLinkedList<Product> out) -> {
+            catalogLock.readLock().lock();
+            try {
+                return stockIndex.pageWithStock(0, after, limit, out);
+            } finally {
+                catalogLock.readLock().unlock();
+            }
+        });
+    }
+
+    /**
+     * Opens a cursor over the products whose stock is at or below
+     * "threshold", lowest first.
+     * (Time Complexity: O(log N + limit) per page - read from the stock index)
+     */
+    public QueryCursor<Product> cursorLowStockProducts(int threshold) {
+        return QueryCursor.over((StockIndex.StockKey after, int limit, MyLinkedList<Product> out) -> {
+            catalogLock.readLock().lock();
+            try {
+                return stockIndex.pageAtOrBelow(threshold, after, limit, out);
+            } finally {
+                catalogLock.readLock().unlock();
+            }
+        });
+    }
+
+    /**
+     * Opens a cursor over the reviews written by a customer, oldest first.
+     * (Time Complexity: O(limit) per page - read from the review index)
+     */
+    public QueryCursor<Review> cursorCustomerReviews(String customerId) {
+        return QueryCursor.over((Node<Review> after, int limit, MyLinkedList<Review> out) -> {
+            catalogLock.readLock().lock();
+            try {
+                return customerReviewIndex.page(customerId, after, limit, out);
+            } finally {
+                catalogLock.readLock().unlock();
+            }
+        });
+    }
+
+    /**
+     * Opens a cursor over the orders placed between two dates, with the
+     * same bounds as getOrdersBetweenDates.
+     * (Time Complexity: O(log N + limit) per page - read from the date index)
+     */
+    public QueryCursor<Order> cursorOrdersBetweenDates(Date startDate, boolean startInclusive,
+                                                       Date endDate, boolean endInclusive,
+                                                       boolean descending) {
+        return QueryCursor.over((OrderDateIndex.OrderKey after, int limit, MyLinkedList<Order> out) -> {
+            orderLock.readLock().lock();
+            try {
+                return orderDateIndex.page(startDate, startInclusive, endDate, endInclusive,
+                    descending, after, limit, out);
+            } finally {
+                orderLock.readLock().unlock();
+            }
+        });
     }
     
 /**
- * Returns the entire list of customers in the system.
+ * Returns the entire list of customers in the system (a copy).
  * @return The MyLinkedList of all customers.
  */
 public MyLinkedList<Customer> getAllCustomers() {
-    return this.allCustomers;
+    return copyOf(allCustomers, customerLock);
 }
 public String getNewProductId() {
-        return String.valueOf(productCounter++);
+        return String.valueOf(productCounter.getAndIncrement());
     }
 public String getNewCustomerId() {
-        return String.valueOf(customerCounter++);
+        return String.valueOf(customerCounter.getAndIncrement());
     }
 public MyLinkedList<Order> getAllOrders() {
-        return this.allOrders;
+        return copyOf(allOrders, orderLock);
     }
 // ==========================================================
     // --- ( METHODS that were missing) ---
     // ==========================================================
 
     /**
-     *  "Search by ID or name (linear)"
-     * Finds a product by its *name*.
-     * (We already had findById)
+     *  "Search by ID or name"
+     * Finds a product by its *name* (ignoring case). If several products
+     * share the name, the one with the smallest product ID is returned
+     * (numeric IDs compare as numbers, so "999" comes before "1000").
+     * (Time Complexity: O(log N) - read from the name index)
      */
     public Product findProductByName(String name) {
-        for (int i = 0; i < allProducts.size(); i++) {
-            Product p = allProducts.get(i);
-            // Use .equalsIgnoreCase() for a better search
-            if (p.getName().equalsIgnoreCase(name)) {
-                return p;
-            }
+        catalogLock.readLock().lock();
+        try {
+            return nameIndex.findFirst(name); // null if not found
+        } finally {
+            catalogLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Finds every product with this name (ignoring case).
+     * (Time Complexity: O(log N + K) - read from the name index)
+     */
+    public MyLinkedList<Product> findAllProductsByName(String name) {
+        catalogLock.readLock().lock();
+        try {
+            return nameIndex.findAll(name);
+        } finally {
+            catalogLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Finds up to "limit" products whose name starts with "prefix"
+     * (ignoring case), in alphabetical order. Used for autocomplete.
+     * (Time Complexity: O(log N + limit) - read from the name index)
+     */
+    public MyLinkedList<Product> searchProductsByPrefix(String prefix, int limit) {
+        catalogLock.readLock().lock();
+        try {
+            return nameIndex.findByPrefix(prefix, limit);
+        } finally {
+            catalogLock.readLock().unlock();
         }
-        return null; // Not found
     }
 
     /**
      *  "Create/cancel order"
-     * Cancels an order by updating its status.
-     
+     * Cancels an order by updating its status, and puts its items back
+     * into the stock (only the first time: canceling twice restocks once).
+     * @throws IllegalStateException if the order was already delivered.
      */
     public boolean cancelOrder(String orderId) {
-        // First, find the order
-        Order o = findOrderById(orderId);
-        
-        if (o != null) {
-            // If found, update its status
-            o.updateStatus("canceled");
-            
-            // (Optional: We should also return the stock)
-            // (But for simplicity, we just cancel it)
-            return true; // Success
-        }
-        return false; // Order not found
+        return updateOrderStatus(orderId, OrderStatus.CANCELED);
     }
 }
\ No newline at end of file
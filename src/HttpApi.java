@@ -0,0 +1,719 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ *
+ * @author mraah
+ */
+/**
+ * An embedded HTTP/JSON interface to an ECommerceSystem, built on the
+ * JDK's com.sun.net.httpserver. Every request runs on its own virtual
+ * thread, so thousands of slow or waiting clients cost very little, and
+ * the system's own locks keep concurrent requests correct.
+ *
+ * Endpoints (bodies and answers are JSON; dates are yyyy-MM-dd):
+ *   GET    /products                        POST /products {name, price, stock}
+ *   GET    /products/{id}                   PUT  /products/{id} {name?, price?, stock?}
+ *   DELETE /products/{id}                   POST /products/{id}/stock {delta}
+ *   GET    /products/{id}/reviews           POST /products/{id}/reviews {customerId, rating, comment}
+ *   PUT    /products/{id}/reviews/{customerId} {rating, comment}
+ *   DELETE /products/{id}/reviews/{customerId}
+ *   GET    /customers                       POST /customers {name, email}
+ *   GET    /customers/{id}    GET /customers/{id}/orders    GET /customers/{id}/reviews
+ *   GET    /orders                          POST /orders {customerId, productIds: [..]}
+ *   GET    /orders/{id}   DELETE /orders/{id} (cancel)   PUT /orders/{id}/status {status}
+ *   GET    /queries/top?k=3&minReviews=1    GET /queries/out-of-stock
+ *   GET    /queries/low-stock?threshold=5   GET /queries/price-range?min=&max=
+ *   GET    /queries/inventory-value         GET /queries/search?name= (or ?prefix=&limit=)
+ *   GET    /queries/revenue                 GET /queries/average-rating
+ *   GET    /queries/orders-between?start=&end=
+ *   GET    /queries/status-counts           GET /queries/orders-by-status?status=
+ *   GET    /queries/cache-stats
+ *   GET    /queries/common-reviewed?customer1=&customer2=
+ *
+ * The list answers (GET /products, /customers, /orders,
+ * /customers/{id}/reviews, /queries/out-of-stock, /queries/low-stock and
+ * /queries/orders-between) take ?offset=&limit= to return just one page;
+ * it is read lazily, so the rest of the list is never walked or copied.
+ *
+ * Errors are answered as {"error": "..."} with status 400 (bad request),
+ * 404 (not found), 405 (wrong method) or 409 (out of stock, or a status
+ * change that is not allowed, such as canceling a delivered order).
+ */
+public class HttpApi {
+
+    /**
+     * An error with the HTTP status to answer it with.
+     */
+    private static final class ApiException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+        final int status;
+
+        ApiException(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+
+    // The page size when only ?offset= is given, and the largest one allowed
+    private static final int DEFAULT_PAGE_LIMIT = 50;
+    private static final int MAX_PAGE_LIMIT = 1000;
+
+    // Request bodies larger than this are refused (413) without reading them all
+    private static final int MAX_BODY_BYTES = 1 << 20;
+
+    private final ECommerceSystem system;
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    /**
+     * Creates the server (call start() to begin answering requests).
+     * @param system The system to serve.
+     * @param port The TCP port (0 picks a free one; see getPort()).
+     * @throws IOException if the port cannot be opened.
+     */
+    public HttpApi(ECommerceSystem system, int port) throws IOException {
+        this.system = system;
+        // Send each answer at once: with Nagle's algorithm the body waits
+        // ~40 ms for the client to acknowledge the headers
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+        this.server = HttpServer.create(new InetSocketAddress(port), 0);
+        this.executor = Executors.newVirtualThreadPerTaskExecutor();
+        server.setExecutor(executor);
+        server.createContext("/", this::handle);
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Stops the server, letting requests in progress finish (up to 1 second).
+     */
+    public void stop() {
+        server.stop(1);
+        executor.shutdown();
+    }
+
+    // =================================================================
+    // --- Request handling ---
+    // =================================================================
+
+    /**
+     * Handles one request: routes it, and sends the JSON answer or the error.
+     */
+    private void handle(HttpExchange exchange) throws IOException {
+        int status;
+        String body;
+        try {
+            String method = exchange.getRequestMethod();
+            String[] path = splitPath(exchange.getRequestURI().getPath());
+            Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+            String requestBody = readBody(exchange);
+            status = "POST".equals(method) && path.length == 1 ? 201 : 200;
+            body = route(method, path, query, requestBody);
+        } catch (ApiException e) {
+            status = e.status;
+            body = error(e.getMessage());
+        } catch (IllegalArgumentException e) {
+            status = 400;
+            body = error(e.getMessage());
+        } catch (IllegalStateException e) {
+            status = 409;
+            body = error(e.getMessage());
+        } catch (RuntimeException e) {
+            status = 500;
+            body = error("Internal error: " + e);
+        }
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * Picks the endpoint from the first path part.
+     */
+    private String route(String method, String[] path, Map<String, String> query, String body) {
+        if (path.length == 0) {
+            throw new ApiException(404, "Try /products, /customers, /orders or /queries/...");
+        }
+        switch (path[0]) {
+            case "products": return products(method, path, query, body);
+            case "customers": return customers(method, path, query, body);
+            case "orders": return orders(method, path, query, body);
+            case "queries": return queries(method, path, query);
+            default: throw new ApiException(404, "Unknown resource: /" + path[0]);
+        }
+    }
+
+    // --- /products ---
+    private String products(String method, String[] path, Map<String, String> query, String body) {
+        if (path.length == 1) {
+            if (method.equals("GET")) {
+                return productList(paged(query) ? page(system.cursorAllProducts(), query) : system.getAllProducts());
+            }
+            allow(method, "POST");
+            Map<String, Object> in = Json.parseObject(body);
+            Product p = new Product(system.getNewProductId(), requiredString(in, "name"),
+                positivePrice(requiredNumber(in, "price")), stock(requiredInt(in, "stock")));
+            if (!system.addProduct(p)) {
+                throw new ApiException(409, "Product ID " + p.getProductId() + " is already taken");
+            }
+            return productJson(new Json.Writer(), p).toString();
+        }
+        String id = path[1];
+        if (path.length == 2) {
+            switch (method) {
+                case "GET":
+                    return productJson(new Json.Writer(), product(id)).toString();
+                case "PUT": {
+                    product(id);
+                    Map<String, Object> in = Json.parseObject(body);
+                    // Check every field first, so a bad one changes nothing
+                    String name = in.containsKey("name") ? requiredString(in, "name") : null;
+                    Double price = in.containsKey("price") ? positivePrice(requiredNumber(in, "price")) : null;
+                    Integer stock = in.containsKey("stock") ? stock(requiredInt(in, "stock")) : null;
+                    if (name != null) {
+                        system.updateName(id, name);
+                    }
+                    if (price != null) {
+                        system.updatePrice(id, price);
+                    }
+                    if (stock != null) {
+                        system.updateStock(id, stock);
+                    }
+                    return productJson(new Json.Writer(), product(id)).toString();
+                }
+                case "DELETE":
+                    product(id);
+                    system.removeProduct(id);
+                    return new Json.Writer().beginObject().field("deleted").value(id).endObject().toString();
+                default:
+                    throw methodNotAllowed(method);
+            }
+        }
+        if (path.length == 3 && path[2].equals("stock")) {
+            allow(method, "POST");
+            int delta = requiredInt(Json.parseObject(body), "delta");
+            product(id);
+            int stock = system.adjustStock(id, delta);
+            if (stock < 0) {
+                throw new ApiException(409, "Not enough stock for product " + id);
+            }
+            return new Json.Writer().beginObject().field("productId").value(id)
+                .field("stock").value(stock).endObject().toString();
+        }
+        if (path.length == 3 && path[2].equals("reviews")) {
+            if (method.equals("GET")) {
+                MyLinkedList<Review> reviews = system.getProductReviews(id);
+                if (reviews == null) {
+                    throw notFound("product", id);
+                }
+                return reviewList(reviews);
+            }
+            allow(method, "POST");
+            Map<String, Object> in = Json.parseObject(body);
+            String customerId = customer(requiredString(in, "customerId")).getCustomerId();
+            Review r = new Review(customerId, rating(requiredInt(in, "rating")), optionalString(in, "comment"));
+            if (!system.addReview(id, r)) {
+                throw notFound("product", id);
+            }
+            return reviewJson(new Json.Writer(), r).toString();
+        }
+        if (path.length == 4 && path[2].equals("reviews")) {
+            String customerId = path[3];
+            switch (method) {
+                case "PUT": {
+                    Map<String, Object> in = Json.parseObject(body);
+                    if (!system.editReview(id, customerId, optionalString(in, "comment"), rating(requiredInt(in, "rating")))) {
+                        throw new ApiException(404, "No review by customer " + customerId + " on product " + id);
+                    }
+                    return new Json.Writer().beginObject().field("updated").value(true).endObject().toString();
+                }
+                case "DELETE":
+                    if (!system.removeReview(id, customerId)) {
+                        throw new ApiException(404, "No review by customer " + customerId + " on product " + id);
+                    }
+                    return new Json.Writer().beginObject().field("deleted").value(true).endObject().toString();
+                default:
+                    throw methodNotAllowed(method);
+            }
+        }
+        throw new ApiException(404, "Unknown path");
+    }
+
+    // --- /customers ---
+    private String customers(String method, String[] path, Map<String, String> query, String body) {
+        if (path.length == 1) {
+            if (method.equals("GET")) {
+                Json.Writer w = new Json.Writer().beginArray();
+                for (Customer c : paged(query) ? page(system.cursorAllCustomers(), query) : system.getAllCustomers()) {
+                    customerJson(w, c);
+                }
+                return w.endArray().toString();
+            }
+            allow(method, "POST");
+            Map<String, Object> in = Json.parseObject(body);
+            Customer c = new Customer(system.getNewCustomerId(), requiredString(in, "name"), requiredString(in, "email"));
+            if (!system.registerNewCustomer(c)) {
+                throw new ApiException(409, "Customer ID " + c.getCustomerId() + " is already taken");
+            }
+            return customerJson(new Json.Writer(), c).toString();
+        }
+        allow(method, "GET");
+        Customer c = customer(path[1]);
+        if (path.length == 2) {
+            return customerJson(new Json.Writer(), c).toString();
+        }
+        if (path.length == 3 && path[2].equals("orders")) {
+            return orderList(system.getCustomerOrders(c.getCustomerId()));
+        }
+        if (path.length == 3 && path[2].equals("reviews")) {
+            return reviewList(paged(query) ? page(system.cursorCustomerReviews(c.getCustomerId()), query)
+                : system.extractCustomerReviews(c.getCustomerId()));
+        }
+        throw new ApiException(404, "Unknown path");
+    }
+
+    // --- /orders ---
+    private String orders(String method, String[] path, Map<String, String> query, String body) {
+        if (path.length == 1) {
+            if (method.equals("GET")) {
+                return orderList(paged(query) ? page(system.cursorAllOrders(), query) : system.getAllOrders());
+            }
+            allow(method, "POST");
+            return orderJson(new Json.Writer(), placeOrder(Json.parseObject(body))).toString();
+        }
+        String id = path[1];
+        if (path.length == 2) {
+            switch (method) {
+                case "GET":
+                    return orderJson(new Json.Writer(), order(id)).toString();
+                case "DELETE":
+                    if (!system.cancelOrder(id)) {
+                        throw notFound("order", id);
+                    }
+                    return orderJson(new Json.Writer(), order(id)).toString();
+                default:
+                    throw methodNotAllowed(method);
+            }
+        }
+        if (path.length == 3 && path[2].equals("status")) {
+            allow(method, "PUT");
+            if (!system.updateOrderStatus(id, requiredString(Json.parseObject(body), "status"))) {
+                throw notFound("order", id);
+            }
+            return orderJson(new Json.Writer(), order(id)).toString();
+        }
+        throw new ApiException(404, "Unknown path");
+    }
+
+    /**
+     * Places an order for one unit of each listed product. The stock is
+     * reserved for all of them at once; if one is sold out, nothing is
+     * ordered.
+     */
+    private Order placeOrder(Map<String, Object> in) {
+        String customerId = customer(requiredString(in, "customerId")).getCustomerId();
+        Object ids = in.get("productIds");
+        if (!(ids instanceof List) || ((List<?>) ids).isEmpty()) {
+            throw new IllegalArgumentException("\"productIds\" must be a non-empty array");
+        }
+        List<?> productIds = (List<?>) ids;
+        MyLinkedList<Product> items = new MyLinkedList<>();
+        for (Object o : productIds) {
+            if (!(o instanceof String)) {
+                throw new IllegalArgumentException("\"productIds\" must hold strings");
+            }
+            items.add(product((String) o));
+        }
+        // 1. Reserve the stock (all or nothing)
+        Reservation reservation = system.reserveStock(items);
+        if (reservation == null) {
+            throw new ApiException(409, "Some products are out of stock");
+        }
+        // 2. Place the order
+        Order order = new Order(system.getNewOrderId(), customerId, new Date());
+        for (Product p : items) {
+            order.addProductToOrder(p);
+        }
+        if (!system.placeReservedOrder(customerId, order, reservation)) {
+            if (system.findCustomerById(customerId) == null) {
+                throw new ApiException(404, "No customer with ID " + customerId);
+            }
+            throw new ApiException(409, "Order ID " + order.getOrderId() + " is already taken");
+        }
+        return order;
+    }
+
+    // --- /queries ---
+    private String queries(String method, String[] path, Map<String, String> query) {
+        allow(method, "GET");
+        if (path.length != 2) {
+            throw new ApiException(404, "Unknown query");
+        }
+        switch (path[1]) {
+            case "top":
+                return productList(system.getTopProducts(intParam(query, "k", 3), intParam(query, "minReviews", 1)));
+            case "out-of-stock":
+                return productList(paged(query) ? page(system.cursorOutOfStockProducts(), query)
+                    : system.getOutOfStockProducts());
+            case "low-stock": {
+                int threshold = intParam(query, "threshold", 5);
+                return productList(paged(query) ? page(system.cursorLowStockProducts(threshold), query)
+                    : system.getLowStockProducts(threshold));
+            }
+            case "price-range":
+                return productList(system.getProductsInPriceRange(
+                    doubleParam(query, "min", 0), doubleParam(query, "max", Double.MAX_VALUE)));
+            case "inventory-value":
+                return new Json.Writer().beginObject().field("value").value(system.getTotalInventoryValue())
+                    .endObject().toString();
+            case "revenue":
+                return new Json.Writer().beginObject().field("value").value(system.getTotalRevenue())
+                    .endObject().toString();
+            case "average-rating":
+                return new Json.Writer().beginObject().field("value").value(system.getAverageCatalogRating())
+                    .endObject().toString();
+            case "search":
+                if (query.containsKey("name")) {
+                    return productList(system.findAllProductsByName(query.get("name")));
+                }
+                return productList(system.searchProductsByPrefix(requiredParam(query, "prefix"),
+                    intParam(query, "limit", 10)));
+            case "orders-between": {
+                Date start = dateParam(query, "start");
+                Date end = dateParam(query, "end");
+                return orderList(paged(query) ? page(system.cursorOrdersBetweenDates(start, false, end, false, false), query)
+                    : system.getOrdersBetweenDates(start, end));
+            }
+            case "status-counts": {
+                Json.Writer w = new Json.Writer().beginObject();
+                for (OrderStatus st : OrderStatus.values()) {
+                    w.field(st.getLabel()).value(system.getOrderCount(st));
+                }
+                return w.endObject().toString();
+            }
+            case "orders-by-status":
+                return orderList(system.getOrdersByStatus(OrderStatus.parse(requiredParam(query, "status"))));
+            case "cache-stats": {
+                QueryCache cache = system.getQueryCache();
+                return new Json.Writer().beginObject()
+                    .field("entries").value(cache.size()).field("capacity").value(cache.getCapacity())
+                    .field("hits").value(cache.getHits()).field("misses").value(cache.getMisses())
+                    .field("hitRate").value(cache.getHitRate()).field("stale").value(cache.getStaleDrops())
+                    .field("evictions").value(cache.getEvictions())
+                    .endObject().toString();
+            }
+            case "common-reviewed":
+                return productList(system.getCommonReviewedProducts(
+                    customer(requiredParam(query, "customer1")).getCustomerId(),
+                    customer(requiredParam(query, "customer2")).getCustomerId()));
+            default:
+                throw new ApiException(404, "Unknown query: " + path[1]);
+        }
+    }
+
+    // =================================================================
+    // --- JSON output ---
+    // =================================================================
+
+    private static Json.Writer productJson(Json.Writer w, Product p) {
+        return w.beginObject()
+            .field("productId").value(p.getProductId())
+            .field("name").value(p.getName())
+            .field("price").value(p.getPrice())
+            .field("stock").value(p.getStock())
+            .field("averageRating").value(p.getAverageRating())
+            .field("reviewCount").value(p.getRatingCount())
+            .endObject();
+    }
+
+    private static Json.Writer customerJson(Json.Writer w, Customer c) {
+        return w.beginObject()
+            .field("customerId").value(c.getCustomerId())
+            .field("name").value(c.getName())
+            .field("email").value(c.getEmail())
+            .endObject();
+    }
+
+    private static Json.Writer orderJson(Json.Writer w, Order o) {
+        w.beginObject()
+            .field("orderId").value(o.getOrderId())
+            .field("customerId").value(o.getCustomerId())
+            .field("orderDate").value(formatDate(o.getOrderDate()))
+            .field("status").value(o.getStatus().getLabel())
+            .field("totalPrice").value(o.getTotalPrice())
+            .field("productIds").beginArray();
+        for (int line = 0; line < o.getLineCount(); line++) {
+            for (int q = 0; q < o.getLineQuantity(line); q++) {
+                w.value(o.getLineProduct(line).getProductId());
+            }
+        }
+        w.endArray().field("lines").beginArray();
+        for (int line = 0; line < o.getLineCount(); line++) {
+            w.beginObject()
+                .field("productId").value(o.getLineProduct(line).getProductId())
+                .field("quantity").value(o.getLineQuantity(line))
+                .field("unitPrice").value(o.getLineUnitCents(line) / 100.0)
+                .endObject();
+        }
+        return w.endArray().endObject();
+    }
+
+    private static Json.Writer reviewJson(Json.Writer w, Review r) {
+        return w.beginObject()
+            .field("productId").value(r.getProduct() == null ? null : r.getProduct().getProductId())
+            .field("customerId").value(r.getCustomerId())
+            .field("rating").value(r.getRatingScore())
+            .field("comment").value(r.getTextComment())
+            .endObject();
+    }
+
+    private static String productList(MyLinkedList<Product> products) {
+        Json.Writer w = new Json.Writer().beginArray();
+        for (Product p : products) {
+            productJson(w, p);
+        }
+        return w.endArray().toString();
+    }
+
+    private static String orderList(MyLinkedList<Order> orders) {
+        Json.Writer w = new Json.Writer().beginArray();
+        for (Order o : orders) {
+            orderJson(w, o);
+        }
+        return w.endArray().toString();
+    }
+
+    private static String reviewList(MyLinkedList<Review> reviews) {
+        Json.Writer w = new Json.Writer().beginArray();
+        for (Review r : reviews) {
+            reviewJson(w, r);
+        }
+        return w.endArray().toString();
+    }
+
+    private static String error(String message) {
+        return new Json.Writer().beginObject().field("error").value(message).endObject().toString();
+    }
+
+    // =================================================================
+    // --- Small helpers ---
+    // =================================================================
+
+    private Product product(String id) {
+        Product p = system.findProductById(id);
+        if (p == null) {
+            throw notFound("product", id);
+        }
+        return p;
+    }
+
+    private Customer customer(String id) {
+        Customer c = system.findCustomerById(id);
+        if (c == null) {
+            throw notFound("customer", id);
+        }
+        return c;
+    }
+
+    private Order order(String id) {
+        Order o = system.findOrderById(id);
+        if (o == null) {
+            throw notFound("order", id);
+        }
+        return o;
+    }
+
+    private static ApiException notFound(String what, String id) {
+        return new ApiException(404, "No " + what + " with ID " + id);
+    }
+
+    private static ApiException methodNotAllowed(String method) {
+        return new ApiException(405, "Method " + method + " is not allowed here");
+    }
+
+    private static void allow(String method, String expected) {
+        if (!method.equals(expected)) {
+            throw methodNotAllowed(method);
+        }
+    }
+
+    private static String requiredString(Map<String, Object> in, String field) {
+        Object v = in.get(field);
+        if (!(v instanceof String) || ((String) v).isEmpty()) {
+            throw new IllegalArgumentException("\"" + field + "\" must be a non-empty string");
+        }
+        return (String) v;
+    }
+
+    private static String optionalString(Map<String, Object> in, String field) {
+        Object v = in.get(field);
+        if (v != null && !(v instanceof String)) {
+            throw new IllegalArgumentException("\"" + field + "\" must be a string");
+        }
+        return (v == null) ? "" : (String) v;
+    }
+
+    private static double requiredNumber(Map<String, Object> in, String field) {
+        Object v = in.get(field);
+        if (!(v instanceof Double)) {
+            throw new IllegalArgumentException("\"" + field + "\" must be a number");
+        }
+        return (Double) v;
+    }
+
+    private static int requiredInt(Map<String, Object> in, String field) {
+        double v = requiredNumber(in, field);
+        if (v != Math.rint(v) || Math.abs(v) > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("\"" + field + "\" must be a whole number");
+        }
+        return (int) v;
+    }
+
+    private static double positivePrice(double price) {
+        if (!(price > 0)) {
+            throw new IllegalArgumentException("Price must be greater than 0");
+        }
+        return price;
+    }
+
+    private static int stock(int stock) {
+        if (stock < 0) {
+            throw new IllegalArgumentException("Stock cannot be negative");
+        }
+        return stock;
+    }
+
+    private static int rating(int rating) {
+        if (rating < 1 || rating > 5) {
+            throw new IllegalArgumentException("Rating must be 1 to 5");
+        }
+        return rating;
+    }
+
+    private static String requiredParam(Map<String, String> query, String name) {
+        String v = query.get(name);
+        if (v == null || v.isEmpty()) {
+            throw new IllegalArgumentException("Missing query parameter \"" + name + "\"");
+        }
+        return v;
+    }
+
+    /**
+     * Checks if a list request asks for one page (?limit=, with an optional ?offset=).
+     */
+    private static boolean paged(Map<String, String> query) {
+        return query.containsKey("limit") || query.containsKey("offset");
+    }
+
+    /**
+     * Reads the page a request asks for from a cursor: only offset + limit
+     * results are ever read, and only "limit" of them are kept.
+     */
+    private static <T> MyLinkedList<T> page(QueryCursor<T> cursor, Map<String, String> query) {
+        int offset = intParam(query, "offset", 0);
+        int limit = intParam(query, "limit", DEFAULT_PAGE_LIMIT);
+        if (offset < 0 || limit < 1 || limit > MAX_PAGE_LIMIT) {
+            throw new IllegalArgumentException("offset must be 0 or more and limit between 1 and " + MAX_PAGE_LIMIT);
+        }
+        return cursor.skip(offset).nextPage(limit);
+    }
+
+    private static int intParam(Map<String, String> query, String name, int defaultValue) {
+        String v = query.get(name);
+        if (v == null) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(v);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Query parameter \"" + name + "\" must be a whole number");
+        }
+    }
+
+    private static double doubleParam(Map<String, String> query, String name, double defaultValue) {
+        String v = query.get(name);
+        if (v == null) {
+            return defaultValue;
+        }
+        try {
+            return Double.parseDouble(v);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Query parameter \"" + name + "\" must be a number");
+        }
+    }
+
+    /**
+     * Reads a yyyy-MM-dd parameter as the start of that day (like the menu does).
+     */
+    private static Date dateParam(Map<String, String> query, String name) {
+        try {
+            LocalDate day = LocalDate.parse(requiredParam(query, name));
+            return Date.from(day.atStartOfDay(ZoneId.systemDefault()).toInstant());
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Query parameter \"" + name + "\" must be a yyyy-MM-dd date");
+        }
+    }
+
+    private static String formatDate(Date date) {
+        return (date == null) ? null : date.toInstant().atZone(ZoneId.systemDefault()).toLocalDate().toString();
+    }
+
+    /**
+     * Splits "/products/101/reviews" into ["products", "101", "reviews"].
+     */
+    private static String[] splitPath(String path) {
+        String trimmed = path.replaceAll("^/+|/+$", "");
+        return trimmed.isEmpty() ? new String[0] : trimmed.split("/+");
+    }
+
+    private static Map<String, String> parseQuery(String rawQuery) {
+        Map<String, String> params = new HashMap<>();
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return params;
+        }
+        for (String pair : rawQuery.split("&")) {
+            int eq = pair.indexOf('=');
+            String key = (eq < 0) ? pair : pair.substring(0, eq);
+            String value = (eq < 0) ? "" : pair.substring(eq + 1);
+            params.put(URLDecoder.decode(key, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return params;
+    }
+
+    private static String readBody(HttpExchange exchange) throws IOException {
+        try (InputStream in = exchange.getRequestBody()) {
+            byte[] bytes = in.readNBytes(MAX_BODY_BYTES + 1);
+            if (bytes.length > MAX_BODY_BYTES) {
+                throw new ApiException(413, "The request body is larger than " + MAX_BODY_BYTES + " bytes");
+            }
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,356 @@
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ *
+ * @author mraah
+ */
+/**
+ * A small hand-written JSON reader and writer for the HTTP API.
+ * parse() turns a JSON text into Maps (objects), Lists (arrays), Strings,
+ * Doubles (numbers), Booleans and null. The Writer appends JSON to a
+ * StringBuilder and puts the commas in for us.
+ * (Time Complexity: O(length of the text) for both)
+ */
+public final class Json {
+
+    private Json() {
+    }
+
+    // =================================================================
+    // --- Reading ---
+    // =================================================================
+
+    // Objects and arrays nested deeper than this are rejected (the parser
+    // recurses once per level, so a hostile text cannot overflow the stack)
+    private static final int MAX_DEPTH = 64;
+
+    /**
+     * Parses a JSON text.
+     * @throws IllegalArgumentException if the text is not valid JSON, or
+     *         nests objects/arrays more than MAX_DEPTH levels deep.
+     */
+    public static Object parse(String text) {
+        Parser p = new Parser(text);
+        p.skipSpaces();
+        Object value = p.readValue();
+        p.skipSpaces();
+        if (p.pos != text.length()) {
+            throw p.error("unexpected text after the value");
+        }
+        return value;
+    }
+
+    /**
+     * Parses a JSON text that must be an object (an empty text counts as {}).
+     * @throws IllegalArgumentException if the text is not a JSON object.
+     */
+    @SuppressWarnings("unchecked")
+    public static Map<String, Object> parseObject(String text) {
+        if (text == null || text.isBlank()) {
+            return new LinkedHashMap<>();
+        }
+        Object value = parse(text);
+        if (!(value instanceof Map)) {
+            throw new IllegalArgumentException("expected a JSON object");
+        }
+        return (Map<String, Object>) value;
+    }
+
+    /**
+     * A recursive-descent parser over one text.
+     */
+    private static final class Parser {
+        private final String text;
+        private int pos;
+        private int depth; // How many objects/arrays we are inside
+
+        Parser(String text) {
+            this.text = text;
+        }
+
+        Object readValue() {
+            if (pos >= text.length()) {
+                throw error("unexpected end of text");
+            }
+            char ch = text.charAt(pos);
+            switch (ch) {
+                case '{':
+                case '[': {
+                    if (++depth > MAX_DEPTH) {
+                        throw error("nested more than " + MAX_DEPTH + " levels deep");
+                    }
+                    Object value = (ch == '{') ? readObject() : readArray();
+                    depth--;
+                    return value;
+                }
+                case '"': return readString();
+                case 't': expectWord("true"); return Boolean.TRUE;
+                case 'f': expectWord("false"); return Boolean.FALSE;
+                case 'n': expectWord("null"); return null;
+                default:
+                    if (ch == '-' || (ch >= '0' && ch <= '9')) {
+                        return readNumber();
+                    }
+                    throw error("unexpected character '" + ch + "'");
+            }
+        }
+
+        private Map<String, Object> readObject() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            pos++; // {
+            skipSpaces();
+            if (peek() == '}') {
+                pos++;
+                return map;
+            }
+            while (true) {
+                skipSpaces();
+                if (peek() != '"') {
+                    throw error("expected a field name");
+                }
+                String key = readString();
+                skipSpaces();
+                expect(':');
+                skipSpaces();
+                map.put(key, readValue());
+                skipSpaces();
+                if (peek() == ',') {
+                    pos++;
+                } else {
+                    expect('}');
+                    return map;
+                }
+            }
+        }
+
+        private List<Object> readArray() {
+            List<Object> list = new ArrayList<>();
+            pos++; // [
+            skipSpaces();
+            if (peek() == ']') {
+                pos++;
+                return list;
+            }
+            while (true) {
+                skipSpaces();
+                list.add(readValue());
+                skipSpaces();
+                if (peek() == ',') {
+                    pos++;
+                } else {
+                    expect(']');
+                    return list;
+                }
+            }
+        }
+
+        private String readString() {
+            pos++; // opening quote
+            StringBuilder sb = new StringBuilder();
+            while (true) {
+                if (pos >= text.length()) {
+                    throw error("unterminated string");
+                }
+                char ch = text.charAt(pos++);
+                if (ch == '"') {
+                    return sb.toString();
+                }
+                if (ch != '\\') {
+                    sb.append(ch);
+                    continue;
+                }
+                if (pos >= text.length()) {
+                    throw error("unterminated string");
+                }
+                char esc = text.charAt(pos++);
+                switch (esc) {
+                    case '"': sb.append('"'); break;
+                    case '\\': sb.append('\\'); break;
+                    case '/': sb.append('/'); break;
+                    case 'b': sb.append('\b'); break;
+                    case 'f': sb.append('\f'); break;
+                    case 'n': sb.append('\n'); break;
+                    case 'r': sb.append('\r'); break;
+                    case 't': sb.append('\t'); break;
+                    case 'u':
+                        if (pos + 4 > text.length()) {
+                            throw error("bad \\u escape");
+                        }
+                        try {
+                            sb.append((char) Integer.parseInt(text.substring(pos, pos + 4), 16));
+                        } catch (NumberFormatException e) {
+                            throw error("bad \\u escape");
+                        }
+                        pos += 4;
+                        break;
+                    default:
+                        throw error("bad escape \\" + esc);
+                }
+            }
+        }
+
+        private Double readNumber() {
+            int start = pos;
+            while (pos < text.length() && "+-0123456789.eE".indexOf(text.charAt(pos)) >= 0) {
+                pos++;
+            }
+            try {
+                return Double.valueOf(text.substring(start, pos));
+            } catch (NumberFormatException e) {
+                throw error("bad number");
+            }
+        }
+
+        private void expectWord(String word) {
+            if (!text.startsWith(word, pos)) {
+                throw error("unexpected word");
+            }
+            pos += word.length();
+        }
+
+        private void expect(char ch) {
+            if (peek() != ch) {
+                throw error("expected '" + ch + "'");
+            }
+            pos++;
+        }
+
+        private char peek() {
+            return pos < text.length() ? text.charAt(pos) : '\0';
+        }
+
+        void skipSpaces() {
+            while (pos < text.length() && Character.isWhitespace(text.charAt(pos))) {
+                pos++;
+            }
+        }
+
+        IllegalArgumentException error(String message) {
+            return new IllegalArgumentException("Invalid JSON at position " + pos + ": " + message);
+        }
+    }
+
+    // =================================================================
+    // --- Writing ---
+    // =================================================================
+
+    /**
+     * Builds a JSON text. Every value method adds a comma first when needed,
+     * so callers just write fields and values in order:
+     *   new Json.Writer().beginObject().field("id").value("101").endObject()
+     */
+    public static final class Writer {
+        private final StringBuilder sb = new StringBuilder(256);
+        // true when the next value (or field) in the current object/array needs a comma
+        private boolean needComma;
+
+        public Writer beginObject() {
+            comma();
+            sb.append('{');
+            needComma = false;
+            return this;
+        }
+
+        public Writer endObject() {
+            sb.append('}');
+            needComma = true;
+            return this;
+        }
+
+        public Writer beginArray() {
+            comma();
+            sb.append('[');
+            needComma = false;
+            return this;
+        }
+
+        public Writer endArray() {
+            sb.append(']');
+            needComma = true;
+            return this;
+        }
+
+        /**
+         * Writes a field name; the next call writes its value.
+         */
+        public Writer field(String name) {
+            comma();
+            quote(name);
+            sb.append(':');
+            needComma = false;
+            return this;
+        }
+
+        public Writer value(String s) {
+            comma();
+            if (s == null) {
+                sb.append("null");
+            } else {
+                quote(s);
+            }
+            needComma = true;
+            return this;
+        }
+
+        public Writer value(long v) {
+            comma();
+            sb.append(v);
+            needComma = true;
+            return this;
+        }
+
+        public Writer value(double v) {
+            comma();
+            if (Double.isNaN(v) || Double.isInfinite(v)) {
+                sb.append("null"); // JSON has no NaN/Infinity
+            } else {
+                sb.append(v);
+            }
+            needComma = true;
+            return this;
+        }
+
+        public Writer value(boolean v) {
+            comma();
+            sb.append(v);
+            needComma = true;
+            return this;
+        }
+
+        @Override
+        public String toString() {
+            return sb.toString();
+        }
+
+        private void comma() {
+            if (needComma) {
+                sb.append(',');
+                needComma = false;
+            }
+        }
+
+        private void quote(String s) {
+            sb.append('"');
+            for (int i = 0; i < s.length(); i++) {
+                char ch = s.charAt(i);
+                switch (ch) {
+                    case '"': sb.append("\\\""); break;
+                    case '\\': sb.append("\\\\"); break;
+                    case '\n': sb.append("\\n"); break;
+                    case '\r': sb.append("\\r"); break;
+                    case '\t': sb.append("\\t"); break;
+                    default:
+                        if (ch < 0x20) {
+                            sb.append(String.format("\\u%04x", (int) ch));
+                        } else {
+                            sb.append(ch);
+                        }
+                }
+            }
+            sb.append('"');
+        }
+    }
+}
@@ -1,17 +1,37 @@
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.Scanner;
 import java.util.Date; 
+import java.util.function.Consumer;
 
 /**
  * This is the main runnable class for the E-Commerce System.
- * (REFACTORED Version with Nested Menus and NO SAVE on exit)
+ * (REFACTORED Version with Nested Menus; saving to a snapshot is optional)
  */
 public class Main {
 
     // --- (Global Tools: We keep these as they are) ---
     private static Scanner scanner = new Scanner(System.in);
-    private static ECommerceSystem system = new ECommerceSystem();
+    // Run with -Decommerce.columnar=true to use the columnar product catalog
+    private static ECommerceSystem system = new ECommerceSystem(Boolean.getBoolean("ecommerce.columnar"));
+    // Run with -Decommerce.parallelLoad=true to parse the CSV files on all CPU cores
+    private static boolean parallelLoad = Boolean.getBoolean("ecommerce.parallelLoad");
+    // Saved by "Save and Exit", and loaded at startup instead of the CSV files
+    private static final String SNAPSHOT_FILE = "ecommerce.snapshot";
+    // Run with -Decommerce.journal=true to record every change as it happens
+    // (it stays on while the journal file exists, so no change is ever skipped)
+    private static final String JOURNAL_FILE = "ecommerce.journal";
+    private static boolean journaling = Boolean.getBoolean("ecommerce.journal") || new File(JOURNAL_FILE).isFile();
+    // How long a change may wait for others to share one disk sync
+    private static final long JOURNAL_BUDGET_MILLIS = Long.getLong("ecommerce.journal.budgetMillis", 2);
+    // Save a snapshot and empty the journal once it grows past this size
+    private static final long CHECKPOINT_BYTES = Long.getLong("ecommerce.journal.checkpointBytes", 16L << 20);
+    // How many rows the "View All" style listings print before asking for more
+    private static final int PAGE_SIZE = 20;
     private static SimpleDateFormat dateFormatter = new SimpleDateFormat("yyyy-MM-dd");
 
     
@@ -20,10 +40,20 @@ public class Main {
     // ==========================================================
     public static void main(String[] args) {
         
-        // --- Step 1: Load all data from CSV files (Same as before) ---
+        // --- Step 1: Load the saved snapshot if there is one, otherwise the CSV files ---
         System.out.println("Initializing E-Commerce System...");
         try {
-            system.readDataFromCSV("prodcuts.csv", "customers.csv", "orders.csv", "reviews.csv");
+            if (new File(SNAPSHOT_FILE).isFile() && loadSnapshot()) {
+                // Loaded from the snapshot
+            } else if (parallelLoad) {
+                system.readDataFromCSVParallel("prodcuts.csv", "customers.csv", "orders.csv", "reviews.csv",
+                        Runtime.getRuntime().availableProcessors());
+            } else {
+                system.readDataFromCSV("prodcuts.csv", "customers.csv", "orders.csv", "reviews.csv");
+            }
+            if (journaling && !openJournal()) {
+                return;
+            }
             System.out.println("--- Data Loaded Successfully ---");
         } catch (Exception e) {
             System.err.println("FATAL ERROR: Could not load data files. Exiting.");
@@ -31,6 +61,20 @@ public class Main {
             return; 
         }
 
+        // --- (Batch mode: run a script instead of the menus) ---
+        if (args.length > 0 && args[0].equals("--batch")) {
+            runBatch(args);
+            closeJournal();
+            return;
+        }
+
+        // --- (HTTP mode: serve the JSON API instead of the menus) ---
+        if (args.length > 0 && args[0].equals("--http")) {
+            runHttp(args);
+            closeJournal();
+            return;
+        }
+
         // --- Step 2: Start the NEW MAIN menu loop ---
         boolean running = true;
         while (running) {
@@ -48,6 +92,18 @@ public class Main {
                 case 3:
                     handleReportManagement(); // Go to Reports Sub-Menu
                     break;
+                case 4:
+                    // Save everything, so the next start loads it back
+                    try {
+                        system.checkpoint(SNAPSHOT_FILE); // (Also empties the journal, if there is one)
+                        System.out.println("Saved all data to " + SNAPSHOT_FILE + ".");
+                    } catch (IOException e) {
+                        System.out.println("Error: Could not save (" + e.getMessage() + "). Not exiting.");
+                        break;
+                    }
+                    running = false;
+                    System.out.println("Thank you for using the system. Goodbye!");
+                    break;
                 case 0:
                     // --- THIS IS THE CHANGE: NO SAVE ---
                     // We just set running to false and exit.
@@ -57,8 +113,12 @@ public class Main {
                 default:
                     System.out.println("Invalid choice. Please try again.");
             }
+            if (running) {
+                checkpointIfDue();
+            }
         }
         
+        closeJournal();
         scanner.close(); 
     }
 
@@ -66,6 +126,143 @@ public class Main {
     // --- ( Main Menu & Sub-Menu Handlers) ---
     // ==========================================================
 
+    /**
+     * Runs a script of operations (see BatchRunner) instead of the menus:
+     *   java Main --batch script.txt [--out results.txt] [--quiet]
+     * ("-" as the script reads it from standard input)
+     */
+    private static void runBatch(String[] args) {
+        if (args.length < 2) {
+            System.err.println("Usage: java Main --batch script.txt [--out results.txt] [--quiet]");
+            return;
+        }
+        String outFile = null;
+        boolean quiet = false;
+        for (int i = 2; i < args.length; i++) {
+            if (args[i].equals("--quiet")) {
+                quiet = true;
+            } else if (args[i].equals("--out") && i + 1 < args.length) {
+                outFile = args[++i];
+            } else {
+                System.err.println("Unknown batch option: " + args[i]);
+                return;
+            }
+        }
+        OutputStream out = System.out;
+        try {
+            if (outFile != null) {
+                out = new FileOutputStream(outFile);
+            }
+            long failed = new BatchRunner(system, out, quiet).run(args[1]);
+            if (failed > 0) {
+                System.err.println(failed + " line(s) of the script failed.");
+            }
+        } catch (IOException e) {
+            System.err.println("Batch run failed: " + e.getMessage());
+        } finally {
+            if (out != System.out) {
+                try {
+                    out.close();
+                } catch (IOException e) {
+                    System.err.println("Could not close " + outFile + ": " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Serves the HTTP/JSON API (see HttpApi) until "stop" is typed:
+     *   java Main --http [port]      (the default port is 8080)
+     */
+    private static void runHttp(String[] args) {
+        HttpApi api;
+        try {
+            int port = (args.length > 1) ? Integer.parseInt(args[1]) : 8080;
+            api = new HttpApi(system, port);
+        } catch (NumberFormatException e) {
+            System.err.println("Usage: java Main --http [port]");
+            return;
+        } catch (IOException e) {
+            System.err.println("Could not start the HTTP API: " + e.getMessage());
+            return;
+        }
+        api.start();
+        System.out.println("HTTP API listening on http://localhost:" + api.getPort() + "/ (type \"stop\" to stop)");
+        // Without a console (stdin closed) we keep serving until the process is killed
+        while (scanner.hasNextLine()) {
+            if (scanner.nextLine().trim().equalsIgnoreCase("stop")) {
+                api.stop();
+                System.out.println("HTTP API stopped.");
+                return;
+            }
+        }
+        try {
+            Thread.currentThread().join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        api.stop();
+    }
+
+    /**
+     * Loads the snapshot saved by "Save and Exit".
+     * @return false if it could not be loaded (we then fall back to the CSV files).
+     */
+    private static boolean loadSnapshot() {
+        try {
+            system.loadSnapshot(SNAPSHOT_FILE);
+            return true;
+        } catch (IOException e) {
+            System.err.println("Could not load " + SNAPSHOT_FILE + " (" + e.getMessage() + "). Loading the CSV files.");
+            return false;
+        }
+    }
+
+    /**
+     * Opens the journal and replays the changes made since the last save.
+     * If that fails we do not start: the data may hold only part of the
+     * journal, and carrying on (without a journal) could later save it and
+     * replay the same changes a second time.
+     * @return false if the journal could not be opened or replayed.
+     */
+    private static boolean openJournal() {
+        try {
+            system.openJournal(JOURNAL_FILE, SNAPSHOT_FILE, JOURNAL_BUDGET_MILLIS, CHECKPOINT_BYTES);
+            return true;
+        } catch (IOException | RuntimeException e) {
+            System.err.println("FATAL ERROR: Could not open or replay " + JOURNAL_FILE + " (" + e.getMessage() + ").");
+            System.err.println("Nothing was saved. Fix or move " + JOURNAL_FILE + " away, then start again. Exiting.");
+            return false;
+        }
+    }
+
+    private static void checkpointIfDue() {
+        try {
+            if (system.checkpointIfDue()) {
+                System.out.println("(Checkpoint: saved " + SNAPSHOT_FILE + " and emptied the journal.)");
+            }
+        } catch (IOException e) {
+            System.err.println("Checkpoint failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Reminds the user that a change is only in memory (unless it was journaled).
+     */
+    private static void printNoSaveNote() {
+        if (!journaling) {
+            System.out.println("(Note: This change is temporary and will be lost on exit.)");
+        }
+    }
+
+    private static void closeJournal() {
+        try {
+            system.closeJournal();
+        } catch (IOException e) {
+            System.err.println("Could not close " + JOURNAL_FILE + ": " + e.getMessage());
+        }
+    }
+
     /**
      * Prints the Main Menu (Level 1)
      */
@@ -74,8 +271,9 @@ public class Main {
         System.out.println("1. Product Management");
         System.out.println("2. Customer & Order Management");
         System.out.println("3. Reports & Queries");
+        System.out.println("4. Save and Exit");
         System.out.println("---------------------");
-        System.out.println("0. Exit (Without Saving)");
+        System.out.println(journaling ? "0. Exit (Changes are kept in the journal)" : "0. Exit (Without Saving)");
         System.out.print("Enter your choice: ");
     }
 
@@ -92,6 +290,7 @@ public class Main {
             System.out.println("4. Search Product by Name ");
             System.out.println("6. Update a Product's Details");
             System.out.println("5. View All Products ");
+            System.out.println("7. Search Products by Name Prefix ");
             System.out.println("---------------------");
             System.out.println("0. Return to Main Menu");
             System.out.print("Enter your choice: ");
@@ -105,6 +304,7 @@ public class Main {
                 case 5: handleViewAllProducts(); break;
                 case 6: handleUpdateProduct(); 
                     break;
+                case 7: handleSearchByPrefix(); break;
                 case 0: inProductMenu = false; break; // Exit this loop
                 default: System.out.println("Invalid choice.");
             }
@@ -128,6 +328,7 @@ public class Main {
             System.out.println("6. View All Orders ");
             System.out.println("7. View Order History for a Customer");
             System.out.println("8. Update an Order's Status");
+            System.out.println("9. Ship the Oldest Pending Order");
             System.out.println("---------------------");
             System.out.println("0. Return to Main Menu");
             System.out.print("Enter your choice: ");
@@ -143,6 +344,7 @@ public class Main {
                 case 7: handleViewCustomerOrders(); break;
                 case 8:handleUpdateOrderStatus(); 
                     break;
+                case 9: handleShipOldestOrder(); break;
                 case 0: inCustomerMenu = false; break; // Exit this loop
                 default: System.out.println("Invalid choice.");
             }
@@ -164,6 +366,10 @@ public class Main {
             System.out.println("5. Find all Reviews by a Customer ");
             System.out.println("6. Find Common Reviewed Products (by 2 customers) ");
             System.out.println("7. Find Orders Between Two Dates ");
+            System.out.println("8. List Top N Products (by rating) ");
+            System.out.println("9. List Low-Stock Products ");
+            System.out.println("10. Order Status Summary ");
+            System.out.println("11. Store Totals (revenue, inventory value, average rating) ");
             System.out.println("---------------------");
             System.out.println("0. Return to Main Menu");
             System.out.print("Enter your choice: ");
@@ -177,6 +383,10 @@ public class Main {
                 case 5: handleFindReviewsByCustomer(); break;
                 case 6: handleFindCommonProducts(); break;
                 case 7: handleOrdersBetweenDates(); break;
+                case 8: handleListTopN(); break;
+                case 9: handleListLowStock(); break;
+                case 10: handleOrderStatusSummary(); break;
+                case 11: handleStoreTotals(); break;
                 case 0: inReportMenu = false; break; // Exit this loop
                 default: System.out.println("Invalid choice.");
             }
@@ -211,6 +421,35 @@ public class Main {
         scanner.nextLine();
     }
     
+    /**
+     * Prints a query's results one page (PAGE_SIZE rows) at a time. After a
+     * full page the user presses Enter for the next one or types anything
+     * else to stop; the rest of the results are then never read at all.
+     * @param header Printed above the first row (null for none; not printed if there are no rows).
+     * @return How many rows were printed.
+     */
+    private static <T> long printPaged(QueryCursor<T> cursor, String header, Consumer<T> printRow) {
+        boolean first = true;
+        while (true) {
+            MyLinkedList<T> page = cursor.nextPage(PAGE_SIZE);
+            if (first && header != null && !page.isEmpty()) {
+                System.out.println(header);
+            }
+            first = false;
+            for (T row : page) {
+                printRow.accept(row);
+            }
+            if (!cursor.hasMore()) {
+                break;
+            }
+            System.out.print("-- Press Enter for the next " + PAGE_SIZE + ", or type q to stop: ");
+            if (!scanner.nextLine().trim().isEmpty()) {
+                break;
+            }
+        }
+        return cursor.getPosition();
+    }
+
     /**
      * A helper method to robustly ask the user for a date.
      *
@@ -281,8 +520,11 @@ public class Main {
         }
         scanner.nextLine(); 
         Product p = new Product(id, name, price, stock);
-        system.addProduct(p);
-        System.out.println("SUCCESS: Product '" + name + "' added.");
+        if (system.addProduct(p)) {
+            System.out.println("SUCCESS: Product '" + name + "' added.");
+        } else {
+            System.out.println("ERROR: A product with ID " + id + " already exists.");
+        }
     }
 
     // (handleRegisterCustomer)
@@ -295,8 +537,11 @@ public class Main {
         System.out.print("Enter Customer Email: ");
         String email = scanner.nextLine();
         Customer c = new Customer(id, name, email);
-        system.registerNewCustomer(c);
-        System.out.println("SUCCESS: Customer '" + name + "' registered.");
+        if (system.registerNewCustomer(c)) {
+            System.out.println("SUCCESS: Customer '" + name + "' registered.");
+        } else {
+            System.out.println("ERROR: A customer with ID " + id + " already exists.");
+        }
     }
 
     // (handlePlaceOrder)
@@ -315,10 +560,10 @@ public class Main {
             System.out.println("Sorry, there are no products available to order.");
             return;
         }
-        for (int i = 0; i < allProducts.size(); i++) {
-            Product p = allProducts.get(i);
+        int number = 1;
+        for (Product p : allProducts) {
             System.out.println(
-                (i + 1) + ". " + 
+                (number++) + ". " + 
                 "Name: " + p.getName() + 
                 " | Price: " + p.getPrice() + 
                 " | Stock: " + p.getStock()
@@ -341,28 +586,61 @@ public class Main {
             }
             int productIndex = productNumber - 1; 
             Product product = allProducts.get(productIndex); 
-            if (product.getStock() == 0) {
+            // (The stock is only taken when the order is placed, all at once)
+            if (product.getStock() <= countInOrder(order, product)) {
                 System.out.println("ERROR: Sorry, '" + product.getName() + "' is out of stock.");
             } else {
                 order.addProductToOrder(product);
-                product.setStock(product.getStock() - 1); 
                 System.out.println("Added '" + product.getName() + "' to cart. Current Total: " + order.getTotalPrice());
             }
         }
-        if (order.getProducts().isEmpty()) {
+        if (order.getItemCount() == 0) {
             System.out.println("Order canceled (no products were added).");
         } else {
             System.out.println("\n--- Your Order Summary (ID: " + order.getOrderId() + ") ---");
-            MyLinkedList<Product> items = order.getProducts();
-            for (int i = 0; i < items.size(); i++) {
-                Product p = items.get(i);
-                System.out.println("- " + p.getName() + " (" + p.getPrice() + ")");
-            }
+            printOrderLines(order, "", true);
             System.out.println("-------------------------------------");
-            system.placeNewOrder(customerId, order);
+            // Reserve every item at once: someone else may have bought the last one meanwhile
+            Reservation reservation = system.reserveStock(order.getProducts());
+            if (reservation == null) {
+                System.out.println("ERROR: Sorry, some items sold out while you were shopping. Order canceled.");
+                return;
+            }
+            if (!system.placeReservedOrder(customerId, order, reservation)) {
+                // (The reserved stock was given back)
+                System.out.println("ERROR: The order could not be placed (order ID " + order.getOrderId()
+                    + " is already taken). Order canceled.");
+                return;
+            }
             System.out.println("SUCCESS: Order placed! Your final total is: " + order.getTotalPrice());
         }
     }
+
+    /**
+     * Counts how many units of a product are already in the order.
+     */
+    private static int countInOrder(Order order, Product product) {
+        int count = 0;
+        for (int line = 0; line < order.getLineCount(); line++) {
+            if (order.getLineProduct(line) == product) {
+                count += order.getLineQuantity(line);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Prints an order's line items, one row per product ("x3" when it was
+     * bought several times), with the price each unit was sold at.
+     */
+    private static void printOrderLines(Order order, String indent, boolean withPrice) {
+        for (int line = 0; line < order.getLineCount(); line++) {
+            int quantity = order.getLineQuantity(line);
+            System.out.println(indent + "- " + order.getLineProduct(line).getName()
+                + (withPrice ? " (" + order.getLineUnitCents(line) / 100.0 + ")" : "")
+                + (quantity > 1 ? " x" + quantity : ""));
+        }
+    }
     
     // (handleAddReview)
     private static void handleAddReview() {
@@ -400,7 +678,7 @@ public class Main {
         System.out.print("Enter Comment: ");
         String comment = scanner.nextLine();
         Review review = new Review(customerId, rating, comment);
-        product.addReview(review);
+        system.addReview(productId, review);
         System.out.println("SUCCESS: Your review for '" + product.getName() + "' has been added.");
     }
 
@@ -424,14 +702,38 @@ public class Main {
     // (handleListOutOfStock)
     private static void handleListOutOfStock() {
         System.out.println("--- Out-of-Stock Products ---");
-        MyLinkedList<Product> outOfStock = system.getOutOfStockProducts();
-        if (outOfStock.isEmpty()) {
+        long shown = printPaged(system.cursorOutOfStockProducts(), null,
+            p -> System.out.println("- " + p.getName() + " (ID: " + p.getProductId() + ")"));
+        if (shown == 0) {
             System.out.println("No products are out of stock.");
-            return;
         }
-        for (int i = 0; i < outOfStock.size(); i++) {
-            Product p = outOfStock.get(i);
-            System.out.println("- " + p.getName() + " (ID: " + p.getProductId() + ")");
+    }
+
+    // (handleListLowStock)
+    private static void handleListLowStock() {
+        System.out.println("--- Low-Stock Products ---");
+        System.out.print("Show products with stock at or below: ");
+        int threshold = getUserIntInput();
+        long shown = printPaged(system.cursorLowStockProducts(threshold), null,
+            p -> System.out.println("- " + p.getName() + " (ID: " + p.getProductId() + ") | Stock: " + p.getStock()));
+        if (shown == 0) {
+            System.out.println("No products have stock at or below " + threshold + ".");
+        }
+    }
+
+    // (handleStoreTotals)
+    private static void handleStoreTotals() {
+        System.out.println("--- Store Totals ---");
+        System.out.printf("Revenue (orders not canceled): %.2f%n", system.getTotalRevenue());
+        System.out.printf("Value of the stock on hand:    %.2f%n", system.getTotalInventoryValue());
+        System.out.printf("Average review score:          %.2f%n", system.getAverageCatalogRating());
+    }
+
+    // (handleOrderStatusSummary)
+    private static void handleOrderStatusSummary() {
+        System.out.println("--- Order Status Summary ---");
+        for (OrderStatus status : OrderStatus.values()) {
+            System.out.println("- " + status + ": " + system.getOrderCount(status));
         }
     }
 
@@ -443,9 +745,35 @@ public class Main {
             System.out.println("No products have been rated yet.");
             return;
         }
-        for (int i = 0; i < topProducts.size(); i++) {
-            Product p = topProducts.get(i);
-            System.out.println((i+1) + ". " + p.getName() + " (Avg Rating: " + p.getAverageRating() + ")");
+        int rank = 1;
+        for (Product p : topProducts) {
+            System.out.println((rank++) + ". " + p.getName() + " (Avg Rating: " + p.getAverageRating() + ")");
+        }
+    }
+
+    // (handleListTopN)
+    private static void handleListTopN() {
+        System.out.println("--- Top N Rated Products ---");
+        System.out.print("How many products? ");
+        int n = getUserIntInput();
+        if (n <= 0) {
+            System.out.println("ERROR: Please enter a number greater than 0.");
+            return;
+        }
+        System.out.print("Minimum number of reviews: ");
+        int minReviews = getUserIntInput();
+        if (minReviews < 0) {
+            minReviews = 0;
+        }
+        MyLinkedList<Product> topProducts = system.getTopProducts(n, minReviews);
+        if (topProducts.isEmpty()) {
+            System.out.println("No products match.");
+            return;
+        }
+        int rank = 1;
+        for (Product p : topProducts) {
+            System.out.println((rank++) + ". " + p.getName() + " (Avg Rating: " + p.getAverageRating()
+                + ", Reviews: " + p.getRatingCount() + ")");
         }
     }
 
@@ -454,15 +782,10 @@ public class Main {
         System.out.println("--- Find Reviews by Customer ---");
         System.out.print("Enter Customer ID: ");
         String customerId = scanner.nextLine();
-        MyLinkedList<Review> reviews = system.extractCustomerReviews(customerId);
-        if (reviews.isEmpty()) {
+        long shown = printPaged(system.cursorCustomerReviews(customerId), "Reviews by Customer " + customerId + ":",
+            r -> System.out.println("- Rating: " + r.getRatingScore() + " | Comment: " + r.getTextComment()));
+        if (shown == 0) {
             System.out.println("No reviews found for this customer.");
-            return;
-        }
-        System.out.println("Reviews by Customer " + customerId + ":");
-        for (int i = 0; i < reviews.size(); i++) {
-            Review r = reviews.get(i);
-            System.out.println("- Rating: " + r.getRatingScore() + " | Comment: " + r.getTextComment());
         }
     }
 
@@ -479,28 +802,25 @@ public class Main {
             return;
         }
         System.out.println("Common Products (>4 stars) reviewed by both:");
-        for (int i = 0; i < common.size(); i++) {
-            System.out.println("- " + common.get(i).getName());
+        for (Product p : common) {
+            System.out.println("- " + p.getName());
         }
     }
 
     // (handleViewAllCustomers)
     private static void handleViewAllCustomers() {
         System.out.println("--- All Registered Customers ---");
-        MyLinkedList<Customer> allCustomers = system.getAllCustomers();
-        if (allCustomers.isEmpty()) {
-            System.out.println("There are no customers registered yet.");
-            return;
-        }
-        for (int i = 0; i < allCustomers.size(); i++) {
-            Customer c = allCustomers.get(i);
-            System.out.println(
+        QueryCursor<Customer> cursor = system.cursorAllCustomers();
+        long shown = printPaged(cursor, null, c -> System.out.println(
                 "- ID: " + c.getCustomerId() + 
                 " | Name: " + c.getName() + 
                 " | Email: " + c.getEmail()
-            );
+            ));
+        if (shown == 0) {
+            System.out.println("There are no customers registered yet.");
+            return;
         }
-        System.out.println("Total Customers: " + allCustomers.size());
+        printShownCount("Customers", shown, cursor);
     }
 
     // (handleOrdersBetweenDates)
@@ -508,21 +828,19 @@ public class Main {
         System.out.println("--- Find Orders Between Two Dates ---");
         Date startDate = parseDateFromUser("Enter Start Date");
         Date endDate = parseDateFromUser("Enter End Date");
-        MyLinkedList<Order> orders = system.getOrdersBetweenDates(startDate, endDate);
-        if (orders.isEmpty()) {
-            System.out.println("No orders found between " + dateFormatter.format(startDate) + " and " + dateFormatter.format(endDate));
-        } else {
-            System.out.println("--- Orders Found ---");
-            for (int i = 0; i < orders.size(); i++) {
-                Order o = orders.get(i);
-                System.out.println(
+        QueryCursor<Order> cursor = system.cursorOrdersBetweenDates(startDate, false, endDate, false, false);
+        long shown = printPaged(cursor, "--- Orders Found ---", o -> System.out.println(
                     "- Order ID: " + o.getOrderId() +
                     " | Customer ID: " + o.getCustomerId() +
                     " | Date: " + dateFormatter.format(o.getOrderDate()) +
                     " | Total: " + o.getTotalPrice()
-                );
-            }
-            System.out.println("Found " + orders.size() + " orders.");
+                ));
+        if (shown == 0) {
+            System.out.println("No orders found between " + dateFormatter.format(startDate) + " and " + dateFormatter.format(endDate));
+        } else if (cursor.hasMore()) {
+            System.out.println("Showed the first " + shown + " orders.");
+        } else {
+            System.out.println("Found " + shown + " orders.");
         }
     }
 
@@ -536,14 +854,13 @@ public class Main {
             System.out.println("ERROR: Customer ID not found.");
             return;
         }
-        MyLinkedList<Order> orders = c.getOrderHistory();
+        MyLinkedList<Order> orders = system.getCustomerOrders(customerId);
         if (orders.isEmpty()) {
             System.out.println("Customer '" + c.getName() + "' has no orders on record.");
             return;
         }
         System.out.println("--- Orders for " + c.getName() + " ---");
-        for (int i = 0; i < orders.size(); i++) {
-            Order o = orders.get(i);
+        for (Order o : orders) {
             System.out.println(
                 "- Order ID: " + o.getOrderId() +
                 " | Date: " + dateFormatter.format(o.getOrderDate()) +
@@ -551,14 +868,10 @@ public class Main {
                 " | Total: " + o.getTotalPrice()
             );
             System.out.println("  Items Purchased:");
-            MyLinkedList<Product> productsInOrder = o.getProducts();
-            if (productsInOrder.isEmpty()) {
+            if (o.getItemCount() == 0) {
                 System.out.println("    (No items listed for this order - possible data error)");
             } else {
-                for (int j = 0; j < productsInOrder.size(); j++) {
-                    Product p = productsInOrder.get(j);
-                    System.out.println("    - " + p.getName() + " (" + p.getPrice() + ")");
-                }
+                printOrderLines(o, "    ", true);
             }
         }
         System.out.println("Found " + orders.size() + " total orders.");
@@ -567,43 +880,49 @@ public class Main {
     // (handleViewAllProducts)
     private static void handleViewAllProducts() {
         System.out.println("--- All Products in System ---");
-        MyLinkedList<Product> allProducts = system.getAllProducts();
-        if (allProducts.isEmpty()) {
-            System.out.println("There are no products in the system.");
-            return;
-        }
-        for (int i = 0; i < allProducts.size(); i++) {
-            Product p = allProducts.get(i);
-            System.out.println(
+        QueryCursor<Product> cursor = system.cursorAllProducts();
+        long shown = printPaged(cursor, null, p -> System.out.println(
                 "- ID: " + p.getProductId() + 
                 " | Name: " + p.getName() + 
                 " | Price: " + p.getPrice() +
                 " | Stock: " + p.getStock() +
                 " | Avg Rating: " + p.getAverageRating()
-            );
+            ));
+        if (shown == 0) {
+            System.out.println("There are no products in the system.");
+            return;
         }
-        System.out.println("Total Products: " + allProducts.size());
+        printShownCount("Products", shown, cursor);
     }
 
     // (handleViewAllOrders)
     private static void handleViewAllOrders() {
         System.out.println("--- All Orders in System ---");
-        MyLinkedList<Order> allOrders = system.getAllOrders();
-        if (allOrders.isEmpty()) {
-            System.out.println("There are no orders in the system.");
-            return;
-        }
-        for (int i = 0; i < allOrders.size(); i++) {
-            Order o = allOrders.get(i);
-            System.out.println(
+        QueryCursor<Order> cursor = system.cursorAllOrders();
+        long shown = printPaged(cursor, null, o -> System.out.println(
                 "- Order ID: " + o.getOrderId() +
                 " | Customer ID: " + o.getCustomerId() +
                 " | Date: " + dateFormatter.format(o.getOrderDate()) +
                 " | Status: " + o.getStatus() +
                 " | Total: " + o.getTotalPrice()
-            );
+            ));
+        if (shown == 0) {
+            System.out.println("There are no orders in the system.");
+            return;
+        }
+        printShownCount("Orders", shown, cursor);
+    }
+
+    /**
+     * Prints "Total Orders: 99" when every row was shown, or how many were
+     * shown when the user stopped early (the total is then never counted).
+     */
+    private static void printShownCount(String what, long shown, QueryCursor<?> cursor) {
+        if (cursor.hasMore()) {
+            System.out.println("Showed the first " + shown + " " + what.toLowerCase() + ".");
+        } else {
+            System.out.println("Total " + what + ": " + shown);
         }
-        System.out.println("Total Orders: " + allOrders.size());
     }
     
     // (handleRemoveProduct)
@@ -618,7 +937,7 @@ public class Main {
         }
         system.removeProduct(productId);
         System.out.println("SUCCESS: Product '" + p.getName() + "' (ID: " + productId + ") has been removed.");
-        System.out.println("(Note: This change is temporary and will be lost on exit.)"); // No-Save message
+        printNoSaveNote(); // No-Save message
     }
 
     // (handleSearchByName)
@@ -639,15 +958,37 @@ public class Main {
         }
     }
 
+    // (handleSearchByPrefix)
+    private static void handleSearchByPrefix() {
+        System.out.println("--- Search Products by Name Prefix ---");
+        System.out.print("Enter the start of the name: ");
+        String prefix = scanner.nextLine();
+        MyLinkedList<Product> matches = system.searchProductsByPrefix(prefix, 10);
+        if (matches.isEmpty()) {
+            System.out.println("No products found starting with '" + prefix + "'.");
+            return;
+        }
+        for (Product p : matches) {
+            System.out.println("- " + p.getName() + " (ID: " + p.getProductId() + ") | Price: " + p.getPrice());
+        }
+        System.out.println("(Showing up to 10 matches)");
+    }
+
     // (handleCancelOrder)
     private static void handleCancelOrder() {
         System.out.println("--- Cancel an Order ---");
         System.out.print("Enter the Order ID to cancel: ");
         String orderId = scanner.nextLine();
-        boolean success = system.cancelOrder(orderId);
+        boolean success;
+        try {
+            success = system.cancelOrder(orderId);
+        } catch (IllegalStateException e) {
+            System.out.println("ERROR: " + e.getMessage());
+            return;
+        }
         if (success) {
             System.out.println("SUCCESS: Order ID " + orderId + " has been marked as 'canceled'.");
-            System.out.println("(Note: This change is temporary and will be lost on exit.)"); // No-Save message
+            printNoSaveNote(); // No-Save message
         } else {
             System.out.println("ERROR: Order ID not found.");
         }
@@ -667,10 +1008,7 @@ public class Main {
             System.out.println("  Status: " + o.getStatus());
             System.out.println("  Total Price: " + o.getTotalPrice());
             System.out.println("  Products in this order:");
-            MyLinkedList<Product> products = o.getProducts();
-            for(int i = 0; i < products.size(); i++) {
-                System.out.println("    - " + products.get(i).getName());
-            }
+            printOrderLines(o, "    ", false);
         } else {
             System.out.println("ERROR: No order found with that ID.");
         }
@@ -710,10 +1048,10 @@ public class Main {
         System.out.print("Enter New Comment: ");
         String comment = scanner.nextLine();
         
-        boolean success = p.editReview(customerId, comment, rating);
+        boolean success = system.editReview(productId, customerId, comment, rating);
         if (success) {
             System.out.println("SUCCESS: Your review for '" + p.getName() + "' has been updated.");
-            System.out.println("(Note: This change is temporary and will be lost on exit.)"); // No-Save message
+            printNoSaveNote(); // No-Save message
         } else {
             System.out.println("ERROR: No review from customer " + customerId + " was found.");
         }
@@ -752,7 +1090,7 @@ public class Main {
             case 1: // Update Name
                 System.out.print("Enter new Name: ");
                 String newName = scanner.nextLine();
-                p.setName(newName); //  setter
+                system.updateName(p.getProductId(), newName);
                 System.out.println("SUCCESS: Name updated.");
                 break;
                 
@@ -761,7 +1099,7 @@ public class Main {
                 double newPrice = 0;
                 try {
                     newPrice = scanner.nextDouble();
-                    p.setPrice(newPrice); //  setter)
+                    system.updatePrice(p.getProductId(), newPrice);
                     System.out.println("SUCCESS: Price updated.");
                 } catch (Exception e) {
                     System.out.println("Error: Invalid input.");
@@ -774,7 +1112,7 @@ public class Main {
                 int newStock = 0;
                 try {
                     newStock = scanner.nextInt();
-                    p.setStock(newStock); //  setter)
+                    system.updateStock(p.getProductId(), newStock);
                     System.out.println("SUCCESS: Stock updated.");
                 } catch (Exception e) {
                     System.out.println("Error: Invalid input.");
@@ -790,7 +1128,7 @@ public class Main {
                 System.out.println("Invalid choice.");
         }
         
-        System.out.println("(Note: This change is temporary and will be lost on exit.)");
+        printNoSaveNote();
     }
     // ==========================================================
     // --- (METHOD: To update an order's status) ---
@@ -813,13 +1151,32 @@ public class Main {
 
         // 2. Show current status and ask for new one
         System.out.println("Current status for Order " + o.getOrderId() + " is: " + o.getStatus());
-        System.out.print("Enter new status (e.g., pending, shipped, delivered): ");
+        System.out.print("Enter new status (pending, shipped, delivered, canceled): ");
         String newStatus = scanner.nextLine();
 
-        // 3. Call the method in the Order class
-        o.updateStatus(newStatus);
+        // 3. Update it through the system (so it is journaled and thread-safe)
+        try {
+            system.updateOrderStatus(orderId, newStatus);
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            System.out.println("ERROR: " + e.getMessage());
+            return;
+        }
         
-        System.out.println("SUCCESS: Order status has been updated to '" + newStatus + "'.");
-        System.out.println("(Note: This change is temporary and will be lost on exit.)");
+        System.out.println("SUCCESS: Order status has been updated to '" + o.getStatus() + "'.");
+        printNoSaveNote();
+    }
+
+    // (handleShipOldestOrder)
+    private static void handleShipOldestOrder() {
+        System.out.println("--- Ship the Oldest Pending Order ---");
+        Order o = system.takeOldestOrder(OrderStatus.PENDING, OrderStatus.SHIPPED);
+        if (o == null) {
+            System.out.println("There are no pending orders.");
+            return;
+        }
+        System.out.println("SUCCESS: Order ID " + o.getOrderId() + " (Customer ID: " + o.getCustomerId()
+            + ") has been marked as 'Shipped'.");
+        System.out.println("Pending orders left: " + system.getOrderCount(OrderStatus.PENDING));
+        printNoSaveNote();
     }
 }
\ No newline at end of file
@@ -0,0 +1,550 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ *
+ * @author mraah
+ */
+/**
+ * An append-only, write-ahead journal of binary records.
+ * The system appends one small record per change; after a restart the
+ * records are replayed on top of the last snapshot (or the CSV files).
+ *
+ * File layout: a 16-byte header (magic, version, base sequence number),
+ * then records of the form [length][CRC32][sequence][type][fields].
+ * The base sequence number is the last record already contained in the
+ * snapshot the journal continues from (see truncate()).
+ *
+ * Group commit: append() adds the record to a pending batch and waits
+ * until it is on disk. A background thread writes the batch and calls
+ * fsync once for every record that arrived within the latency budget,
+ * so concurrent callers share one fsync instead of paying one each.
+ * A torn record at the end of the file (a crash while writing) is
+ * detected by its length/checksum and cut off when the journal is opened.
+ */
+public final class MutationJournal implements Closeable {
+
+    // "ECJL" in ASCII: marks the file as one of our journals
+    public static final int MAGIC = 0x45434A4C;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 16;
+
+    // A batch this big is written right away, without waiting out the budget
+    private static final int GROUP_BYTES = 1 << 20;
+    // Anything longer is a corrupt length, not a real record
+    private static final int MAX_RECORD = 64 << 20;
+
+    /**
+     * Applies one replayed record (see open()).
+     */
+    public interface RecordHandler {
+        void apply(long seq, int type, Decoder in);
+    }
+
+    private final FileChannel channel;
+    private final long latencyBudgetNanos;
+    private final Thread flusher;
+
+    // Everything below is guarded by "lock"
+    private final Object lock = new Object();
+    private Encoder pending = new Encoder();  // Framed records waiting for the next group commit
+    private Encoder writing = new Encoder();  // The batch the flusher is writing right now
+    private long firstPendingNanos;
+    private long lastSeq;     // The last record appended
+    private long durableSeq;  // The last record known to be on disk
+    private long baseSeq;
+    private long fileSize;
+    private long commitCount;
+    private boolean closed;
+    private IOException failure;
+
+    private MutationJournal(FileChannel channel, long latencyBudgetMillis) {
+        this.channel = channel;
+        this.latencyBudgetNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, latencyBudgetMillis));
+        this.flusher = new Thread(this::flushLoop, "journal-flusher");
+        this.flusher.setDaemon(true);
+    }
+
+    /**
+     * Opens (or creates) a journal and replays every record after "afterSeq".
+     * A torn or corrupt tail is reported and cut off.
+     * (Time Complexity: O(size of the journal))
+     * @param path The journal file.
+     * @param latencyBudgetMillis How long a record may wait for others to share its fsync.
+     * @param afterSeq The last record already contained in the loaded data (0 for none).
+     * @param handler Applies each replayed record, in order.
+     * @return The open journal, ready for append().
+     * @throws IOException if the file is not a journal, or it continues
+     *         from a newer snapshot than the loaded data.
+     */
+    public static MutationJournal open(Path path, long latencyBudgetMillis, long afterSeq,
+                                       RecordHandler handler) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+            StandardOpenOption.READ, StandardOpenOption.WRITE);
+        MutationJournal journal = new MutationJournal(channel, latencyBudgetMillis);
+        try {
+            if (channel.size() < HEADER_SIZE) {
+                journal.writeHeader(afterSeq); // New (or empty) journal
+            } else {
+                journal.readHeader(path, afterSeq);
+            }
+            journal.replay(path, afterSeq, handler);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+        journal.flusher.start();
+        return journal;
+    }
+
+    /**
+     * Appends one record and waits until it is on disk (group commit).
+     * If the journal has failed or is closed, the record is dropped
+     * (the error was already reported when the write failed).
+     * @param type The record type (defined by the caller).
+     * @param fields The record's fields.
+     * @return The record's sequence number (0 if it was dropped).
+     */
+    public long append(int type, Encoder fields) {
+        long seq = enqueue(type, fields);
+        awaitDurable(seq);
+        return seq;
+    }
+
+    /**
+     * Adds one record to the next group commit without waiting for it.
+     * Callers that hold a lock can enqueue inside it (so records keep the
+     * order of the changes) and call awaitDurable() after unlocking, so
+     * other threads can join the same fsync meanwhile.
+     * @return The record's sequence number (0 if it was dropped).
+     */
+    public long enqueue(int type, Encoder fields) {
+        synchronized (lock) {
+            if (closed || failure != null) {
+                return 0;
+            }
+            long seq = ++lastSeq;
+            if (pending.size() == 0) {
+                firstPendingNanos = System.nanoTime();
+            }
+            // Frame it: [length][crc][seq][type][fields]
+            int start = pending.size();
+            pending.putInt(0);
+            pending.putInt(0);
+            pending.putLong(seq);
+            pending.putByte(type);
+            pending.putBytes(fields.bytes, 0, fields.size);
+            int length = pending.size() - start - 8;
+            CRC32 crc = new CRC32();
+            crc.update(pending.bytes, start + 8, length);
+            pending.setInt(start, length);
+            pending.setInt(start + 4, (int) crc.getValue());
+            lock.notifyAll();
+            return seq;
+        }
+    }
+
+    /**
+     * Waits until record "seq" (and every record before it) is on disk.
+     */
+    public void awaitDurable(long seq) {
+        synchronized (lock) {
+            waitForFlush(seq);
+        }
+    }
+
+    /**
+     * Waits until every record appended so far is on disk.
+     */
+    public void sync() {
+        synchronized (lock) {
+            waitForFlush(lastSeq);
+        }
+    }
+
+    /**
+     * Empties the journal after a checkpoint: everything up to "newBaseSeq"
+     * is now in the snapshot. The header is rewritten first, so a crash
+     * before the file is cut only leaves records that replay will skip.
+     * @param newBaseSeq The last record contained in the new snapshot.
+     * @throws IOException if the journal cannot be truncated.
+     */
+    public void truncate(long newBaseSeq) throws IOException {
+        synchronized (lock) {
+            waitForFlush(lastSeq);
+            writeHeader(newBaseSeq);
+            channel.truncate(HEADER_SIZE);
+            channel.force(true);
+            fileSize = HEADER_SIZE;
+            lastSeq = Math.max(lastSeq, newBaseSeq);
+            durableSeq = lastSeq;
+        }
+    }
+
+    /**
+     * Returns the sequence number of the last record appended.
+     */
+    public long getLastSeq() {
+        synchronized (lock) {
+            return lastSeq;
+        }
+    }
+
+    /**
+     * Returns the size of the journal file in bytes (written records only).
+     */
+    public long size() {
+        synchronized (lock) {
+            return fileSize;
+        }
+    }
+
+    /**
+     * Returns how many group commits (fsyncs) were done.
+     */
+    public long getCommitCount() {
+        synchronized (lock) {
+            return commitCount;
+        }
+    }
+
+    /**
+     * Writes the remaining records, stops the flusher and closes the file.
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (lock) {
+            closed = true;
+            lock.notifyAll();
+        }
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        channel.close();
+    }
+
+    // --- Internal helpers ---
+
+    /**
+     * Waits (holding "lock") until record "seq" is on disk or the journal failed.
+     */
+    private void waitForFlush(long seq) {
+        boolean interrupted = false;
+        while (durableSeq < seq && failure == null && flusher.isAlive()) {
+            try {
+                lock.wait();
+            } catch (InterruptedException e) {
+                interrupted = true; // Keep waiting: the caller expects a durable record
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * The flusher thread: writes each batch and fsyncs it once.
+     */
+    private void flushLoop() {
+        while (true) {
+            long upTo;
+            long position;
+            synchronized (lock) {
+                // 1. Sleep until there is something to write
+                while (pending.size() == 0 && !closed) {
+                    waitQuietly(0);
+                }
+                if (pending.size() == 0) {
+                    return; // Closed, and everything is written
+                }
+                // 2. Let more records join this group, up to the latency budget
+                long left;
+                while (!closed && pending.size() < GROUP_BYTES
+                        && (left = firstPendingNanos + latencyBudgetNanos - System.nanoTime()) > 0) {
+                    waitQuietly(left);
+                }
+                Encoder batch = pending;
+                pending = writing;
+                writing = batch;
+                upTo = lastSeq;
+                position = fileSize;
+            }
+
+            // 3. Write and fsync outside the lock, so appends can continue
+            try {
+                ByteBuffer buffer = ByteBuffer.wrap(writing.bytes, 0, writing.size);
+                long at = position;
+                while (buffer.hasRemaining()) {
+                    at += channel.write(buffer, at);
+                }
+                channel.force(false);
+            } catch (IOException e) {
+                System.err.println("Journal write failed, changes are no longer saved: " + e);
+                synchronized (lock) {
+                    failure = e;
+                    lock.notifyAll();
+                }
+                return;
+            }
+            synchronized (lock) {
+                fileSize = position + writing.size;
+                durableSeq = upTo;
+                commitCount++;
+                lock.notifyAll();
+            }
+            writing.reset();
+        }
+    }
+
+    private void waitQuietly(long nanos) {
+        try {
+            if (nanos <= 0) {
+                lock.wait();
+            } else {
+                TimeUnit.NANOSECONDS.timedWait(lock, nanos);
+            }
+        } catch (InterruptedException e) {
+            closed = true; // Interrupting the flusher shuts the journal down
+        }
+    }
+
+    private void writeHeader(long base) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(MAGIC).putInt(VERSION).putLong(base).flip();
+        while (header.hasRemaining()) {
+            channel.write(header, header.position());
+        }
+        channel.force(true);
+        baseSeq = base;
+        lastSeq = Math.max(lastSeq, base);
+        durableSeq = lastSeq;
+        fileSize = Math.max(fileSize, HEADER_SIZE);
+    }
+
+    private void readHeader(Path path, long afterSeq) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        while (header.hasRemaining() && channel.read(header, header.position()) > 0) {
+            // Keep reading
+        }
+        if (header.getInt(0) != MAGIC) {
+            throw new IOException(path + " is not a journal file");
+        }
+        if (header.getInt(4) != VERSION) {
+            throw new IOException(path + " has journal version " + header.getInt(4) + " (expected " + VERSION + ")");
+        }
+        baseSeq = header.getLong(8);
+        if (baseSeq > afterSeq) {
+            throw new IOException(path + " continues from a newer snapshot (record " + baseSeq
+                + ") than the loaded data (record " + afterSeq + ")");
+        }
+        lastSeq = baseSeq;
+        durableSeq = baseSeq;
+        fileSize = HEADER_SIZE;
+    }
+
+    /**
+     * Reads every record in order, applying those after "afterSeq", and
+     * cuts the file after the last valid one.
+     */
+    private void replay(Path path, long afterSeq, RecordHandler handler) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(1 << 20);
+        buffer.limit(0);
+        readEnd = fileSize;
+        long position = fileSize; // Where the next record starts
+        long previousSeq = 0;
+        long replayed = 0;
+        CRC32 crc = new CRC32();
+        while (true) {
+            // 1. The frame header: length and checksum
+            buffer = fill(buffer, 8);
+            if (buffer.remaining() < 8) {
+                break;
+            }
+            int length = buffer.getInt(buffer.position());
+            int expectedCrc = buffer.getInt(buffer.position() + 4);
+            if (length < 9 || length > MAX_RECORD) {
+                break; // Corrupt length
+            }
+            buffer = fill(buffer, 8 + length);
+            if (buffer.remaining() < 8 + length) {
+                break; // Torn record
+            }
+            // 2. The payload: check it before trusting any of it
+            crc.reset();
+            crc.update(buffer.array(), buffer.position() + 8, length);
+            if ((int) crc.getValue() != expectedCrc) {
+                break;
+            }
+            Decoder in = new Decoder(ByteBuffer.wrap(buffer.array(), buffer.position() + 8, length).slice());
+            long seq = in.getLong();
+            int type = in.getByte();
+            if (seq <= previousSeq) {
+                break; // Sequence numbers always grow: this is stale data
+            }
+            buffer.position(buffer.position() + 8 + length);
+            position += 8 + length;
+            previousSeq = seq;
+
+            // 3. Records already in the loaded data are skipped
+            lastSeq = Math.max(lastSeq, seq);
+            if (seq > afterSeq) {
+                handler.apply(seq, type, in);
+                replayed++;
+            }
+        }
+        durableSeq = lastSeq;
+        fileSize = position;
+        if (channel.size() > position) {
+            System.err.println("Journal " + path + ": cut off " + (channel.size() - position)
+                + " bytes of incomplete records after record " + lastSeq + ".");
+            channel.truncate(position);
+            channel.force(true);
+        }
+        if (replayed > 0) {
+            System.out.println("Replayed " + replayed + " journal records.");
+        }
+    }
+
+    // The file offset just past the bytes read into the replay buffer
+    private long readEnd;
+
+    /**
+     * Makes sure the buffer holds at least "bytes" bytes (unless the file ends first).
+     */
+    private ByteBuffer fill(ByteBuffer buffer, int bytes) throws IOException {
+        if (buffer.remaining() >= bytes) {
+            return buffer;
+        }
+        if (buffer.capacity() < bytes) {
+            ByteBuffer bigger = ByteBuffer.allocate(Math.max(bytes, buffer.capacity() * 2));
+            bigger.put(buffer);
+            buffer = bigger;
+        } else {
+            buffer.compact();
+        }
+        while (buffer.position() < bytes) {
+            int n = channel.read(buffer, readEnd);
+            if (n <= 0) {
+                break;
+            }
+            readEnd += n;
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * Packs the fields of a record (big-endian, Strings as UTF-8 with a length).
+     */
+    public static final class Encoder {
+        private byte[] bytes = new byte[64];
+        private int size;
+
+        public Encoder putByte(int v) {
+            ensure(1);
+            bytes[size++] = (byte) v;
+            return this;
+        }
+
+        public Encoder putInt(int v) {
+            ensure(4);
+            setInt(size, v);
+            size += 4;
+            return this;
+        }
+
+        public Encoder putLong(long v) {
+            putInt((int) (v >>> 32));
+            return putInt((int) v);
+        }
+
+        public Encoder putDouble(double v) {
+            return putLong(Double.doubleToRawLongBits(v));
+        }
+
+        /** Writes a String as its UTF-8 length and bytes (length -1 for null). */
+        public Encoder putString(String s) {
+            if (s == null) {
+                return putInt(-1);
+            }
+            byte[] utf8 = s.getBytes(StandardCharsets.UTF_8);
+            putInt(utf8.length);
+            return putBytes(utf8, 0, utf8.length);
+        }
+
+        Encoder putBytes(byte[] src, int off, int len) {
+            ensure(len);
+            System.arraycopy(src, off, bytes, size, len);
+            size += len;
+            return this;
+        }
+
+        void setInt(int at, int v) {
+            bytes[at] = (byte) (v >>> 24);
+            bytes[at + 1] = (byte) (v >>> 16);
+            bytes[at + 2] = (byte) (v >>> 8);
+            bytes[at + 3] = (byte) v;
+        }
+
+        int size() {
+            return size;
+        }
+
+        void reset() {
+            size = 0;
+        }
+
+        private void ensure(int more) {
+            if (size + more > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(size + more, bytes.length * 2));
+            }
+        }
+    }
+
+    /**
+     * Reads the fields of a replayed record, in the order they were put.
+     */
+    public static final class Decoder {
+        private final ByteBuffer in;
+
+        Decoder(ByteBuffer in) {
+            this.in = in;
+        }
+
+        public int getByte() {
+            return in.get();
+        }
+
+        public int getInt() {
+            return in.getInt();
+        }
+
+        public long getLong() {
+            return in.getLong();
+        }
+
+        public double getDouble() {
+            return in.getDouble();
+        }
+
+        public String getString() {
+            int length = in.getInt();
+            if (length < 0) {
+                return null;
+            }
+            String s = new String(in.array(), in.arrayOffset() + in.position(), length, StandardCharsets.UTF_8);
+            in.position(in.position() + length);
+            return s;
+        }
+    }
+}
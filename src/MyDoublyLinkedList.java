@@ -0,0 +1,491 @@
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ *
+ * @author mraah
+ */
+/**
+ * A doubly-linked list: every node points to the node before it and the
+ * node after it. add() returns the new node (a DNode "handle"), and with
+ * a handle we can remove the element, or insert before/after it, in O(1)
+ * (no search and no second walk like remove(index) needs).
+ * It can also be walked backwards, one O(1) step at a time.
+ * @param <T> The type of data this list will store.
+ */
+public class MyDoublyLinkedList<T> implements Iterable<T> {
+
+    // 1. Pointers to the first and the last node.
+    private DNode<T> head;
+    private DNode<T> tail;
+
+    // 2. The number of elements.
+    private int size;
+
+    // 3. Counts structural changes so iterators can "fail fast".
+    private int modCount;
+
+    // 4. The number the next new node gets, and whether the numbers still
+    //    grow from head to tail (true while elements were only appended),
+    //    so a removed node's place can be found again.
+    private long nextSeq;
+    private boolean inOrder = true;
+
+    /**
+     * Constructor to create a new, empty list.
+     */
+    public MyDoublyLinkedList() {
+        this.head = null;
+        this.tail = null;
+        this.size = 0;
+    }
+
+    /**
+     * Adds a new element to the *end* of the list.
+     * (Time Complexity: O(1))
+     * @param data The data to be added.
+     * @return The handle of the new node.
+     */
+    public DNode<T> add(T data) {
+        return insertAfter(tail, data);
+    }
+
+    /**
+     * Adds a new element to the *front* of the list.
+     * (Time Complexity: O(1))
+     * @return The handle of the new node.
+     */
+    public DNode<T> addFirst(T data) {
+        return insertBefore(head, data);
+    }
+
+    /**
+     * Inserts a new element right before "node" (at the end if node is null).
+     * (Time Complexity: O(1))
+     * @return The handle of the new node.
+     */
+    public DNode<T> insertBefore(DNode<T> node, T data) {
+        if (node == null) {
+            return insertAfter(tail, data);
+        }
+        checkOwner(node);
+        return link(node.prev, node, data);
+    }
+
+    /**
+     * Inserts a new element right after "node" (at the front if node is null).
+     * (Time Complexity: O(1))
+     * @return The handle of the new node.
+     */
+    public DNode<T> insertAfter(DNode<T> node, T data) {
+        if (node == null) {
+            return link(null, head, data);
+        }
+        checkOwner(node);
+        return link(node, node.next, data);
+    }
+
+    /**
+     * Removes the element held by a handle.
+     * (Time Complexity: O(1))
+     * @param node A handle returned by this list.
+     * @return false if the node was already removed.
+     * @throws IllegalArgumentException if the node belongs to another list.
+     */
+    public boolean remove(DNode<T> node) {
+        if (node == null || node.owner == null) {
+            return false; // Already removed
+        }
+        checkOwner(node);
+        unlink(node);
+        return true;
+    }
+
+    /**
+     * Moves the element held by a handle to the front of the list (the
+     * handle stays valid), e.g. to mark it as the most recently used.
+     * (Time Complexity: O(1))
+     * @param node A handle returned by this list.
+     * @throws IllegalArgumentException if the node is not in this list.
+     */
+    public void moveToFirst(DNode<T> node) {
+        checkOwner(node);
+        if (node == head) {
+            return;
+        }
+        inOrder = false;
+        // 1. Take it out (it is not the head, so it has a previous node)
+        node.prev.next = node.next;
+        if (node.next == null) {
+            tail = node.prev;
+        } else {
+            node.next.prev = node.prev;
+        }
+        // 2. Put it in front of the old head
+        node.prev = null;
+        node.next = head;
+        head.prev = node;
+        head = node;
+        modCount++;
+    }
+
+    /**
+     * Removes an element based on its position (index).
+     * (Time Complexity: O(N) - the walk starts from the nearer end)
+     * @return true if the removal was successful.
+     */
+    public boolean remove(int index) {
+        if (index < 0 || index >= size) {
+            return false;
+        }
+        unlink(nodeAt(index));
+        return true;
+    }
+
+    /**
+     * Retrieves an element based on its position (index).
+     * (Time Complexity: O(N) - the walk starts from the nearer end)
+     * @return The data at that position, or null if the index is out of bounds.
+     */
+    public T get(int index) {
+        if (index < 0 || index >= size) {
+            System.err.println("Error: Index out of bounds: " + index);
+            return null;
+        }
+        return nodeAt(index).data;
+    }
+
+    /**
+     * Returns the handle of the first node (null if the list is empty).
+     * (Time Complexity: O(1))
+     */
+    public DNode<T> first() {
+        return head;
+    }
+
+    /**
+     * Returns the handle of the last node (null if the list is empty).
+     * (Time Complexity: O(1))
+     */
+    public DNode<T> last() {
+        return tail;
+    }
+
+    /**
+     * Returns the handle after "node" (null at the end).
+     * (Time Complexity: O(1))
+     */
+    public DNode<T> next(DNode<T> node) {
+        checkOwner(node);
+        return node.next;
+    }
+
+    /**
+     * Returns the handle after "node" even if "node" was removed in the
+     * meantime (null at the end), e.g. to resume a walk that let go of
+     * the list. For a removed node it is the first node added after it
+     * (nodes are numbered as they are added), which costs one O(N) walk.
+     * (Time Complexity: O(1), or O(N) for a removed node)
+     * @throws ConcurrentModificationException if "node" was removed and
+     *         elements were not only appended (so the numbers are out of order).
+     */
+    public DNode<T> nextAfter(DNode<T> node) {
+        if (node.owner != null) {
+            return next(node);
+        }
+        if (!inOrder) {
+            throw new ConcurrentModificationException();
+        }
+        DNode<T> current = head;
+        while (current != null && current.seq <= node.seq) {
+            current = current.next;
+        }
+        return current;
+    }
+
+    /**
+     * Returns the handle before "node" (null at the front).
+     * (Time Complexity: O(1))
+     */
+    public DNode<T> previous(DNode<T> node) {
+        checkOwner(node);
+        return node.prev;
+    }
+
+    /**
+     * Returns the number of elements in the list.
+     * (Time Complexity: O(1))
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Checks if the list is empty.
+     * (Time Complexity: O(1))
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns a fail-fast iterator from head to tail (remove() is O(1)).
+     */
+    @Override
+    public Iterator<T> iterator() {
+        return new MyIterator(false);
+    }
+
+    /**
+     * Returns a fail-fast iterator from tail to head (remove() is O(1)).
+     */
+    public Iterator<T> descendingIterator() {
+        return new MyIterator(true);
+    }
+
+    /**
+     * Returns a Spliterator over the list (ordered and sized) that splits
+     * into two equal halves, so a parallel stream gets balanced pieces.
+     * (Each split walks half of its nodes, like MyLinkedList's.)
+     */
+    @Override
+    public Spliterator<T> spliterator() {
+        return new MySpliterator(head, size, modCount);
+    }
+
+    /**
+     * Performs the action for every element, from head to tail.
+     * (Time Complexity: O(N))
+     */
+    @Override
+    public void forEach(Consumer<? super T> action) {
+        int expectedModCount = modCount;
+        for (DNode<T> current = head; current != null; current = current.next) {
+            action.accept(current.data);
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+        }
+    }
+
+    /**
+     * Removes every element that matches the filter, in a single pass.
+     * (Time Complexity: O(N))
+     * @return true if any element was removed.
+     */
+    public boolean removeIf(Predicate<? super T> filter) {
+        boolean removed = false;
+        DNode<T> current = head;
+        while (current != null) {
+            DNode<T> next = current.next;
+            if (filter.test(current.data)) {
+                unlink(current);
+                removed = true;
+            }
+            current = next;
+        }
+        return removed;
+    }
+
+    // --- Internal helpers ---
+
+    /**
+     * Links a new node between "before" and "after" (either may be null at an end).
+     */
+    private DNode<T> link(DNode<T> before, DNode<T> after, T data) {
+        DNode<T> node = new DNode<>(data, this);
+        node.seq = nextSeq++;
+        if (after != null) {
+            inOrder = false; // Not appended at the end
+        }
+        node.prev = before;
+        node.next = after;
+        if (before == null) {
+            head = node;
+        } else {
+            before.next = node;
+        }
+        if (after == null) {
+            tail = node;
+        } else {
+            after.prev = node;
+        }
+        size++;
+        modCount++;
+        return node;
+    }
+
+    /**
+     * Unlinks a node: its neighbours now point to each other.
+     */
+    private void unlink(DNode<T> node) {
+        if (node.prev == null) {
+            head = node.next;
+        } else {
+            node.prev.next = node.next;
+        }
+        if (node.next == null) {
+            tail = node.prev;
+        } else {
+            node.next.prev = node.prev;
+        }
+        node.prev = null;
+        node.next = null;
+        node.owner = null; // The handle is now "stale"
+        size--;
+        modCount++;
+    }
+
+    /**
+     * Finds the node at an index, walking from whichever end is nearer.
+     */
+    private DNode<T> nodeAt(int index) {
+        if (index < size / 2) {
+            DNode<T> current = head;
+            for (int i = 0; i < index; i++) {
+                current = current.next;
+            }
+            return current;
+        }
+        DNode<T> current = tail;
+        for (int i = size - 1; i > index; i--) {
+            current = current.prev;
+        }
+        return current;
+    }
+
+    private void checkOwner(DNode<T> node) {
+        if (node.owner != this) {
+            throw new IllegalArgumentException(node.owner == null
+                ? "This node was already removed from its list"
+                : "This node belongs to another list");
+        }
+    }
+
+    /**
+     * The spliterator returned by spliterator(): "remaining" nodes from
+     * "current" on. trySplit() hands out the first half and keeps the second.
+     */
+    private class MySpliterator implements Spliterator<T> {
+        // Pieces smaller than this are not split again (not worth a task)
+        private static final int MIN_SPLIT = 1024;
+
+        private DNode<T> current;
+        private int remaining;
+        private final int expectedModCount;
+
+        MySpliterator(DNode<T> current, int remaining, int expectedModCount) {
+            this.current = current;
+            this.remaining = remaining;
+            this.expectedModCount = expectedModCount;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super T> action) {
+            if (remaining <= 0 || current == null) {
+                checkForComodification();
+                return false;
+            }
+            T data = current.data;
+            current = current.next;
+            remaining--;
+            action.accept(data);
+            checkForComodification();
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super T> action) {
+            DNode<T> node = current;
+            for (int i = remaining; i > 0 && node != null; i--) {
+                action.accept(node.data);
+                node = node.next;
+            }
+            current = node;
+            remaining = 0;
+            checkForComodification();
+        }
+
+        @Override
+        public Spliterator<T> trySplit() {
+            if (remaining < 2 * MIN_SPLIT) {
+                return null;
+            }
+            int half = remaining / 2;
+            DNode<T> firstHalf = current;
+            for (int i = 0; i < half && current != null; i++) {
+                current = current.next;
+            }
+            remaining -= half;
+            return new MySpliterator(firstHalf, half, expectedModCount);
+        }
+
+        @Override
+        public long estimateSize() {
+            return remaining;
+        }
+
+        @Override
+        public int characteristics() {
+            return Spliterator.ORDERED | Spliterator.SIZED | Spliterator.SUBSIZED;
+        }
+
+        private void checkForComodification() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+        }
+    }
+
+    /**
+     * The iterator returned by iterator() and descendingIterator().
+     */
+    private class MyIterator implements Iterator<T> {
+        private final boolean descending;
+        private DNode<T> nextNode;     // The node next() will return
+        private DNode<T> lastReturned; // The node next() last returned
+        private int expectedModCount = modCount;
+
+        MyIterator(boolean descending) {
+            this.descending = descending;
+            this.nextNode = descending ? tail : head;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return nextNode != null;
+        }
+
+        @Override
+        public T next() {
+            checkForComodification();
+            if (nextNode == null) {
+                throw new NoSuchElementException();
+            }
+            lastReturned = nextNode;
+            nextNode = descending ? nextNode.prev : nextNode.next;
+            return lastReturned.data;
+        }
+
+        @Override
+        public void remove() {
+            checkForComodification();
+            if (lastReturned == null) {
+                throw new IllegalStateException();
+            }
+            unlink(lastReturned);
+            lastReturned = null;
+            expectedModCount = modCount;
+        }
+
+        private void checkForComodification() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+        }
+    }
+}
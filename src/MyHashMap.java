@@ -0,0 +1,270 @@
+
+import java.util.Arrays;
+import java.util.function.BiConsumer;
+
+/**
+ *
+ * @author mraah
+ */
+/**
+ * Our custom implementation of a Hash Map (open addressing, linear probing).
+ * We use it as an index next to the master lists, so looking up an
+ * entity by its ID is O(1) expected instead of a linear scan.
+ * @param <K> The type of the keys (e.g., a product ID).
+ * @param <V> The type of the values (e.g., a Product).
+ */
+public class MyHashMap<K, V> {
+
+    // A special marker for a slot whose entry was removed ("tombstone").
+    // Lookups must keep probing past it, but put() may reuse it.
+    private static final Object DELETED = new Object();
+
+    // The table is always a power of two, so (hash & mask) picks a slot.
+    private static final int DEFAULT_CAPACITY = 16;
+
+    // 1. The keys and values live in two parallel arrays.
+    private Object[] keys;
+    private Object[] values;
+
+    // 2. The number of live entries (the size).
+    private int size;
+
+    // 3. The number of used slots (live entries + tombstones).
+    //    We resize when this passes half the table, so probe runs stay short.
+    private int used;
+
+    /**
+     * Constructor to create a new, empty hash map.
+     */
+    public MyHashMap() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructor to create an empty hash map sized for "expectedSize" entries.
+     * @param expectedSize How many entries we expect to store.
+     */
+    public MyHashMap(int expectedSize) {
+        int capacity = DEFAULT_CAPACITY;
+        while (capacity < expectedSize * 2) {
+            capacity <<= 1;
+        }
+        this.keys = new Object[capacity];
+        this.values = new Object[capacity];
+    }
+
+    /**
+     * Adds or replaces the value for a key.
+     * (Time Complexity: O(1) expected)
+     * @param key The key (must not be null).
+     * @param value The value to store.
+     * @return The previous value, or null if there was none.
+     */
+    public V put(K key, V value) {
+        return insert(key, value, true);
+    }
+
+    /**
+     * Adds the value only if the key is not already present.
+     * (Time Complexity: O(1) expected)
+     * @param key The key (must not be null).
+     * @param value The value to store.
+     * @return The existing value, or null if the new value was added.
+     */
+    public V putIfAbsent(K key, V value) {
+        return insert(key, value, false);
+    }
+
+    /**
+     * Retrieves the value for a key.
+     * (Time Complexity: O(1) expected)
+     * @param key The key to look up.
+     * @return The value, or null if the key is not present.
+     */
+    @SuppressWarnings("unchecked")
+    public V get(Object key) {
+        int slot = findSlot(key);
+        return slot < 0 ? null : (V) values[slot];
+    }
+
+    /**
+     * Checks if the map contains a key.
+     * (Time Complexity: O(1) expected)
+     * @param key The key to look up.
+     * @return true if the key is present.
+     */
+    public boolean containsKey(Object key) {
+        return findSlot(key) >= 0;
+    }
+
+    /**
+     * Removes the entry for a key (leaves a tombstone in its slot).
+     * (Time Complexity: O(1) expected)
+     * @param key The key to remove.
+     * @return The removed value, or null if the key was not present.
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(Object key) {
+        int slot = findSlot(key);
+        if (slot < 0) {
+            return null;
+        }
+        V old = (V) values[slot];
+        keys[slot] = DELETED;
+        values[slot] = null;
+        size--;
+        return old;
+    }
+
+    /**
+     * Removes every entry.
+     * (Time Complexity: O(capacity))
+     */
+    public void clear() {
+        Arrays.fill(keys, null);
+        Arrays.fill(values, null);
+        size = 0;
+        used = 0;
+    }
+
+    /**
+     * Performs the action for every (key, value) entry, in table order.
+     * (Time Complexity: O(capacity))
+     * @param action The action to perform.
+     */
+    @SuppressWarnings("unchecked")
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        for (int i = 0; i < keys.length; i++) {
+            Object k = keys[i];
+            if (k != null && k != DELETED) {
+                action.accept((K) k, (V) values[i]);
+            }
+        }
+    }
+
+    /**
+     * Returns the number of entries in the map.
+     * (Time Complexity: O(1))
+     * @return The size (int).
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Checks if the map is empty.
+     * (Time Complexity: O(1))
+     * @return true if the map is empty.
+     */
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    // --- Internal helpers ---
+
+    /**
+     * Spreads the bits of hashCode() so keys like "101", "102", ...
+     * do not all land in neighbouring slots.
+     */
+    private static int hash(Object key) {
+        int h = key.hashCode() * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Returns the slot holding "key", or -1 if it is not present.
+     */
+    private int findSlot(Object key) {
+        if (key == null) {
+            return -1;
+        }
+        int mask = keys.length - 1;
+        int slot = hash(key) & mask;
+        // 1. Probe forward until we hit an empty slot (end of the run)
+        while (true) {
+            Object k = keys[slot];
+            if (k == null) {
+                return -1; // Not found
+            }
+            if (k != DELETED && k.equals(key)) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private V insert(K key, V value, boolean replace) {
+        if (key == null) {
+            throw new IllegalArgumentException("MyHashMap does not allow null keys");
+        }
+        int mask = keys.length - 1;
+        int slot = hash(key) & mask;
+        int firstTombstone = -1;
+
+        // 1. Probe until we find the key, or an empty slot
+        while (true) {
+            Object k = keys[slot];
+            if (k == null) {
+                break;
+            }
+            if (k == DELETED) {
+                if (firstTombstone < 0) {
+                    firstTombstone = slot;
+                }
+            } else if (k.equals(key)) {
+                // 2. The key exists: replace (or keep) its value
+                V old = (V) values[slot];
+                if (replace) {
+                    values[slot] = value;
+                }
+                return old;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        // 3. New key: reuse a tombstone if we passed one, otherwise the empty slot
+        if (firstTombstone >= 0) {
+            slot = firstTombstone;
+        } else {
+            used++;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        size++;
+
+        // 4. Keep the table at most half full (counting tombstones)
+        if (used * 2 > keys.length) {
+            resize();
+        }
+        return null;
+    }
+
+    /**
+     * Rebuilds the table (dropping tombstones), doubling it if needed.
+     * (Time Complexity: O(capacity), amortized O(1) per put)
+     */
+    private void resize() {
+        Object[] oldKeys = keys;
+        Object[] oldValues = values;
+        int capacity = oldKeys.length;
+        if (size * 4 > capacity) {
+            capacity <<= 1; // Mostly live entries: grow
+        }
+        keys = new Object[capacity];
+        values = new Object[capacity];
+        used = size;
+        int mask = capacity - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            Object k = oldKeys[i];
+            if (k != null && k != DELETED) {
+                int slot = hash(k) & mask;
+                while (keys[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = k;
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+}
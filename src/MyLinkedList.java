@@ -1,13 +1,22 @@
 
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
 /**
  *
  * @author mraah
  */
 /**
  * Our custom implementation of a Linked List data structure.
+ * It is Iterable, so callers can walk it with a for-each loop in O(N)
+ * instead of calling get(i) in a loop (which is O(N^2)).
  * @param <T> The type of data this list will store.
  */
-public class MyLinkedList<T> {
+public class MyLinkedList<T> implements Iterable<T> {
 
     // 1. A pointer to the first node (the "head" of the list).
     private Node<T> head;
@@ -18,6 +27,16 @@ public class MyLinkedList<T> {
     // 3. A variable to keep track of the number of elements (the size).
     private int size;
 
+    // 4. Counts structural changes (add/remove) so iterators can "fail fast"
+    //    if the list is modified behind their back.
+    private int modCount;
+
+    // 5. The number the next added node gets, and whether the numbers still
+    //    grow from head to tail (true unless transferFrom joined two lists
+    //    out of order), so a removed node's place can be found again.
+    private long nextSeq;
+    private boolean inOrder = true;
+
     /**
      * Constructor to create a new, empty linked list.
      */
@@ -34,6 +53,8 @@ public class MyLinkedList<T> {
      */
     public void add(T data) {
         Node<T> newNode = new Node<>(data); // 1. Create the new node
+        newNode.linked = true;
+        newNode.seq = nextSeq++;
 
         if (isEmpty()) {
             // 2. If the list is empty: the head and tail are the new node
@@ -47,6 +68,7 @@ public class MyLinkedList<T> {
         }
         
         size++; // 5. Increment the size
+        modCount++;
     }
 
     /**
@@ -88,11 +110,13 @@ public class MyLinkedList<T> {
 
         // 2. Special case: removing the head (the first element)
         if (index == 0) {
+            Node<T> oldHead = head;
             head = head.next; // The new head is the second element
             // If the list became empty, update the tail as well
             if (head == null) {
                 tail = null;
             }
+            detach(oldHead);
         } else {
             // 3. General case: removing from the middle or end
             Node<T> current = head;
@@ -112,9 +136,11 @@ public class MyLinkedList<T> {
             if (current.next == null) {
                 tail = current; // The new tail is "current"
             }
+            detach(nodeToRemove);
         }
 
         size--; // 5. Decrement the size
+        modCount++;
         return true; // Removal successful
     }
 
@@ -135,4 +161,290 @@ public class MyLinkedList<T> {
     public boolean isEmpty() {
         return this.size == 0;
     }
+
+    /**
+     * Returns a fail-fast iterator over the list, from head to tail.
+     * Each call to next() is O(1), so a full scan is O(N).
+     * @return A new iterator.
+     */
+    @Override
+    public Iterator<T> iterator() {
+        return new MyIterator();
+    }
+
+    /**
+     * Returns a Spliterator over the list (ordered and sized) that splits
+     * into two equal halves, so a parallel stream gets balanced pieces.
+     * A linked list has no O(1) middle: each split walks half of its
+     * nodes (only following "next", no copying).
+     * @return A new spliterator.
+     */
+    @Override
+    public Spliterator<T> spliterator() {
+        return new MySpliterator(head, size, modCount);
+    }
+
+    /**
+     * Moves every element of "other" to the end of this list, leaving
+     * "other" empty. No nodes are copied: the two chains are linked.
+     * (Time Complexity: O(1))
+     * @param other The list to empty into this one (not this list itself).
+     */
+    void transferFrom(MyLinkedList<T> other) {
+        if (other == this) {
+            throw new IllegalArgumentException("cannot transfer a list into itself");
+        }
+        if (other.isEmpty()) {
+            return;
+        }
+        if (isEmpty()) {
+            head = other.head;
+        } else {
+            tail.next = other.head;
+        }
+        // The moved nodes keep their numbers: they still grow from head
+        // to tail only if all of other's come after all of ours
+        inOrder = inOrder && other.inOrder && (tail == null || other.head.seq > tail.seq);
+        nextSeq = Math.max(nextSeq, other.nextSeq);
+        tail = other.tail;
+        size += other.size;
+        modCount++;
+        other.head = null;
+        other.tail = null;
+        other.size = 0;
+        other.modCount++;
+    }
+
+    /**
+     * Performs the action for every element, from head to tail.
+     * (Time Complexity: O(N))
+     * @param action The action to perform.
+     */
+    @Override
+    public void forEach(Consumer<? super T> action) {
+        int expectedModCount = modCount;
+        for (Node<T> current = head; current != null; current = current.next) {
+            action.accept(current.data);
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+        }
+    }
+
+    /**
+     * Copies up to "limit" elements into "out", starting right after the
+     * node "after" (or at the head if it is null), and returns the node of
+     * the last element copied ("after" itself if none was). Passing that
+     * node back in reads the next page, so each page costs O(limit) no
+     * matter how deep into the list it is - unlike get(i).
+     * If "after" was removed in the meantime, the page starts at the first
+     * node added after it (nodes are numbered as they are added), which
+     * costs one O(N) walk.
+     * (Time Complexity: O(limit), or O(N) after a removal)
+     * @param after The last node of the previous page, or null to start.
+     * @param limit The most elements to copy.
+     * @param out The list to add them to.
+     * @throws ConcurrentModificationException if "after" was removed and
+     *         this list was joined out of order by transferFrom.
+     */
+    Node<T> copyAfter(Node<T> after, int limit, MyLinkedList<T> out) {
+        // 1. Find where the page starts
+        Node<T> current;
+        if (after == null) {
+            current = head;
+        } else if (after.linked) {
+            current = after.next;
+        } else {
+            if (!inOrder) {
+                throw new ConcurrentModificationException();
+            }
+            current = head;
+            while (current != null && current.seq <= after.seq) {
+                current = current.next;
+            }
+        }
+        // 2. Copy the page
+        Node<T> last = after;
+        for (int i = 0; i < limit && current != null; i++) {
+            out.add(current.data);
+            last = current;
+            current = current.next;
+        }
+        return last;
+    }
+
+    /**
+     * Removes every element that matches the filter, unlinking the nodes
+     * in place during a single pass.
+     * (Time Complexity: O(N))
+     * @param filter The condition for removal.
+     * @return true if any element was removed.
+     */
+    public boolean removeIf(Predicate<? super T> filter) {
+        boolean removed = false;
+        Node<T> previous = null;
+        Node<T> current = head;
+        while (current != null) {
+            Node<T> next = current.next;
+            if (filter.test(current.data)) {
+                unlink(previous, current);
+                removed = true;
+            } else {
+                previous = current;
+            }
+            current = next;
+        }
+        return removed;
+    }
+
+    /**
+     * Unlinks "node", whose predecessor is "previous" (null if node is the head).
+     */
+    private void unlink(Node<T> previous, Node<T> node) {
+        if (previous == null) {
+            head = node.next;
+        } else {
+            previous.next = node.next;
+        }
+        if (node == tail) {
+            tail = previous;
+        }
+        detach(node);
+        size--;
+        modCount++;
+    }
+
+    /**
+     * Marks a node that was just taken out of the list as removed.
+     */
+    private static void detach(Node<?> node) {
+        node.next = null;
+        node.linked = false;
+    }
+
+    /**
+     * The spliterator returned by spliterator(): "remaining" nodes from
+     * "current" on. trySplit() hands out the first half and keeps the
+     * second, so both pieces stay ordered and exactly sized.
+     */
+    private class MySpliterator implements Spliterator<T> {
+        // Pieces smaller than this are not split again (not worth a task)
+        private static final int MIN_SPLIT = 1024;
+
+        private Node<T> current;
+        private int remaining;
+        private final int expectedModCount;
+
+        MySpliterator(Node<T> current, int remaining, int expectedModCount) {
+            this.current = current;
+            this.remaining = remaining;
+            this.expectedModCount = expectedModCount;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super T> action) {
+            if (remaining <= 0 || current == null) {
+                checkForComodification();
+                return false;
+            }
+            T data = current.data;
+            current = current.next;
+            remaining--;
+            action.accept(data);
+            checkForComodification();
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super T> action) {
+            // 1. Walk the rest in one tight loop
+            Node<T> node = current;
+            for (int i = remaining; i > 0 && node != null; i--) {
+                action.accept(node.data);
+                node = node.next;
+            }
+            current = node;
+            remaining = 0;
+            // 2. Fail fast once at the end instead of after every element
+            checkForComodification();
+        }
+
+        @Override
+        public Spliterator<T> trySplit() {
+            if (remaining < 2 * MIN_SPLIT) {
+                return null;
+            }
+            // Walk to the middle: the first half becomes the new piece
+            int half = remaining / 2;
+            Node<T> firstHalf = current;
+            for (int i = 0; i < half && current != null; i++) {
+                current = current.next;
+            }
+            remaining -= half;
+            return new MySpliterator(firstHalf, half, expectedModCount);
+        }
+
+        @Override
+        public long estimateSize() {
+            return remaining;
+        }
+
+        @Override
+        public int characteristics() {
+            return Spliterator.ORDERED | Spliterator.SIZED | Spliterator.SUBSIZED;
+        }
+
+        private void checkForComodification() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+        }
+    }
+
+    /**
+     * The iterator returned by iterator().
+     * It remembers the node before the last returned one, so remove() is O(1).
+     */
+    private class MyIterator implements Iterator<T> {
+        private Node<T> nextNode = head;     // The node next() will return
+        private Node<T> lastReturned = null; // The node next() last returned
+        private Node<T> beforeLast = null;   // The node before lastReturned
+        private int expectedModCount = modCount;
+
+        @Override
+        public boolean hasNext() {
+            return nextNode != null;
+        }
+
+        @Override
+        public T next() {
+            checkForComodification();
+            if (nextNode == null) {
+                throw new NoSuchElementException();
+            }
+            if (lastReturned != null) {
+                beforeLast = lastReturned;
+            }
+            lastReturned = nextNode;
+            nextNode = nextNode.next;
+            return lastReturned.data;
+        }
+
+        @Override
+        public void remove() {
+            checkForComodification();
+            if (lastReturned == null) {
+                throw new IllegalStateException();
+            }
+            unlink(beforeLast, lastReturned);
+            lastReturned = null; // beforeLast stays the same
+            expectedModCount = modCount;
+        }
+
+        private void checkForComodification() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+        }
+    }
 }
@@ -0,0 +1,275 @@
+
+import java.util.Comparator;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ *
+ * @author mraah
+ */
+/**
+ * Our custom implementation of a Skip List: an ordered map whose keys are
+ * kept sorted by a Comparator. It is the ordered-index counterpart of
+ * MyHashMap: lookups, inserts and removals are O(log N) expected, and
+ * walking a key range costs O(log N + K) for K results.
+ * The bottom level is doubly linked, so ranges can be walked in both directions.
+ * @param <K> The type of the keys (must be unique under the comparator).
+ * @param <V> The type of the values.
+ */
+public class MySkipList<K, V> {
+
+    // Each level is half as dense as the one below it (p = 1/2).
+    private static final int MAX_LEVEL = 32;
+
+    /**
+     * A single entry in the skip list.
+     * next[i] is the following entry on level i; prev only exists on level 0.
+     */
+    public static final class Entry<K, V> {
+        final K key;
+        V value;
+        final Entry<K, V>[] next;
+        Entry<K, V> prev;
+
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        Entry(K key, V value, int levels) {
+            this.key = key;
+            this.value = value;
+            this.next = (Entry<K, V>[]) new Entry[levels];
+        }
+
+        public K getKey() {
+            return key;
+        }
+
+        public V getValue() {
+            return value;
+        }
+
+        public void setValue(V value) {
+            this.value = value;
+        }
+
+        /** The next entry in key order (null at the end). */
+        public Entry<K, V> next() {
+            return next[0];
+        }
+
+        /** The previous entry in key order (null at the start). */
+        public Entry<K, V> prev() {
+            return prev;
+        }
+    }
+
+    // 1. The head is a sentinel entry with no key that has every level.
+    private final Entry<K, V> head;
+
+    // 2. The last entry on level 0, so descending walks start in O(1).
+    private Entry<K, V> tail;
+
+    // 3. How many levels are currently in use, and the number of entries.
+    private int level;
+    private int size;
+
+    private final Comparator<? super K> comparator;
+
+    /**
+     * Constructor to create a new, empty skip list.
+     * @param comparator The order of the keys.
+     */
+    public MySkipList(Comparator<? super K> comparator) {
+        this.comparator = comparator;
+        this.head = new Entry<>(null, null, MAX_LEVEL);
+        this.tail = null;
+        this.level = 1;
+        this.size = 0;
+    }
+
+    /**
+     * Adds or replaces the value for a key.
+     * (Time Complexity: O(log N) expected)
+     * @return The previous value, or null if the key was new.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public V put(K key, V value) {
+        Entry<K, V>[] update = (Entry<K, V>[]) new Entry[MAX_LEVEL];
+        Entry<K, V> x = head;
+
+        // 1. Walk down the levels, remembering the last entry before "key"
+        for (int i = level - 1; i >= 0; i--) {
+            while (x.next[i] != null && comparator.compare(x.next[i].key, key) < 0) {
+                x = x.next[i];
+            }
+            update[i] = x;
+        }
+
+        // 2. The key exists: just replace the value
+        Entry<K, V> found = x.next[0];
+        if (found != null && comparator.compare(found.key, key) == 0) {
+            V old = found.value;
+            found.value = value;
+            return old;
+        }
+
+        // 3. Pick a random height and link the new entry on each of its levels
+        int newLevel = randomLevel();
+        if (newLevel > level) {
+            for (int i = level; i < newLevel; i++) {
+                update[i] = head;
+            }
+            level = newLevel;
+        }
+        Entry<K, V> entry = new Entry<>(key, value, newLevel);
+        for (int i = 0; i < newLevel; i++) {
+            entry.next[i] = update[i].next[i];
+            update[i].next[i] = entry;
+        }
+
+        // 4. Fix the level-0 back pointers
+        entry.prev = (update[0] == head) ? null : update[0];
+        if (entry.next[0] != null) {
+            entry.next[0].prev = entry;
+        } else {
+            tail = entry;
+        }
+        size++;
+        return null;
+    }
+
+    /**
+     * Retrieves the value for a key.
+     * (Time Complexity: O(log N) expected)
+     * @return The value, or null if the key is not present.
+     */
+    public V get(K key) {
+        Entry<K, V> e = ceilingEntry(key, true);
+        return (e != null && comparator.compare(e.key, key) == 0) ? e.value : null;
+    }
+
+    /**
+     * Removes the entry for a key.
+     * (Time Complexity: O(log N) expected)
+     * @return The removed value, or null if the key was not present.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public V remove(K key) {
+        Entry<K, V>[] update = (Entry<K, V>[]) new Entry[MAX_LEVEL];
+        Entry<K, V> x = head;
+        for (int i = level - 1; i >= 0; i--) {
+            while (x.next[i] != null && comparator.compare(x.next[i].key, key) < 0) {
+                x = x.next[i];
+            }
+            update[i] = x;
+        }
+
+        Entry<K, V> target = x.next[0];
+        if (target == null || comparator.compare(target.key, key) != 0) {
+            return null; // Not found
+        }
+
+        // 1. Unlink it from every level it is on
+        for (int i = 0; i < target.next.length; i++) {
+            update[i].next[i] = target.next[i];
+        }
+        // 2. Fix the level-0 back pointers
+        if (target.next[0] != null) {
+            target.next[0].prev = target.prev;
+        } else {
+            tail = target.prev;
+        }
+        // 3. Drop levels that became empty
+        while (level > 1 && head.next[level - 1] == null) {
+            level--;
+        }
+        size--;
+        return target.value;
+    }
+
+    /**
+     * Returns the entry with the smallest key (null if empty).
+     * (Time Complexity: O(1))
+     */
+    public Entry<K, V> firstEntry() {
+        return head.next[0];
+    }
+
+    /**
+     * Returns the entry with the largest key (null if empty).
+     * (Time Complexity: O(1))
+     */
+    public Entry<K, V> lastEntry() {
+        return tail;
+    }
+
+    /**
+     * Returns the first entry whose key is >= key (or > key if not inclusive).
+     * (Time Complexity: O(log N) expected)
+     */
+    public Entry<K, V> ceilingEntry(K key, boolean inclusive) {
+        Entry<K, V> x = head;
+        for (int i = level - 1; i >= 0; i--) {
+            while (x.next[i] != null && before(x.next[i].key, key, inclusive)) {
+                x = x.next[i];
+            }
+        }
+        return x.next[0];
+    }
+
+    /**
+     * Returns the last entry whose key is <= key (or < key if not inclusive).
+     * (Time Complexity: O(log N) expected)
+     */
+    public Entry<K, V> floorEntry(K key, boolean inclusive) {
+        Entry<K, V> x = head;
+        for (int i = level - 1; i >= 0; i--) {
+            while (x.next[i] != null && before(x.next[i].key, key, !inclusive)) {
+                x = x.next[i];
+            }
+        }
+        return (x == head) ? null : x;
+    }
+
+    /**
+     * Returns the number of entries.
+     * (Time Complexity: O(1))
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Checks if the skip list is empty.
+     * (Time Complexity: O(1))
+     */
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    /**
+     * Removes every entry.
+     */
+    public void clear() {
+        for (int i = 0; i < MAX_LEVEL; i++) {
+            head.next[i] = null;
+        }
+        tail = null;
+        level = 1;
+        size = 0;
+    }
+
+    // --- Internal helpers ---
+
+    /**
+     * true if "a" comes before "b": a < b when strictly, a <= b otherwise.
+     */
+    private boolean before(K a, K b, boolean strictly) {
+        int c = comparator.compare(a, b);
+        return strictly ? c < 0 : c <= 0;
+    }
+
+    private static int randomLevel() {
+        // Count the trailing 1-bits of a random int: P(level > n) = 1/2^n
+        int bits = ThreadLocalRandom.current().nextInt();
+        int lvl = 1 + Integer.numberOfTrailingZeros(~bits);
+        return Math.min(lvl, MAX_LEVEL);
+    }
+}
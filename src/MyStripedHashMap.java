@@ -0,0 +1,192 @@
+
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiConsumer;
+
+/**
+ *
+ * @author mraah
+ */
+/**
+ * A thread-safe hash map made of several MyHashMaps ("stripes"), each
+ * guarded by its own read-write lock. A key always lives in the same
+ * stripe, so threads working on keys in different stripes never wait
+ * for each other, and many threads can read the same stripe at once.
+ * Every single-key operation is atomic (linearizable).
+ * @param <K> The type of the keys (e.g., a product ID).
+ * @param <V> The type of the values (e.g., a Product).
+ */
+public class MyStripedHashMap<K, V> {
+
+    // 16 stripes: enough that a few dozen threads rarely meet on one lock
+    private static final int STRIPE_BITS = 4;
+    private static final int STRIPES = 1 << STRIPE_BITS;
+
+    // 1. The stripes, and the lock of each one (same index)
+    private final MyHashMap<K, V>[] maps;
+    private final ReentrantReadWriteLock[] locks;
+
+    /**
+     * Constructor to create a new, empty striped map.
+     */
+    public MyStripedHashMap() {
+        this(0);
+    }
+
+    /**
+     * Constructor to create an empty striped map sized for "expectedSize" entries.
+     * @param expectedSize How many entries we expect to store (in total).
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public MyStripedHashMap(int expectedSize) {
+        this.maps = (MyHashMap<K, V>[]) new MyHashMap[STRIPES];
+        this.locks = new ReentrantReadWriteLock[STRIPES];
+        for (int i = 0; i < STRIPES; i++) {
+            maps[i] = new MyHashMap<>(expectedSize / STRIPES);
+            locks[i] = new ReentrantReadWriteLock();
+        }
+    }
+
+    /**
+     * Adds or replaces the value for a key.
+     * (Time Complexity: O(1) expected)
+     * @return The previous value, or null if there was none.
+     */
+    public V put(K key, V value) {
+        int s = stripe(key);
+        locks[s].writeLock().lock();
+        try {
+            return maps[s].put(key, value);
+        } finally {
+            locks[s].writeLock().unlock();
+        }
+    }
+
+    /**
+     * Adds the value only if the key is not already present (atomically).
+     * (Time Complexity: O(1) expected)
+     * @return The existing value, or null if the new value was added.
+     */
+    public V putIfAbsent(K key, V value) {
+        int s = stripe(key);
+        locks[s].writeLock().lock();
+        try {
+            return maps[s].putIfAbsent(key, value);
+        } finally {
+            locks[s].writeLock().unlock();
+        }
+    }
+
+    /**
+     * Retrieves the value for a key.
+     * (Time Complexity: O(1) expected)
+     * @return The value, or null if the key is not present.
+     */
+    public V get(Object key) {
+        if (key == null) {
+            return null;
+        }
+        int s = stripe(key);
+        locks[s].readLock().lock();
+        try {
+            return maps[s].get(key);
+        } finally {
+            locks[s].readLock().unlock();
+        }
+    }
+
+    /**
+     * Checks if the map contains a key.
+     * (Time Complexity: O(1) expected)
+     */
+    public boolean containsKey(Object key) {
+        return get(key) != null;
+    }
+
+    /**
+     * Removes the entry for a key.
+     * (Time Complexity: O(1) expected)
+     * @return The removed value, or null if the key was not present.
+     */
+    public V remove(Object key) {
+        if (key == null) {
+            return null;
+        }
+        int s = stripe(key);
+        locks[s].writeLock().lock();
+        try {
+            return maps[s].remove(key);
+        } finally {
+            locks[s].writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the number of entries (a moment-in-time total over the stripes).
+     * (Time Complexity: O(stripes))
+     */
+    public int size() {
+        int total = 0;
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i].readLock().lock();
+            try {
+                total += maps[i].size();
+            } finally {
+                locks[i].readLock().unlock();
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Checks if the map is empty.
+     * (Time Complexity: O(stripes))
+     */
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * Removes every entry.
+     * (Time Complexity: O(capacity))
+     */
+    public void clear() {
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i].writeLock().lock();
+            try {
+                maps[i].clear();
+            } finally {
+                locks[i].writeLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * Performs the action for every (key, value) entry, one stripe at a time
+     * (each stripe is read-locked while its entries are visited).
+     * (Time Complexity: O(capacity))
+     */
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i].readLock().lock();
+            try {
+                maps[i].forEach(action);
+            } finally {
+                locks[i].readLock().unlock();
+            }
+        }
+    }
+
+    // --- Internal helpers ---
+
+    /**
+     * Picks the stripe from the *top* bits of the spread hash
+     * (MyHashMap uses the bottom bits to pick a slot inside the stripe).
+     */
+    private static int stripe(Object key) {
+        if (key == null) {
+            throw new IllegalArgumentException("MyStripedHashMap does not allow null keys");
+        }
+        int h = key.hashCode() * 0x9E3779B9;
+        return h >>> (32 - STRIPE_BITS);
+    }
+}
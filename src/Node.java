@@ -16,6 +16,13 @@ public class Node<T> {
     // 2. The pointer (reference) to the next node in the chain.
     Node<T> next;
 
+    // 3. Whether the node is still in its list (cleared when it is removed,
+    //    together with "next", so nothing walks on from a removed node).
+    boolean linked;
+
+    // 4. Its place in the order its list was built in (see MyLinkedList.copyAfter).
+    long seq;
+
     /**
      * Constructor to create a new node.
      * @param data The data to be stored.
@@ -1,20 +1,40 @@
 // We need this for the 'orderDate' attribute
+import java.util.Arrays;
 import java.util.Date; 
+import java.util.Objects;
 
 /**
  * Represents a single order placed by a customer.
  * It contains a list of products, the total price, 
  * date, and status. 
+ *
+ * The products are kept as packed line items: one slot per distinct
+ * product (and unit price) with a quantity, in three parallel arrays.
+ * Buying five of one product uses one slot, not five list nodes, and the
+ * total is kept as an exact number of cents.
  */
 public class Order {
 
     // --- Attributes --- 
     private String orderId;
     private String customerId; // Reference to the customer 
-    private MyLinkedList<Product> products; // The list of products in this order 
-    private double totalPrice; // The total price of the order 
+    // The line items: lineProducts[i] bought lineQuantities[i] times at lineUnitCents[i] each
+    private Product[] lineProducts;
+    private int[] lineQuantities;
+    private long[] lineUnitCents;
+    private int lineCount;
+    private int itemCount; // The number of units (the sum of the quantities)
+    private long totalCents; // The total price of the order, in cents 
     private Date orderDate; // The date the order was placed 
-    private String status; // e.g., "pending", "shipped", "delivered" 
+    private OrderStatus status; // PENDING, SHIPPED, DELIVERED or CANCELED 
+    private boolean stockTaken; // true if placing it took its items out of the stock
+
+    // The links of the OrderStatusIndex queue this order is in (kept by that index)
+    Order statusPrev;
+    Order statusNext;
+
+    // The system that must be told when the status changes (null if none)
+    private OrderListener listener;
 
     /**
      * Constructor to create a new, pending order.
@@ -24,9 +44,11 @@ public class Order {
         this.customerId = customerId;
         this.orderDate = orderDate;
         
-        this.products = new MyLinkedList<>(); // Initialize our custom list
-        this.status = "pending"; // Default status
-        this.totalPrice = 0.0;
+        this.lineProducts = new Product[4];
+        this.lineQuantities = new int[4];
+        this.lineUnitCents = new long[4];
+        this.status = OrderStatus.PENDING; // Default status
+        this.totalCents = 0;
     }
 
     /**
@@ -34,8 +56,65 @@ public class Order {
      * @param product The product to add.
      */
     public void addProductToOrder(Product product) {
-        this.products.add(product);
-        this.totalPrice += product.getPrice(); // Update the total
+        addProductToOrder(product, 1);
+    }
+
+    /**
+     * Adds several units of a product at its current price.
+     * (Time Complexity: O(L) for L line items)
+     * @param product The product to add.
+     * @param quantity How many units (at least 1).
+     */
+    public void addProductToOrder(Product product, int quantity) {
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("quantity must be positive: " + quantity);
+        }
+        addLine(product, quantity, toCents(product.getPrice()));
+    }
+
+    /**
+     * Adds a line item with the price it had when the order was placed
+     * (used when an order is loaded back from a snapshot or the journal).
+     */
+    void restoreLine(Product product, int quantity, long unitCents) {
+        addLine(product, quantity, unitCents);
+    }
+
+    private void addLine(Product product, int quantity, long unitCents) {
+        // 1. Same product at the same price: just raise the quantity
+        int line = findLine(product, unitCents);
+        if (line < 0) {
+            // 2. Otherwise a new slot (doubling the arrays when full)
+            if (lineCount == lineProducts.length) {
+                int capacity = lineCount * 2;
+                lineProducts = Arrays.copyOf(lineProducts, capacity);
+                lineQuantities = Arrays.copyOf(lineQuantities, capacity);
+                lineUnitCents = Arrays.copyOf(lineUnitCents, capacity);
+            }
+            line = lineCount++;
+            lineProducts[line] = product;
+            lineUnitCents[line] = unitCents;
+        }
+        lineQuantities[line] += quantity;
+        itemCount += quantity;
+        totalCents += unitCents * quantity; // Update the total
+    }
+
+    private int findLine(Product product, long unitCents) {
+        // Newest first: a cart usually adds the same product again right away
+        for (int i = lineCount - 1; i >= 0; i--) {
+            if (lineProducts[i] == product && lineUnitCents[i] == unitCents) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Turns a price into whole cents (rounded to the nearest cent).
+     */
+    public static long toCents(double price) {
+        return Math.round(price * 100);
     }
 
     // --- Getters ---
@@ -48,30 +127,143 @@ public class Order {
         return customerId;
     }
 
+    /**
+     * Returns the products with one entry per unit (a product bought three
+     * times is listed three times). The list is built on every call, so
+     * prefer the line item getters below when walking big orders.
+     * (Time Complexity: O(number of units))
+     */
     public MyLinkedList<Product> getProducts() {
+        MyLinkedList<Product> products = new MyLinkedList<>();
+        for (int i = 0; i < lineCount; i++) {
+            for (int q = 0; q < lineQuantities[i]; q++) {
+                products.add(lineProducts[i]);
+            }
+        }
         return products;
     }
 
+    /**
+     * Returns the number of line items (distinct products at one price).
+     */
+    public int getLineCount() {
+        return lineCount;
+    }
+
+    public Product getLineProduct(int line) {
+        return lineProducts[Objects.checkIndex(line, lineCount)];
+    }
+
+    public int getLineQuantity(int line) {
+        return lineQuantities[Objects.checkIndex(line, lineCount)];
+    }
+
+    /**
+     * Returns the unit price of a line item, in cents, as it was when the
+     * product was added (later price changes do not affect the order).
+     */
+    public long getLineUnitCents(int line) {
+        return lineUnitCents[Objects.checkIndex(line, lineCount)];
+    }
+
+    /**
+     * Returns the number of units in the order (the sum of the quantities).
+     */
+    public int getItemCount() {
+        return itemCount;
+    }
+
     public double getTotalPrice() {
-        return totalPrice;
+        return totalCents / 100.0;
+    }
+
+    /**
+     * Returns the exact total price, in cents.
+     */
+    public long getTotalCents() {
+        return totalCents;
     }
 
     public Date getOrderDate() {
         return orderDate;
     }
 
-    public String getStatus() {
+    public OrderStatus getStatus() {
         return status;
     }
 
+    /**
+     * Checks if the order's items were taken out of the stock when it was
+     * placed (only then does canceling it put them back). Orders imported
+     * from a CSV file, or placed without a reservation, never took any.
+     */
+    public boolean isStockTaken() {
+        return stockTaken;
+    }
+
+    /**
+     * Records that the order's items were taken out of the stock (by a
+     * committed reservation, or loaded with that flag from a snapshot or
+     * the journal).
+     */
+    void markStockTaken() {
+        this.stockTaken = true;
+    }
+
     // --- Core Operations ---
 
     /**
      * Updates the status of the order.
      *  "Update order status" operation. 
-     * @param newStatus The new status (e.g., "shipped").
+     * @param newStatus The new status (e.g., SHIPPED).
+     * @throws IllegalStateException if the current status cannot change to it
+     *         (see OrderStatus.canMoveTo).
+     */
+    public void updateStatus(OrderStatus newStatus) {
+        if (!status.canMoveTo(newStatus)) {
+            throw new IllegalStateException("Order " + orderId + " is " + status
+                + " and cannot become " + newStatus);
+        }
+        restoreStatus(newStatus);
+    }
+
+    /**
+     * Updates the status of the order from text (e.g., "shipped").
+     * @throws IllegalArgumentException if the text is not a known status.
+     * @throws IllegalStateException if the current status cannot change to it.
      */
     public void updateStatus(String newStatus) {
+        updateStatus(OrderStatus.parse(newStatus));
+    }
+
+    /**
+     * Sets the status without checking the transition (used when an order
+     * is loaded, or replayed from the journal, with the status it had).
+     */
+    void restoreStatus(OrderStatus newStatus) {
+        OrderStatus oldStatus = this.status;
+        if (oldStatus == newStatus) {
+            return;
+        }
         this.status = newStatus;
+        if (listener != null) {
+            listener.onStatusChanged(this, oldStatus);
+        }
+    }
+
+    /**
+     * Registers the system that must be told when this order changes.
+     * @param listener The listener (or null to detach the order).
+     */
+    void setListener(OrderListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Restores the saved total when an order is loaded from a snapshot
+     * (prices may have changed since the order was placed).
+     */
+    void restoreTotalCents(long totalCents) {
+        this.totalCents = totalCents;
     }
 }
\ No newline at end of file
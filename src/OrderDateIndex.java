@@ -0,0 +1,157 @@
+import java.util.Date;
+
+/**
+ *
+ * @author mraah
+ */
+/**
+ * An ordered index of orders by their order date.
+ * Orders sit in a skip list keyed on (date in milliseconds, order ID), so
+ * they are in true time order - also within one day, and whatever order
+ * they were loaded or placed in. A date-range query finds its first order
+ * in O(log N) and then walks only the matching ones, so it costs
+ * O(log N + K) instead of a scan over every order.
+ * (An order's date must not change while it is in the index.)
+ */
+public class OrderDateIndex {
+
+    /**
+     * The position of an order in the index. It is also the "keyset" a
+     * paging cursor resumes from, so it stays valid even if that order is
+     * removed in the meantime.
+     * (Package-private: a QueryCursor keeps the last one it read.)
+     */
+    static final class OrderKey {
+        final long millis;
+        final String orderId;
+
+        OrderKey(long millis, String orderId) {
+            this.millis = millis;
+            this.orderId = orderId;
+        }
+
+        static OrderKey of(Order order) {
+            return new OrderKey(order.getOrderDate().getTime(), order.getOrderId());
+        }
+    }
+
+    // Oldest first, then by order ID ("" sorts before every ID, and
+    // LAST_ID after every real one, to mark the edges of a millisecond).
+    private static final String LAST_ID = "\uffff";
+
+    private static int compare(OrderKey a, OrderKey b) {
+        int c = Long.compare(a.millis, b.millis);
+        if (c != 0) {
+            return c;
+        }
+        return a.orderId.compareTo(b.orderId);
+    }
+
+    // The ordered index itself
+    private MySkipList<OrderKey, Order> byDate;
+
+    /**
+     * Constructor to create a new, empty index.
+     */
+    public OrderDateIndex() {
+        this.byDate = new MySkipList<>(OrderDateIndex::compare);
+    }
+
+    /**
+     * Adds an order to the index.
+     * (Time Complexity: O(log N) expected)
+     * @param order The order to add (orders without a date are ignored).
+     */
+    public void add(Order order) {
+        if (order.getOrderDate() == null) {
+            return;
+        }
+        byDate.put(OrderKey.of(order), order);
+    }
+
+    /**
+     * Removes an order from the index.
+     * (Time Complexity: O(log N) expected)
+     * @param order The order to remove.
+     * @return true if the order was found and removed.
+     */
+    public boolean remove(Order order) {
+        if (order.getOrderDate() == null) {
+            return false;
+        }
+        return byDate.remove(OrderKey.of(order)) != null;
+    }
+
+    /**
+     * Returns the orders whose date lies between "start" and "end".
+     * Bounds are compared at millisecond precision, exactly like Date.after/before.
+     * (Time Complexity: O(log N + K))
+     * @param start The start of the range.
+     * @param startInclusive true to include orders placed exactly at "start".
+     * @param end The end of the range.
+     * @param endInclusive true to include orders placed exactly at "end".
+     * @param descending true for newest first, false for oldest first.
+     * @return The matching orders, in date order (ties by order ID).
+     */
+    public MyLinkedList<Order> range(Date start, boolean startInclusive,
+                                     Date end, boolean endInclusive, boolean descending) {
+        MyLinkedList<Order> result = new MyLinkedList<>();
+        page(start, startInclusive, end, endInclusive, descending, null, Integer.MAX_VALUE, result);
+        return result;
+    }
+
+    /**
+     * Adds up to "limit" orders of a date range to "out", starting right
+     * after the key "after" (null to start at the beginning of the range,
+     * or at its end when descending). Calling it again with the key it
+     * returned reads the next page in O(log N + limit).
+     * @param after The key of the last order of the previous page, or null.
+     * @return The key of the last order added ("after" if none was).
+     * @see #range
+     */
+    public OrderKey page(Date start, boolean startInclusive, Date end, boolean endInclusive,
+                         boolean descending, OrderKey after, int limit, MyLinkedList<Order> out) {
+        long from = start.getTime();
+        long to = end.getTime();
+        if (from > to || limit <= 0) {
+            return after;
+        }
+        // 1. The outermost keys still in range
+        OrderKey low = startInclusive ? new OrderKey(from, "") : new OrderKey(from, LAST_ID);
+        OrderKey high = endInclusive ? new OrderKey(to, LAST_ID) : new OrderKey(to, "");
+
+        // 2. Jump to the first order of the page
+        MySkipList.Entry<OrderKey, Order> e;
+        if (!descending) {
+            e = (after == null) ? byDate.ceilingEntry(low, true) : byDate.ceilingEntry(after, false);
+        } else {
+            e = (after == null) ? byDate.floorEntry(high, true) : byDate.floorEntry(after, false);
+        }
+
+        // 3. Walk in date order until the page is full or we leave the range
+        OrderKey last = after;
+        for (int i = 0; i < limit && e != null; i++) {
+            if (descending ? compare(e.getKey(), low) < 0 : compare(e.getKey(), high) > 0) {
+                break;
+            }
+            out.add(e.getValue());
+            last = e.getKey();
+            e = descending ? e.prev() : e.next();
+        }
+        return last;
+    }
+
+    /**
+     * Returns the number of orders in the index.
+     */
+    public int size() {
+        return byDate.size();
+    }
+
+    /**
+     * Removes every order from the index.
+     */
+    public void clear() {
+        byDate.clear();
+    }
+}
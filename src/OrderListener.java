@@ -0,0 +1,17 @@
+/**
+ *
+ * @author mraah
+ */
+/**
+ * A callback that an Order uses to tell the system it has changed
+ * (the Order counterpart of ProductListener).
+ */
+public interface OrderListener {
+
+    /**
+     * Called after the order's status changed.
+     * @param order The order that changed.
+     * @param oldStatus The status it had before.
+     */
+    void onStatusChanged(Order order, OrderStatus oldStatus);
+}
@@ -0,0 +1,76 @@
+/**
+ *
+ * @author mraah
+ */
+/**
+ * The status of an order, and the changes allowed between them:
+ *
+ *   PENDING -> SHIPPED -> DELIVERED
+ *      |          |
+ *      +----------+----> CANCELED
+ *
+ * DELIVERED and CANCELED are final. Setting an order to the status it
+ * already has is always allowed (it changes nothing).
+ */
+public enum OrderStatus {
+    PENDING("Pending"),
+    SHIPPED("Shipped"),
+    DELIVERED("Delivered"),
+    CANCELED("Canceled");
+
+    // How the status is shown and saved (the CSV files use these words)
+    private final String label;
+
+    OrderStatus(String label) {
+        this.label = label;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    /**
+     * Checks if an order with this status may be changed to "next".
+     */
+    public boolean canMoveTo(OrderStatus next) {
+        if (next == this) {
+            return true;
+        }
+        switch (this) {
+            case PENDING: return next == SHIPPED || next == CANCELED;
+            case SHIPPED: return next == DELIVERED || next == CANCELED;
+            default: return false; // DELIVERED and CANCELED are final
+        }
+    }
+
+    /**
+     * Checks if no other status can follow this one.
+     */
+    public boolean isFinal() {
+        return this == DELIVERED || this == CANCELED;
+    }
+
+    /**
+     * Reads a status the way people type it: any upper/lower case, and
+     * both "canceled" and "cancelled" (the CSV files spell it that way).
+     * @throws IllegalArgumentException if the text is not a known status.
+     */
+    public static OrderStatus parse(String text) {
+        String s = text == null ? "" : text.trim();
+        for (OrderStatus status : values()) {
+            if (status.label.equalsIgnoreCase(s)) {
+                return status;
+            }
+        }
+        if (s.equalsIgnoreCase("cancelled")) {
+            return CANCELED;
+        }
+        throw new IllegalArgumentException("Unknown order status '" + s
+            + "' (expected pending, shipped, delivered or canceled)");
+    }
+
+    @Override
+    public String toString() {
+        return label;
+    }
+}
@@ -0,0 +1,110 @@
+/**
+ *
+ * @author mraah
+ */
+/**
+ * The orders grouped by status: one queue per OrderStatus, oldest first
+ * (in the order they reached that status), plus a counter per status.
+ * The queues are intrusive: the links live in the Order itself
+ * (statusPrev/statusNext), so moving an order to another status is O(1)
+ * and needs no extra node objects. An order can be in one index only.
+ */
+public class OrderStatusIndex {
+
+    private final Order[] heads;
+    private final Order[] tails;
+    private final int[] counts;
+
+    /**
+     * Constructor to create a new, empty index.
+     */
+    public OrderStatusIndex() {
+        int n = OrderStatus.values().length;
+        this.heads = new Order[n];
+        this.tails = new Order[n];
+        this.counts = new int[n];
+    }
+
+    /**
+     * Adds an order at the end of the queue for its current status.
+     * (Time Complexity: O(1))
+     */
+    public void add(Order order) {
+        int s = order.getStatus().ordinal();
+        order.statusPrev = tails[s];
+        order.statusNext = null;
+        if (tails[s] == null) {
+            heads[s] = order;
+        } else {
+            tails[s].statusNext = order;
+        }
+        tails[s] = order;
+        counts[s]++;
+    }
+
+    /**
+     * Moves an order whose status just changed from "oldStatus" to the
+     * end of the queue for its new status.
+     * (Time Complexity: O(1))
+     */
+    public void move(Order order, OrderStatus oldStatus) {
+        unlink(order, oldStatus);
+        add(order);
+    }
+
+    /**
+     * Removes an order from the index.
+     * (Time Complexity: O(1))
+     */
+    public void remove(Order order) {
+        unlink(order, order.getStatus());
+    }
+
+    private void unlink(Order order, OrderStatus status) {
+        int s = status.ordinal();
+        // 1. Link the neighbours to each other (or move the head/tail)
+        if (order.statusPrev == null) {
+            heads[s] = order.statusNext;
+        } else {
+            order.statusPrev.statusNext = order.statusNext;
+        }
+        if (order.statusNext == null) {
+            tails[s] = order.statusPrev;
+        } else {
+            order.statusNext.statusPrev = order.statusPrev;
+        }
+        // 2. Clear the order's own links
+        order.statusPrev = null;
+        order.statusNext = null;
+        counts[s]--;
+    }
+
+    /**
+     * Returns how many orders have a status.
+     * (Time Complexity: O(1))
+     */
+    public int count(OrderStatus status) {
+        return counts[status.ordinal()];
+    }
+
+    /**
+     * Returns the order that has had a status the longest (the next one to
+     * handle), or null if no order has it.
+     * (Time Complexity: O(1))
+     */
+    public Order oldest(OrderStatus status) {
+        return heads[status.ordinal()];
+    }
+
+    /**
+     * Returns the orders with a status, oldest first, in a new list.
+     * (Time Complexity: O(K), K = orders with that status)
+     */
+    public MyLinkedList<Order> list(OrderStatus status) {
+        MyLinkedList<Order> result = new MyLinkedList<>();
+        for (Order o = heads[status.ordinal()]; o != null; o = o.statusNext) {
+            result.add(o);
+        }
+        return result;
+    }
+}
@@ -1,4 +1,9 @@
 
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.Iterator;
+
 /**
  * Represents a single product in the e-commerce system.
  * It manages product details and a list of its reviews. 
@@ -9,11 +14,33 @@ public class Product {
     private String productId;
     private String name;
     private double price;
-    private int stock;
+    private int stock; // Changed with compare-and-set by reserveStock/releaseStock
     
     // Here we use our *own* data structure
     private MyLinkedList<Review> reviews; // A list of reviews 
 
+    // --- Rating Aggregates ---
+    // Kept up to date by addReview/editReview/removeReview, so the average
+    // rating and the rating distribution are O(1) reads.
+    private long ratingSum;      // Sum of all rating scores
+    private int ratingCount;     // Number of reviews
+    private int[] ratingHistogram = new int[6]; // [1]..[5] = count per star
+
+    // When true, every read of the aggregates is checked against a full
+    // recomputation over the reviews (slow - meant for tests/debugging).
+    private static boolean consistencyChecks = false;
+
+    // The system that manages this product (null while it is not in one).
+    private ProductListener listener;
+
+    // When the catalog is columnar, name/price/stock live in a ProductStore
+    // and this object is only a view of its "slot" (store is null otherwise).
+    // The name is dropped then; price and stock stay as unused fields, since
+    // a Java object cannot lose fields (the same class must work detached).
+    // "store" is volatile: the getters read it without any lock.
+    private volatile ProductStore store;
+    private int slot;
+
     /**
      * Constructor to create a new Product.
      */
@@ -34,15 +61,23 @@ public class Product {
     }
 
     public String getName() {
-        return name;
+        ProductStore s = store;
+        if (s != null) {
+            return s.name(this);
+        }
+        String n = name;
+        // (null only if we were attached meanwhile: then ask the store)
+        return (n != null || store == null) ? n : getName();
     }
     
     public double getPrice() {
-        return price;
+        ProductStore s = store;
+        return s != null ? s.price(this) : price;
     }
 
     public int getStock() {
-        return stock;
+        ProductStore s = store;
+        return s != null ? s.stock(this) : stock;
     }
 
     public MyLinkedList<Review> getReviews() {
@@ -53,17 +88,160 @@ public class Product {
     // Needed for the "update products" operation 
 
     public void setPrice(double price) {
-        this.price = price;
+        ProductStore s = store;
+        if (s != null) {
+            s.setPrice(slot, price);
+        } else {
+            this.price = price;
+        }
+        if (listener != null) {
+            listener.onPriceChanged(this);
+        }
     }
 
     public void setStock(int stock) {
-        this.stock = stock;
+        ProductStore s = store;
+        if (s != null) {
+            s.setStock(slot, stock);
+        } else {
+            this.stock = stock;
+        }
+        if (listener != null) {
+            listener.onStockChanged(this);
+        }
     }
     
     public void setName(String name) {
+        ProductStore s = store;
+        if (s != null) {
+            s.setName(slot, name);
+        } else {
+            this.name = name;
+        }
+        if (listener != null) {
+            listener.onNameChanged(this);
+        }
+    }
+
+
+    /**
+     * Registers the system that must be told when this product changes.
+     * @param listener The listener (or null to detach the product).
+     */
+    void setListener(ProductListener listener) {
+        this.listener = listener;
+    }
+
+    // --- Columnar storage (called by ProductStore) ---
+
+    /**
+     * Turns this product into a view of a slot in the store.
+     * The store has already copied our values, so we drop our own name
+     * (price and stock are ignored until detachFrom sets them again).
+     */
+    void attachTo(ProductStore store, int slot) {
+        this.slot = slot;
+        this.store = store;
+        this.name = null; // Only after "store" is set (see getName)
+    }
+
+    /**
+     * Takes back our values from the store, becoming a normal object again.
+     */
+    void detachFrom(String name, double price, int stock) {
         this.name = name;
+        this.price = price;
+        this.stock = stock;
+        this.store = null; // Only after our own values are back
+    }
+
+    /**
+     * Called when the store moves our values to another slot.
+     */
+    void moveToSlot(int slot) {
+        this.slot = slot;
+    }
+
+    int getSlot() {
+        return slot;
+    }
+
+    ProductStore getStore() {
+        return store;
+    }
+
+    // --- Inventory (safe to call from many threads at once) ---
+
+    // Gives us atomic compare-and-set on the "stock" field
+    private static final VarHandle STOCK;
+    static {
+        try {
+            STOCK = MethodHandles.lookup().findVarHandle(Product.class, "stock", int.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    /**
+     * Takes "quantity" units from the stock in one atomic step: the stock is
+     * read, checked and replaced with compare-and-set, and the attempt is
+     * retried if another thread changed it in between. So two buyers can
+     * never both take the last unit, and no thread ever blocks.
+     * (Time Complexity: O(1), plus one retry per competing change)
+     * @param quantity How many units to take (at least 1).
+     * @return The stock left, or -1 if there were fewer than "quantity" units.
+     */
+    public int reserveStock(int quantity) {
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("quantity must be positive: " + quantity);
+        }
+        while (true) {
+            int current = currentStock();
+            if (current < quantity) {
+                return -1;
+            }
+            if (compareAndSetStock(current, current - quantity)) {
+                if (listener != null) {
+                    listener.onStockChanged(this);
+                }
+                return current - quantity;
+            }
+        }
+    }
+
+    /**
+     * Puts "quantity" units back into the stock in one atomic step
+     * (the counterpart of reserveStock).
+     * (Time Complexity: O(1), plus one retry per competing change)
+     * @param quantity How many units to return (at least 1).
+     * @return The new stock.
+     */
+    public int releaseStock(int quantity) {
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("quantity must be positive: " + quantity);
+        }
+        while (true) {
+            int current = currentStock();
+            if (compareAndSetStock(current, current + quantity)) {
+                if (listener != null) {
+                    listener.onStockChanged(this);
+                }
+                return current + quantity;
+            }
+        }
     }
 
+    private int currentStock() {
+        ProductStore s = store;
+        return s != null ? s.stockVolatile(slot) : (int) STOCK.getVolatile(this);
+    }
+
+    private boolean compareAndSetStock(int expected, int updated) {
+        ProductStore s = store;
+        return s != null
+            ? s.compareAndSetStock(slot, expected, updated)
+            : STOCK.compareAndSet(this, expected, updated);
+    }
 
     // --- Core Operations as required ---
 
@@ -74,28 +252,127 @@ public class Product {
      */
     public void addReview(Review review) {
         this.reviews.add(review);
+        review.setProduct(this);
+        applyRating(review.getRatingScore(), +1);
+        if (listener != null) {
+            listener.onReviewAdded(this, review);
+            listener.onRatingChanged(this);
+        }
+    }
+
+    /**
+     * Removes the review written by a specific customer (the first one found).
+     * (Time Complexity: O(R))
+     * @param customerId The author of the review.
+     * @return true if a review was found and removed.
+     */
+    public boolean removeReview(String customerId) {
+        Iterator<Review> it = reviews.iterator();
+        while (it.hasNext()) {
+            Review r = it.next();
+            if (r.getCustomerId().equals(customerId)) {
+                it.remove();
+                applyRating(r.getRatingScore(), -1);
+                if (listener != null) {
+                    listener.onReviewRemoved(this, r);
+                    listener.onRatingChanged(this);
+                }
+                r.setProduct(null);
+                return true;
+            }
+        }
+        return false; // No review found from that customer
     }
 
-  
 
     /**
-     * Calculates and returns the average rating for this product.
+     * Returns the average rating for this product.
      * This fulfills the "Get an average rating for product" operation. 
-     * (Time Complexity: O(R) where R is the number of reviews for *this* product)
+     * (Time Complexity: O(1) - read from the running sum and count)
      * @return The average rating as a double.
      */
     public double getAverageRating() {
-        if (reviews.isEmpty()) {
+        checkAggregates();
+        if (ratingCount == 0) {
             return 0.0; // Avoid division by zero
         }
+        return (double) ratingSum / ratingCount;
+    }
+
+    /**
+     * Returns the number of reviews that counted towards the average.
+     * (Time Complexity: O(1))
+     */
+    public int getRatingCount() {
+        checkAggregates();
+        return ratingCount;
+    }
+
+    /**
+     * Returns the sum of all rating scores.
+     * (Time Complexity: O(1))
+     */
+    public long getRatingSum() {
+        checkAggregates();
+        return ratingSum;
+    }
+
+    /**
+     * Returns the rating distribution as a copy: index 1..5 holds the number
+     * of reviews with that many stars (index 0 is unused).
+     * (Time Complexity: O(1))
+     */
+    public int[] getRatingDistribution() {
+        checkAggregates();
+        return ratingHistogram.clone();
+    }
+
+    /**
+     * Turns the consistency check mode on or off (for all products).
+     * @param enabled true to verify the aggregates on every read.
+     */
+    public static void setConsistencyChecks(boolean enabled) {
+        consistencyChecks = enabled;
+    }
+
+    /**
+     * Recomputes the aggregates from the review list and compares them
+     * with the running values.
+     * (Time Complexity: O(R))
+     * @return true if the running aggregates match the reviews.
+     */
+    public boolean verifyRatingAggregates() {
+        long sum = 0;
+        int count = 0;
+        int[] histogram = new int[6];
+        for (Review r : reviews) {
+            int score = r.getRatingScore();
+            sum += score;
+            count++;
+            if (score >= 1 && score <= 5) {
+                histogram[score]++;
+            }
+        }
+        return sum == ratingSum && count == ratingCount
+                && Arrays.equals(histogram, ratingHistogram);
+    }
 
-        double sum = 0;
-        // Loop through all reviews using our MyLinkedList's .get() and .size()
-        for (int i = 0; i < reviews.size(); i++) {
-            sum += reviews.get(i).getRatingScore();
+    /**
+     * Adds (delta = +1) or removes (delta = -1) one rating from the aggregates.
+     */
+    private void applyRating(int score, int delta) {
+        ratingSum += (long) score * delta;
+        ratingCount += delta;
+        if (score >= 1 && score <= 5) {
+            ratingHistogram[score] += delta;
         }
+    }
 
-        return sum / reviews.size();
+    private void checkAggregates() {
+        if (consistencyChecks && !verifyRatingAggregates()) {
+            throw new IllegalStateException(
+                "Rating aggregates out of sync for product " + productId);
+        }
     }
    //=========================================================
 
@@ -106,13 +383,18 @@ public class Product {
      */
     public boolean editReview(String customerId, String newComment, int newRating) {
         // We must loop through our MyLinkedList to find the review
-        for (int i = 0; i < reviews.size(); i++) {
-            Review r = reviews.get(i); // Using the .get() from MyLinkedList
+        for (Review r : reviews) {
             
             if (r.getCustomerId().equals(customerId)) {
                 // Found it. Now update it using the setters.
                 r.setTextComment(newComment);
+                applyRating(r.getRatingScore(), -1); // Take out the old score
                 r.setRatingScore(newRating); // (using int as we agreed)
+                applyRating(newRating, +1);          // Put in the new one
+                if (listener != null) {
+                    listener.onReviewEdited(this, r);
+                    listener.onRatingChanged(this);
+                }
                 return true; // Found and updated
             }
         }
@@ -0,0 +1,119 @@
+
+
+/**
+ *
+ * @author mraah
+ */
+/**
+ * A live "top products by average rating" leaderboard.
+ * Every product sits in a skip list ordered from best to worst, and is
+ * re-positioned (O(log N)) whenever one of its reviews changes, so the
+ * top K products can be read in O(K) without touching the whole catalog.
+ */
+public class ProductLeaderboard {
+
+    /**
+     * The position of a product on the board: a snapshot of its rating
+     * aggregates at the time it was (re)inserted.
+     */
+    private static final class RatingKey {
+        final double average;
+        final int count;
+        final String productId;
+
+        RatingKey(Product p) {
+            this.average = p.getAverageRating();
+            this.count = p.getRatingCount();
+            this.productId = p.getProductId();
+        }
+    }
+
+    // Best first: higher average, then more reviews, then smaller ID.
+    private static int compare(RatingKey a, RatingKey b) {
+        int c = Double.compare(b.average, a.average);
+        if (c != 0) {
+            return c;
+        }
+        c = Integer.compare(b.count, a.count);
+        if (c != 0) {
+            return c;
+        }
+        return a.productId.compareTo(b.productId);
+    }
+
+    // 1. The ordered board itself
+    private MySkipList<RatingKey, Product> board;
+
+    // 2. The key each product is currently stored under (so we can find and move it)
+    private MyHashMap<Product, RatingKey> currentKeys;
+
+    /**
+     * Constructor to create a new, empty leaderboard.
+     */
+    public ProductLeaderboard() {
+        this.board = new MySkipList<>(ProductLeaderboard::compare);
+        this.currentKeys = new MyHashMap<>();
+    }
+
+    /**
+     * Adds a product to the board, or moves it if its rating changed.
+     * (Time Complexity: O(log N) expected)
+     * @param product The product to (re)position.
+     */
+    public void update(Product product) {
+        RatingKey old = currentKeys.get(product);
+        if (old != null) {
+            board.remove(old);
+        }
+        RatingKey key = new RatingKey(product);
+        board.put(key, product);
+        currentKeys.put(product, key);
+    }
+
+    /**
+     * Removes a product from the board.
+     * (Time Complexity: O(log N) expected)
+     * @param product The product to remove.
+     */
+    public void remove(Product product) {
+        RatingKey old = currentKeys.remove(product);
+        if (old != null) {
+            board.remove(old);
+        }
+    }
+
+    /**
+     * Returns the best "k" products that have at least "minReviews" reviews,
+     * best first.
+     * (Time Complexity: O(K) plus any products skipped by the filter)
+     * @param k How many products to return.
+     * @param minReviews The minimum number of reviews a product needs.
+     * @return The top products (at most k).
+     */
+    public MyLinkedList<Product> top(int k, int minReviews) {
+        MyLinkedList<Product> result = new MyLinkedList<>();
+        MySkipList.Entry<RatingKey, Product> e = board.firstEntry();
+        while (e != null && result.size() < k) {
+            if (e.getKey().count >= minReviews) {
+                result.add(e.getValue());
+            }
+            e = e.next();
+        }
+        return result;
+    }
+
+    /**
+     * Returns the number of products on the board.
+     */
+    public int size() {
+        return board.size();
+    }
+
+    /**
+     * Removes every product from the board.
+     */
+    public void clear() {
+        board.clear();
+        currentKeys.clear();
+    }
+}
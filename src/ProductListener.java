@@ -0,0 +1,59 @@
+
+
+/**
+ *
+ * @author mraah
+ */
+/**
+ * A callback that a Product uses to tell the system it has changed,
+ * so the system can keep its indexes up to date.
+ * (The system registers itself on every product it manages.)
+ */
+public interface ProductListener {
+
+    /**
+     * Called after a review was added, edited or removed,
+     * i.e. after the product's average rating may have changed.
+     * @param product The product that changed.
+     */
+    void onRatingChanged(Product product);
+
+    /**
+     * Called after a review was added to the product.
+     * @param product The product that was reviewed.
+     * @param review The new review.
+     */
+    void onReviewAdded(Product product, Review review);
+
+    /**
+     * Called after a review was removed from the product.
+     * @param product The product that lost the review.
+     * @param review The removed review.
+     */
+    void onReviewRemoved(Product product, Review review);
+
+    /**
+     * Called after the product's stock level changed.
+     * @param product The product that changed.
+     */
+    void onStockChanged(Product product);
+
+    /**
+     * Called after the product's name changed.
+     * @param product The product that changed.
+     */
+    void onNameChanged(Product product);
+
+    /**
+     * Called after the product's price changed.
+     * @param product The product that changed.
+     */
+    void onPriceChanged(Product product);
+
+    /**
+     * Called after an existing review was edited (before onRatingChanged).
+     * @param product The product whose review changed.
+     * @param review The edited review.
+     */
+    void onReviewEdited(Product product, Review review);
+}
@@ -0,0 +1,157 @@
+import java.util.Locale;
+
+/**
+ *
+ * @author mraah
+ */
+/**
+ * A case-insensitive index of products by name.
+ * Products sit in a skip list ordered by (lower-case name, productId), so
+ * names that share a prefix are next to each other. Product IDs are
+ * compared shorter first, then as text, so numeric IDs are in number
+ * order ("999" before "1000"). That gives exact
+ * lookups and prefix ("autocomplete") searches in O(log N + K).
+ */
+public class ProductNameIndex {
+
+    /**
+     * The position of a product in the index: its case-folded name when it
+     * was (re)inserted.
+     */
+    private static final class NameKey {
+        final String folded;
+        final String productId;
+
+        NameKey(String folded, String productId) {
+            this.folded = folded;
+            this.productId = productId;
+        }
+    }
+
+    private static int compare(NameKey a, NameKey b) {
+        int c = a.folded.compareTo(b.folded);
+        if (c != 0) {
+            return c;
+        }
+        return compareIds(a.productId, b.productId);
+    }
+
+    /**
+     * Orders product IDs shorter first, then as text: the same as number
+     * order for numeric IDs without leading zeros ("999" before "1000").
+     */
+    static int compareIds(String a, String b) {
+        int c = Integer.compare(a.length(), b.length());
+        return (c != 0) ? c : a.compareTo(b);
+    }
+
+    // 1. The ordered index itself
+    private MySkipList<NameKey, Product> byName;
+
+    // 2. The key each product is currently stored under (so we can find and move it)
+    private MyHashMap<Product, NameKey> currentKeys;
+
+    /**
+     * Constructor to create a new, empty index.
+     */
+    public ProductNameIndex() {
+        this.byName = new MySkipList<>(ProductNameIndex::compare);
+        this.currentKeys = new MyHashMap<>();
+    }
+
+    /**
+     * The case-folded form of a name, as used for every comparison here.
+     */
+    static String fold(String name) {
+        return name == null ? "" : name.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Adds a product to the index, or moves it if its name changed.
+     * (Time Complexity: O(log N) expected)
+     * @param product The product to (re)position.
+     */
+    public void update(Product product) {
+        NameKey old = currentKeys.get(product);
+        String folded = fold(product.getName());
+        if (old != null) {
+            if (old.folded.equals(folded)) {
+                return; // Only the letter case changed (or nothing)
+            }
+            byName.remove(old);
+        }
+        NameKey key = new NameKey(folded, product.getProductId());
+        byName.put(key, product);
+        currentKeys.put(product, key);
+    }
+
+    /**
+     * Removes a product from the index.
+     * (Time Complexity: O(log N) expected)
+     * @param product The product to remove.
+     */
+    public void remove(Product product) {
+        NameKey old = currentKeys.remove(product);
+        if (old != null) {
+            byName.remove(old);
+        }
+    }
+
+    /**
+     * Returns the product with the smallest product ID (see compareIds)
+     * whose name matches, ignoring case. (This is not always the first one
+     * in catalog order: that is the one added first.)
+     * (Time Complexity: O(log N) expected)
+     * @return The product, or null if no name matches.
+     */
+    public Product findFirst(String name) {
+        String folded = fold(name);
+        MySkipList.Entry<NameKey, Product> e = firstAtOrAfter(folded);
+        return (e != null && e.getKey().folded.equals(folded)) ? e.getValue() : null;
+    }
+
+    /**
+     * Returns every product whose name matches, ignoring case, by product ID.
+     * (Time Complexity: O(log N + K))
+     */
+    public MyLinkedList<Product> findAll(String name) {
+        String folded = fold(name);
+        MyLinkedList<Product> result = new MyLinkedList<>();
+        MySkipList.Entry<NameKey, Product> e = firstAtOrAfter(folded);
+        while (e != null && e.getKey().folded.equals(folded)) {
+            result.add(e.getValue());
+            e = e.next();
+        }
+        return result;
+    }
+
+    /**
+     * Returns up to "limit" products whose name starts with "prefix",
+     * ignoring case, in alphabetical order.
+     * (Time Complexity: O(log N + limit))
+     */
+    public MyLinkedList<Product> findByPrefix(String prefix, int limit) {
+        String folded = fold(prefix);
+        MyLinkedList<Product> result = new MyLinkedList<>();
+        MySkipList.Entry<NameKey, Product> e = firstAtOrAfter(folded);
+        while (e != null && result.size() < limit && e.getKey().folded.startsWith(folded)) {
+            result.add(e.getValue());
+            e = e.next();
+        }
+        return result;
+    }
+
+    /**
+     * Removes every product from the index.
+     */
+    public void clear() {
+        byName.clear();
+        currentKeys.clear();
+    }
+
+    // "" sorts before every product ID, so this lands on the first entry
+    // whose folded name is >= "folded".
+    private MySkipList.Entry<NameKey, Product> firstAtOrAfter(String folded) {
+        return byName.ceilingEntry(new NameKey(folded, ""), true);
+    }
+}
@@ -0,0 +1,354 @@
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ *
+ * @author mraah
+ */
+/**
+ * A columnar (structure-of-arrays) store for the product catalog.
+ * Instead of every Product holding its own fields, the numeric columns
+ * live in parallel primitive arrays (price, stock) and all names share
+ * one byte pool (UTF-8, so an English name takes one byte per letter and
+ * no String object of its own). A Product attached to the store becomes
+ * a lightweight view that reads and writes its "slot" in these arrays.
+ * Scans over price/stock then run over plain arrays (cache-friendly and
+ * easy for the JIT to vectorize).
+ *
+ * Views are read without the catalog lock (a caller may keep a Product
+ * long after it let go of the lock), while attach/detach/rename move
+ * slots and name bytes around. Those moves take a StampedLock for
+ * writing, and the views read optimistically: if a move happened during
+ * the read, it is done again under the read lock. A reader therefore
+ * never sees another product's values or half a name.
+ */
+public class ProductStore {
+
+    private static final int DEFAULT_CAPACITY = 16;
+
+    // 1. One slot per product, in these parallel columns
+    private double[] prices;
+    private int[] stocks;
+    private int[] nameStart;  // Where the name starts in namePool
+    private int[] nameLength; // How many bytes the name has
+    private Product[] views;  // The Product object attached to each slot
+
+    // 2. All names, back to back
+    private byte[] namePool;
+    private int poolUsed;     // bytes in use (live + garbage)
+    private int poolGarbage;  // bytes that belong to old (renamed/removed) names
+
+    // 3. Number of slots in use
+    private int size;
+
+    // 4. Taken for writing whenever slots or name bytes move (see the class doc)
+    private final StampedLock lock = new StampedLock();
+
+    /**
+     * Constructor to create a new, empty store.
+     */
+    public ProductStore() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructor to create an empty store sized for "expectedSize" products.
+     */
+    public ProductStore(int expectedSize) {
+        int capacity = Math.max(expectedSize, DEFAULT_CAPACITY);
+        this.prices = new double[capacity];
+        this.stocks = new int[capacity];
+        this.nameStart = new int[capacity];
+        this.nameLength = new int[capacity];
+        this.views = new Product[capacity];
+        this.namePool = new byte[capacity * 16];
+    }
+
+    /**
+     * Copies a product's fields into a new slot and attaches the product to it.
+     * (Time Complexity: O(1) amortized, plus the length of the name)
+     * @param product The product to move into the store.
+     */
+    public void attach(Product product) {
+        String name = product.getName();
+        double price = product.getPrice();
+        int stock = product.getStock();
+        long stamp = lock.writeLock();
+        try {
+            if (size == prices.length) {
+                grow();
+            }
+            int slot = size++;
+            prices[slot] = price;
+            stocks[slot] = stock;
+            writeName(slot, name);
+            views[slot] = product;
+            product.attachTo(this, slot);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Copies a product's values back into the product and frees its slot.
+     * The last slot is moved into the hole, so the columns stay dense.
+     * (Time Complexity: O(1))
+     * @param product The product to take out of the store.
+     */
+    public void detach(Product product) {
+        long stamp = lock.writeLock();
+        try {
+            int slot = product.getSlot();
+            product.detachFrom(readName(slot), prices[slot], stocks[slot]);
+            poolGarbage += nameLength[slot];
+
+            // 1. Move the last slot into the hole
+            int last = --size;
+            if (slot != last) {
+                prices[slot] = prices[last];
+                stocks[slot] = stocks[last];
+                nameStart[slot] = nameStart[last];
+                nameLength[slot] = nameLength[last];
+                views[slot] = views[last];
+                views[slot].moveToSlot(slot);
+            }
+            views[last] = null;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    // --- Column access (used by the Product views) ---
+    // The readers take the Product, not a slot: its slot is only read
+    // inside the (validated) read. If the product was taken out of the
+    // store meanwhile, its own getter answers instead.
+
+    double price(Product product) {
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0) {
+            double[] column = prices;
+            int slot = product.getSlot();
+            boolean attached = product.getStore() == this;
+            double value = (slot < column.length) ? column[slot] : 0;
+            if (lock.validate(stamp)) {
+                return attached ? value : product.getPrice();
+            }
+        }
+        stamp = lock.readLock();
+        try {
+            if (product.getStore() == this) {
+                return prices[product.getSlot()];
+            }
+        } finally {
+            lock.unlockRead(stamp);
+        }
+        return product.getPrice();
+    }
+
+    int stock(Product product) {
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0) {
+            int[] column = stocks;
+            int slot = product.getSlot();
+            boolean attached = product.getStore() == this;
+            int value = (slot < column.length) ? column[slot] : 0;
+            if (lock.validate(stamp)) {
+                return attached ? value : product.getStock();
+            }
+        }
+        stamp = lock.readLock();
+        try {
+            if (product.getStore() == this) {
+                return stocks[product.getSlot()];
+            }
+        } finally {
+            lock.unlockRead(stamp);
+        }
+        return product.getStock();
+    }
+
+    String name(Product product) {
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0) {
+            // 1. Copy the bytes out (they may be garbage if a move is under way)
+            byte[] pool = namePool;
+            int[] starts = nameStart;
+            int[] lengths = nameLength;
+            int slot = product.getSlot();
+            boolean attached = product.getStore() == this;
+            byte[] bytes = null;
+            if (slot < starts.length && slot < lengths.length) {
+                int start = starts[slot];
+                int length = lengths[slot];
+                if (start >= 0 && length >= 0 && start <= pool.length - length) {
+                    bytes = Arrays.copyOfRange(pool, start, start + length);
+                }
+            }
+            // 2. Only decode them if nothing moved meanwhile
+            if (lock.validate(stamp)) {
+                return attached ? new String(bytes, StandardCharsets.UTF_8) : product.getName();
+            }
+        }
+        stamp = lock.readLock();
+        try {
+            if (product.getStore() == this) {
+                return readName(product.getSlot());
+            }
+        } finally {
+            lock.unlockRead(stamp);
+        }
+        return product.getName();
+    }
+
+    // The setters write one column element in place (their callers hold the
+    // catalog write lock, so no slot moves meanwhile; a view reads the old or
+    // the new value).
+
+    void setPrice(int slot, double price) {
+        prices[slot] = price;
+    }
+
+    void setStock(int slot, int stock) {
+        stocks[slot] = stock;
+    }
+
+    // Atomic access to single elements of the stock column (for Product.reserveStock)
+    private static final VarHandle STOCKS = MethodHandles.arrayElementVarHandle(int[].class);
+
+    int stockVolatile(int slot) {
+        return (int) STOCKS.getVolatile(stocks, slot);
+    }
+
+    /**
+     * Replaces a slot's stock only if it still equals "expected" (atomically).
+     * The caller must make sure the store does not grow or move slots
+     * meanwhile (ECommerceSystem holds the catalog read lock).
+     */
+    boolean compareAndSetStock(int slot, int expected, int stock) {
+        return STOCKS.compareAndSet(stocks, slot, expected, stock);
+    }
+
+    void setName(int slot, String name) {
+        long stamp = lock.writeLock();
+        try {
+            poolGarbage += nameLength[slot];
+            writeName(slot, name);
+            // Rebuild the pool once more than half of it is old names
+            if (poolGarbage > poolUsed / 2) {
+                compactNames();
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    // --- Column scans ---
+
+    /**
+     * Returns the number of products in the store.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Sums price * stock over the whole catalog.
+     * (Time Complexity: O(N) over two primitive arrays)
+     */
+    public double totalInventoryValue() {
+        double total = 0;
+        for (int i = 0; i < size; i++) {
+            total += prices[i] * stocks[i];
+        }
+        return total;
+    }
+
+    /**
+     * Sums the stock of the whole catalog.
+     * (Time Complexity: O(N) over one primitive array)
+     */
+    public long totalStock() {
+        long total = 0;
+        for (int i = 0; i < size; i++) {
+            total += stocks[i];
+        }
+        return total;
+    }
+
+    /**
+     * Counts the products whose price is between min and max (inclusive).
+     * (Time Complexity: O(N) over one primitive array)
+     */
+    public int countPriceBetween(double min, double max) {
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            double p = prices[i];
+            if (p >= min && p <= max) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Returns the products whose price is between min and max (inclusive).
+     * (Time Complexity: O(N) over one primitive array, plus K results)
+     */
+    public MyLinkedList<Product> productsPriceBetween(double min, double max) {
+        MyLinkedList<Product> result = new MyLinkedList<>();
+        for (int i = 0; i < size; i++) {
+            double p = prices[i];
+            if (p >= min && p <= max) {
+                result.add(views[i]);
+            }
+        }
+        return result;
+    }
+
+    // --- Internal helpers ---
+
+    private String readName(int slot) {
+        return new String(namePool, nameStart[slot], nameLength[slot], StandardCharsets.UTF_8);
+    }
+
+    private void writeName(int slot, String name) {
+        byte[] bytes = (name == null) ? new byte[0] : name.getBytes(StandardCharsets.UTF_8);
+        int length = bytes.length;
+        if (poolUsed + length > namePool.length) {
+            namePool = Arrays.copyOf(namePool, Math.max(namePool.length * 2, poolUsed + length));
+        }
+        System.arraycopy(bytes, 0, namePool, poolUsed, length);
+        nameStart[slot] = poolUsed;
+        nameLength[slot] = length;
+        poolUsed += length;
+    }
+
+    /**
+     * Copies the live names into a fresh pool (dropping the old ones).
+     * (Time Complexity: O(total live name length))
+     */
+    private void compactNames() {
+        byte[] fresh = new byte[Math.max(namePool.length / 2, poolUsed - poolGarbage + 16)];
+        int used = 0;
+        for (int i = 0; i < size; i++) {
+            System.arraycopy(namePool, nameStart[i], fresh, used, nameLength[i]);
+            nameStart[i] = used;
+            used += nameLength[i];
+        }
+        namePool = fresh;
+        poolUsed = used;
+        poolGarbage = 0;
+    }
+
+    private void grow() {
+        int capacity = prices.length * 2;
+        prices = Arrays.copyOf(prices, capacity);
+        stocks = Arrays.copyOf(stocks, capacity);
+        nameStart = Arrays.copyOf(nameStart, capacity);
+        nameLength = Arrays.copyOf(nameLength, capacity);
+        views = Arrays.copyOf(views, capacity);
+    }
+}
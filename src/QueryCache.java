@@ -0,0 +1,205 @@
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Supplier;
+
+/**
+ *
+ * @author mraah
+ */
+/**
+ * A bounded cache of query results with least-recently-used eviction.
+ *
+ * Every kind of data a query can read (the Source values) has a version
+ * counter, and the system bumps it after each change to that data. A
+ * cached result remembers the versions of the sources it was computed
+ * from; as soon as one of them moves on, the result is stale and is
+ * computed again. So a stock change drops "out of stock" but keeps
+ * "orders between two dates", and nothing has to find and delete the
+ * affected entries.
+ *
+ * The entries sit in a MyDoublyLinkedList, most recently used first, with
+ * a MyHashMap from each key to its node: a lookup, a move to the front and
+ * an eviction from the back are all O(1).
+ */
+public class QueryCache {
+
+    /**
+     * The kinds of data a cached result can depend on.
+     */
+    public enum Source {
+        PRODUCTS, // Products added or removed
+        STOCK,
+        PRICES,
+        REVIEWS,  // Reviews added, edited or removed (and so the ratings)
+        ORDERS    // Orders placed
+    }
+
+    /**
+     * One cached result.
+     */
+    private static final class Entry {
+        final String key;
+        final Object value;
+        final long stamp; // The sum of the sources' versions when it was computed
+
+        Entry(String key, Object value, long stamp) {
+            this.key = key;
+            this.value = value;
+            this.stamp = stamp;
+        }
+    }
+
+    // 1. The version of each Source (only ever goes up)
+    private final AtomicLongArray versions = new AtomicLongArray(Source.values().length);
+
+    // 2. The entries, most recently used first, and the key -> node map
+    private final MyDoublyLinkedList<Entry> entries = new MyDoublyLinkedList<>();
+    private final MyHashMap<String, DNode<Entry>> byKey;
+    private final int capacity;
+
+    // 3. Statistics
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong stale = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    /**
+     * Constructor to create a new, empty cache.
+     * @param capacity The most results kept at once (0 turns caching off).
+     */
+    public QueryCache(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("capacity cannot be negative: " + capacity);
+        }
+        this.capacity = capacity;
+        this.byKey = new MyHashMap<>(Math.max(capacity, 1));
+    }
+
+    /**
+     * Records that some data changed: every result computed from it is now stale.
+     * Call it *after* the change is made, so no result computed from the old
+     * data can be stored under the new version.
+     * (Time Complexity: O(1))
+     */
+    public void bump(Source source) {
+        versions.incrementAndGet(source.ordinal());
+    }
+
+    /**
+     * Returns the cached result for "key" if it is still current; otherwise
+     * runs the query, caches its result and returns it.
+     * The result is shared with later callers, so it must not be changed.
+     * (Time Complexity: O(1) on a hit, plus the query on a miss)
+     * @param key The query and its parameters, e.g. "top|3|1".
+     * @param query Computes the result (called without the cache's lock).
+     * @param sources The data the query reads.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(String key, Supplier<T> query, Source... sources) {
+        // 1. Read the versions *before* running the query: a change made while
+        //    it runs then leaves the stored result already stale
+        long stamp = stamp(sources);
+        synchronized (this) {
+            DNode<Entry> node = byKey.get(key);
+            if (node != null) {
+                if (node.getData().stamp == stamp) {
+                    entries.moveToFirst(node);
+                    hits.incrementAndGet();
+                    return (T) node.getData().value;
+                }
+                // Some of its data changed since: drop it
+                entries.remove(node);
+                byKey.remove(key);
+                stale.incrementAndGet();
+            }
+        }
+        misses.incrementAndGet();
+
+        // 2. Run the query outside our lock (other queries can use the cache meanwhile)
+        T value = query.get();
+        if (capacity == 0) {
+            return value;
+        }
+
+        // 3. Store it in front, evicting the least recently used entry when full
+        synchronized (this) {
+            DNode<Entry> old = byKey.get(key);
+            if (old != null) {
+                entries.remove(old); // Another thread stored it meanwhile
+            }
+            byKey.put(key, entries.addFirst(new Entry(key, value, stamp)));
+            if (entries.size() > capacity) {
+                DNode<Entry> last = entries.last();
+                entries.remove(last);
+                byKey.remove(last.getData().key);
+                evictions.incrementAndGet();
+            }
+        }
+        return value;
+    }
+
+    private long stamp(Source[] sources) {
+        long sum = 0;
+        for (Source s : sources) {
+            sum += versions.get(s.ordinal());
+        }
+        return sum;
+    }
+
+    /**
+     * Removes every cached result (the statistics are kept).
+     */
+    public synchronized void clear() {
+        while (!entries.isEmpty()) {
+            entries.remove(entries.first());
+        }
+        byKey.clear();
+    }
+
+    // --- Statistics ---
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * Returns how many lookups had to run the query (including stale ones).
+     */
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * Returns how many results were dropped because their data changed.
+     */
+    public long getStaleDrops() {
+        return stale.get();
+    }
+
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    /**
+     * Returns the share of lookups answered from the cache (0 to 1).
+     */
+    public double getHitRate() {
+        long h = hits.get();
+        long total = h + misses.get();
+        return total == 0 ? 0 : h / (double) total;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d/%d entries, %d hits, %d misses (%.1f%% hits), %d stale, %d evicted",
+            size(), capacity, getHits(), getMisses(), getHitRate() * 100, getStaleDrops(), getEvictions());
+    }
+}
@@ -0,0 +1,168 @@
+import java.util.Iterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ *
+ * @author mraah
+ */
+/**
+ * A lazy, page-by-page reader over the result of a query.
+ * Nothing is read when the cursor is opened: each nextPage(n) call takes
+ * the query's lock, copies at most n more matches and lets go again, so
+ * a caller that only wants the first page never makes the system walk
+ * (or copy) the rest.
+ *
+ * Pages are found by "keyset": the cursor remembers where the last page
+ * ended (e.g. the last (stock, product ID) pair, or the last order's
+ * (date, order ID) key) and the next page starts right after it, in
+ * O(log N) or O(1).
+ * It never counts "skip the first 4000 rows" again for every page.
+ *
+ * Because no lock is held between pages, the result is weakly
+ * consistent: changes made while the cursor is being read may or may not
+ * show up (a product whose stock changes can move past the cursor, or
+ * towards it), but every page on its own is read atomically.
+ * @param <T> The type of the results (e.g., Product, Order).
+ */
+public final class QueryCursor<T> {
+
+    /**
+     * The page size stream() reads with.
+     */
+    public static final int STREAM_PAGE_SIZE = 64;
+
+    /**
+     * Reads one page of a query: up to "limit" results after the position
+     * "after" (null for the start), added to "out". Returns the position of
+     * the last result added ("after" itself if none was).
+     * @param <K> The type of a position (e.g., a node or a sort key).
+     * @param <T> The type of the results.
+     */
+    @FunctionalInterface
+    interface PageSource<K, T> {
+        K fetch(K after, int limit, MyLinkedList<T> out);
+    }
+
+    /**
+     * A PageSource together with the position reached so far.
+     */
+    private static final class Position<K, T> {
+        private final PageSource<K, T> source;
+        private K after;
+
+        Position(PageSource<K, T> source) {
+            this.source = source;
+        }
+
+        int fetch(int limit, MyLinkedList<T> out) {
+            int before = out.size();
+            after = source.fetch(after, limit, out);
+            return out.size() - before;
+        }
+    }
+
+    // 1. Where the next page starts
+    private final Position<?, T> position;
+
+    // 2. Set once a page comes back short (the query has no more results)
+    private boolean exhausted;
+
+    // 3. How many results were handed out (or skipped) so far
+    private long read;
+
+    private QueryCursor(Position<?, T> position) {
+        this.position = position;
+    }
+
+    /**
+     * Opens a cursor over a page source (nothing is read yet).
+     */
+    static <K, T> QueryCursor<T> over(PageSource<K, T> source) {
+        return new QueryCursor<>(new Position<>(source));
+    }
+
+    /**
+     * Reads the next page.
+     * (Time Complexity: O(limit), plus O(log N) to find where it starts)
+     * @param limit The most results to return (at least 1).
+     * @return The results, in query order (empty once there are no more).
+     */
+    public MyLinkedList<T> nextPage(int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("limit must be at least 1: " + limit);
+        }
+        MyLinkedList<T> page = new MyLinkedList<>();
+        if (!exhausted) {
+            int n = position.fetch(limit, page);
+            exhausted = n < limit;
+            read += n;
+        }
+        return page;
+    }
+
+    /**
+     * Skips "count" results (an "offset"). They are read a page at a time
+     * and dropped, so this costs O(count) time but only one page of memory.
+     * @return This cursor, so a page can follow: skip(40).nextPage(20).
+     */
+    public QueryCursor<T> skip(long count) {
+        if (count < 0) {
+            throw new IllegalArgumentException("count cannot be negative: " + count);
+        }
+        while (count > 0 && !exhausted) {
+            count -= nextPage((int) Math.min(count, STREAM_PAGE_SIZE)).size();
+        }
+        return this;
+    }
+
+    /**
+     * Checks if more results may follow. It turns false as soon as a page
+     * comes back short; when the results end exactly on a page boundary it
+     * stays true and the next page is empty.
+     */
+    public boolean hasMore() {
+        return !exhausted;
+    }
+
+    /**
+     * Returns how many results were read or skipped so far.
+     */
+    public long getPosition() {
+        return read;
+    }
+
+    /**
+     * Returns the remaining results as a lazy, sequential Stream. It reads
+     * STREAM_PAGE_SIZE results at a time, only when the stream asks for
+     * them, so stream().limit(10) reads one page and stops. The stream
+     * moves this cursor forward.
+     */
+    public Stream<T> stream() {
+        Spliterator<T> spliterator = new Spliterators.AbstractSpliterator<T>(
+                Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL) {
+            private Iterator<T> page = null;
+
+            @Override
+            public boolean tryAdvance(Consumer<? super T> action) {
+                // 1. Refill the buffer with the next page when it runs out
+                if (page == null || !page.hasNext()) {
+                    if (exhausted) {
+                        return false;
+                    }
+                    page = nextPage(STREAM_PAGE_SIZE).iterator();
+                    if (!page.hasNext()) {
+                        return false;
+                    }
+                }
+                // 2. Hand out the next buffered result
+                action.accept(page.next());
+                return true;
+            }
+        };
+        return StreamSupport.stream(spliterator, false);
+    }
+}
@@ -0,0 +1,112 @@
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ *
+ * @author mraah
+ */
+/**
+ * Stock held for one order, across several products, all-or-nothing.
+ * tryReserve() takes every unit the order needs (with Product.reserveStock,
+ * so no lock is held); if any product runs short, the units already taken
+ * are put back and no reservation is made. A reservation then ends in
+ * exactly one of two ways: commit() (the order was placed, the units are
+ * sold) or release() (the units go back into the stock).
+ * Get one from ECommerceSystem.reserveStock, which also keeps the
+ * catalog and the journal consistent.
+ */
+public final class Reservation {
+
+    private static final int ACTIVE = 0;
+    private static final int COMMITTED = 1;
+    private static final int RELEASED = 2;
+
+    // 1. Each distinct product once, with how many units of it we hold
+    private final Product[] products;
+    private final int[] quantities;
+
+    // 2. ACTIVE -> COMMITTED or RELEASED (changed atomically, exactly once)
+    private final AtomicInteger state = new AtomicInteger(ACTIVE);
+
+    private Reservation(Product[] products, int[] quantities) {
+        this.products = products;
+        this.quantities = quantities;
+    }
+
+    /**
+     * Reserves one unit per item (a product listed twice needs 2 units).
+     * (Time Complexity: O(K) for K items, plus retries under contention)
+     * @param items The products of the order.
+     * @return The reservation, or null if some product has too little stock
+     *         (then nothing stays reserved).
+     */
+    static Reservation tryReserve(MyLinkedList<Product> items) {
+        // 1. Count the units per distinct product
+        MyHashMap<Product, Integer> position = new MyHashMap<>(items.size());
+        Product[] distinct = new Product[items.size()];
+        int[] counts = new int[items.size()];
+        int n = 0;
+        for (Product p : items) {
+            Integer at = position.get(p);
+            if (at == null) {
+                position.put(p, n);
+                distinct[n] = p;
+                counts[n] = 1;
+                n++;
+            } else {
+                counts[at]++;
+            }
+        }
+
+        // 2. Take them one product at a time, undoing everything on a shortage
+        for (int i = 0; i < n; i++) {
+            if (distinct[i].reserveStock(counts[i]) < 0) {
+                for (int j = 0; j < i; j++) {
+                    distinct[j].releaseStock(counts[j]);
+                }
+                return null;
+            }
+        }
+        return new Reservation(Arrays.copyOf(distinct, n), Arrays.copyOf(counts, n));
+    }
+
+    /**
+     * Marks the units as sold (the stock stays taken).
+     * @return false if the reservation was already committed or released.
+     */
+    boolean commit() {
+        return state.compareAndSet(ACTIVE, COMMITTED);
+    }
+
+    /**
+     * Puts every unit back into the stock.
+     * @return false if the reservation was already committed or released.
+     */
+    boolean release() {
+        if (!state.compareAndSet(ACTIVE, RELEASED)) {
+            return false;
+        }
+        for (int i = 0; i < products.length; i++) {
+            products[i].releaseStock(quantities[i]);
+        }
+        return true;
+    }
+
+    /**
+     * Checks if the units are still held (neither committed nor released).
+     */
+    public boolean isActive() {
+        return state.get() == ACTIVE;
+    }
+
+    /**
+     * Returns the total number of units held.
+     */
+    public int getUnits() {
+        int total = 0;
+        for (int q : quantities) {
+            total += q;
+        }
+        return total;
+    }
+}
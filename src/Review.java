@@ -18,6 +18,10 @@ public class Review {
     // This is essential for the requirement: "Extract reviews from a specific customer" 
     private String customerId; 
 
+    // The product this review belongs to (set by Product.addReview).
+    // It lets us go from "a customer's reviews" back to the products.
+    private Product product;
+
     /**
      * Constructor to create a new Review.
      * @param customerId The ID of the customer who wrote the review.
@@ -45,6 +49,10 @@ public class Review {
         return customerId;
     }
 
+    public Product getProduct() {
+        return product;
+    }
+
     // --- Setters ---
     // We need setters for the "edit review" operation 
     
@@ -55,4 +63,8 @@ public class Review {
     public void setTextComment(String textComment) {
         this.textComment = textComment;
     }
+
+    void setProduct(Product product) {
+        this.product = product;
+    }
 }
\ No newline at end of file
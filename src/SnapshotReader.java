@@ -0,0 +1,172 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ *
+ * @author mraah
+ */
+/**
+ * Reads a binary snapshot file written by SnapshotWriter.
+ * The file is read front to back through a FileChannel in large blocks
+ * (one sequential pass), and values are decoded straight from the block.
+ * The header and the CRC32 checksum are checked, so a file that is not
+ * a snapshot, has another version, or is truncated/corrupt is rejected
+ * with an IOException instead of loading half of it. The checksum is only
+ * known at the end, so lengths and counts are checked against the bytes
+ * left in the file before anything is sized by them.
+ */
+public final class SnapshotReader implements Closeable {
+
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private final CRC32 crc = new CRC32();
+
+    // Bytes of the file (before the 8-byte checksum) not yet read into the buffer
+    private long unread;
+    private final int version;
+
+    /**
+     * Opens a snapshot and checks its header.
+     * @param path The snapshot file.
+     * @param latestVersion The newest format version we can read (older ones are accepted too).
+     * @throws IOException if the file is missing or is not a supported snapshot.
+     */
+    public SnapshotReader(Path path, int latestVersion) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            this.unread = channel.size() - 8;
+            if (unread < 8) {
+                throw new IOException(path + " is too short to be a snapshot");
+            }
+            buffer.limit(0);
+            if (readInt() != SnapshotWriter.MAGIC) {
+                throw new IOException(path + " is not a snapshot file");
+            }
+            this.version = readInt();
+            if (version < 1 || version > latestVersion) {
+                throw new IOException(path + " has snapshot version " + version
+                    + " (expected 1 to " + latestVersion + ")");
+            }
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
+    public int readByte() throws IOException {
+        ensure(1);
+        return buffer.get();
+    }
+
+    public int readInt() throws IOException {
+        ensure(4);
+        return buffer.getInt();
+    }
+
+    public long readLong() throws IOException {
+        ensure(8);
+        return buffer.getLong();
+    }
+
+    public double readDouble() throws IOException {
+        ensure(8);
+        return buffer.getDouble();
+    }
+
+    /**
+     * Reads a String written by SnapshotWriter.writeString (may be null).
+     */
+    public String readString() throws IOException {
+        int length = readInt();
+        if (length < 0) {
+            return null;
+        }
+        if (length > remaining()) {
+            throw new IOException("Snapshot has a string of " + length + " bytes but only "
+                + remaining() + " bytes are left (the file is corrupt)");
+        }
+        byte[] bytes = new byte[length];
+        int off = 0;
+        while (off < length) {
+            ensure(1);
+            int n = Math.min(buffer.remaining(), length - off);
+            buffer.get(bytes, off, n);
+            off += n;
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Returns how many bytes of records are left to read (the checksum not
+     * included). A count read from the file that is larger than this is
+     * corrupt: every record takes at least one byte.
+     */
+    public long remaining() {
+        return unread + buffer.remaining();
+    }
+
+    /**
+     * Checks that every byte was read and that the checksum matches.
+     * Call this after reading the last record.
+     * @throws IOException if the file has extra data or is corrupt.
+     */
+    public void verifyEnd() throws IOException {
+        if (buffer.hasRemaining() || unread > 0) {
+            throw new IOException("Snapshot has unexpected data after the last record");
+        }
+        ByteBuffer tail = ByteBuffer.allocate(8);
+        while (tail.hasRemaining()) {
+            if (channel.read(tail) < 0) {
+                throw new IOException("Snapshot is truncated");
+            }
+        }
+        if (tail.getLong(0) != crc.getValue()) {
+            throw new IOException("Snapshot checksum does not match (the file is corrupt)");
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    // --- Internal helpers ---
+
+    /**
+     * Makes sure at least "bytes" bytes are in the buffer, reading the next block if needed.
+     */
+    private void ensure(int bytes) throws IOException {
+        if (buffer.remaining() >= bytes) {
+            return;
+        }
+        buffer.compact();
+        while (buffer.position() < bytes) {
+            if (unread <= 0) {
+                throw new IOException("Snapshot is truncated");
+            }
+            // Never read into the checksum at the end of the file
+            int room = (int) Math.min(buffer.remaining(), unread);
+            ByteBuffer slice = buffer.slice(buffer.position(), room);
+            int n = channel.read(slice);
+            if (n < 0) {
+                throw new IOException("Snapshot is truncated");
+            }
+            crc.update(buffer.slice(buffer.position(), n));
+            buffer.position(buffer.position() + n);
+            unread -= n;
+        }
+        buffer.flip();
+    }
+}
@@ -0,0 +1,150 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ *
+ * @author mraah
+ */
+/**
+ * Writes a binary snapshot file: the counterpart of SnapshotReader.
+ * Values are packed into a large buffer that is written to a FileChannel
+ * in one bulk call whenever it fills up, so saving N records costs
+ * O(N) with very few system calls.
+ *
+ * The file is written next to the target and renamed over it only when
+ * close() succeeds, so a crash while saving never leaves a half-written
+ * snapshot behind. The last 8 bytes are a CRC32 of everything before them.
+ */
+public final class SnapshotWriter implements Closeable {
+
+    // "ECSN" in ASCII: marks the file as one of our snapshots
+    public static final int MAGIC = 0x4543534E;
+
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    // 1. The temporary file we write to, and the final name
+    private final Path target;
+    private final Path temp;
+    private final FileChannel channel;
+
+    // 2. The buffer that collects values before each bulk write
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private final CRC32 crc = new CRC32();
+    private boolean finished;
+
+    /**
+     * Creates a snapshot file and writes its header.
+     * @param path The snapshot file (replaced when close() succeeds).
+     * @param version The format version written after the magic number.
+     * @throws IOException if the file cannot be created.
+     */
+    public SnapshotWriter(Path path, int version) throws IOException {
+        this.target = path;
+        this.temp = path.resolveSibling(path.getFileName() + ".tmp");
+        this.channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+            StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        writeInt(MAGIC);
+        writeInt(version);
+    }
+
+    public void writeByte(int b) throws IOException {
+        ensure(1);
+        buffer.put((byte) b);
+    }
+
+    public void writeInt(int v) throws IOException {
+        ensure(4);
+        buffer.putInt(v);
+    }
+
+    public void writeLong(long v) throws IOException {
+        ensure(8);
+        buffer.putLong(v);
+    }
+
+    public void writeDouble(double v) throws IOException {
+        ensure(8);
+        buffer.putDouble(v);
+    }
+
+    /**
+     * Writes a String as its UTF-8 length and bytes (length -1 for null).
+     */
+    public void writeString(String s) throws IOException {
+        if (s == null) {
+            writeInt(-1);
+            return;
+        }
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        writeInt(bytes.length);
+        int off = 0;
+        while (off < bytes.length) { // Very long strings go out in several pieces
+            ensure(1);
+            int n = Math.min(buffer.remaining(), bytes.length - off);
+            buffer.put(bytes, off, n);
+            off += n;
+        }
+    }
+
+    /**
+     * Writes the checksum, flushes, and moves the file into place.
+     * @throws IOException if the snapshot cannot be completed.
+     */
+    @Override
+    public void close() throws IOException {
+        if (finished) {
+            return;
+        }
+        finished = true;
+        try {
+            flush();
+            buffer.putLong(crc.getValue()); // The checksum is not part of itself
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+        } finally {
+            channel.close();
+        }
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Gives up on the snapshot and deletes the temporary file.
+     */
+    public void abort() {
+        finished = true;
+        try {
+            channel.close();
+            Files.deleteIfExists(temp);
+        } catch (IOException ignored) {
+            // Nothing more we can do
+        }
+    }
+
+    // --- Internal helpers ---
+
+    private void ensure(int bytes) throws IOException {
+        if (buffer.remaining() < bytes) {
+            flush();
+        }
+    }
+
+    private void flush() throws IOException {
+        buffer.flip();
+        crc.update(buffer.duplicate());
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
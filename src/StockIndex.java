@@ -0,0 +1,162 @@
+
+
+/**
+ *
+ * @author mraah
+ */
+/**
+ * An ordered index of products by their stock level.
+ * Products sit in a skip list ordered by (stock, productId), and are
+ * moved (O(log N)) whenever their stock changes, so "out of stock" and
+ * "stock at or below a threshold" queries only touch the matching products.
+ * Its methods are synchronized, because stock can change from many threads
+ * at once (Product.reserveStock does not take the catalog write lock).
+ */
+public class StockIndex {
+
+    /**
+     * The position of a product in the index: its stock when it was (re)inserted.
+     * (Package-private: a QueryCursor keeps the last one it read.)
+     */
+    static final class StockKey {
+        final int stock;
+        final String productId;
+
+        StockKey(int stock, String productId) {
+            this.stock = stock;
+            this.productId = productId;
+        }
+    }
+
+    // Lowest stock first, then by product ID.
+    private static int compare(StockKey a, StockKey b) {
+        int c = Integer.compare(a.stock, b.stock);
+        if (c != 0) {
+            return c;
+        }
+        return a.productId.compareTo(b.productId);
+    }
+
+    // 1. The ordered index itself
+    private MySkipList<StockKey, Product> byStock;
+
+    // 2. The key each product is currently stored under (so we can find and move it)
+    private MyHashMap<Product, StockKey> currentKeys;
+
+    /**
+     * Constructor to create a new, empty index.
+     */
+    public StockIndex() {
+        this.byStock = new MySkipList<>(StockIndex::compare);
+        this.currentKeys = new MyHashMap<>();
+    }
+
+    /**
+     * Adds a product to the index, or moves it if its stock changed.
+     * (Time Complexity: O(log N) expected)
+     * @param product The product to (re)position.
+     */
+    public synchronized void update(Product product) {
+        StockKey old = currentKeys.get(product);
+        int stock = product.getStock();
+        if (old != null) {
+            if (old.stock == stock) {
+                return; // Already in the right place
+            }
+            byStock.remove(old);
+        }
+        StockKey key = new StockKey(stock, product.getProductId());
+        byStock.put(key, product);
+        currentKeys.put(product, key);
+    }
+
+    /**
+     * Removes a product from the index.
+     * (Time Complexity: O(log N) expected)
+     * @param product The product to remove.
+     */
+    public synchronized void remove(Product product) {
+        StockKey old = currentKeys.remove(product);
+        if (old != null) {
+            byStock.remove(old);
+        }
+    }
+
+    /**
+     * Returns the products whose stock is exactly "stock".
+     * (Time Complexity: O(log N + K))
+     */
+    public MyLinkedList<Product> withStock(int stock) {
+        MyLinkedList<Product> result = new MyLinkedList<>();
+        pageWithStock(stock, null, Integer.MAX_VALUE, result);
+        return result;
+    }
+
+    /**
+     * Returns the products whose stock is at or below "threshold", lowest first.
+     * (Time Complexity: O(K))
+     */
+    public MyLinkedList<Product> atOrBelow(int threshold) {
+        MyLinkedList<Product> result = new MyLinkedList<>();
+        pageAtOrBelow(threshold, null, Integer.MAX_VALUE, result);
+        return result;
+    }
+
+    /**
+     * Adds up to "limit" products whose stock is exactly "stock" to "out",
+     * starting after the key "after" (null to start from the first one).
+     * (Time Complexity: O(log N + limit))
+     * @return The key of the last product added ("after" if none was).
+     */
+    public StockKey pageWithStock(int stock, StockKey after, int limit, MyLinkedList<Product> out) {
+        // "" sorts before every product ID, so this lands on the first match
+        return page(after != null ? after : new StockKey(stock, ""), after == null, stock, limit, out);
+    }
+
+    /**
+     * Adds up to "limit" products whose stock is at or below "threshold" to
+     * "out", lowest first, starting after the key "after" (null to start).
+     * (Time Complexity: O(log N + limit))
+     * @return The key of the last product added ("after" if none was).
+     */
+    public StockKey pageAtOrBelow(int threshold, StockKey after, int limit, MyLinkedList<Product> out) {
+        return page(after != null ? after : new StockKey(Integer.MIN_VALUE, ""), after == null,
+            threshold, limit, out);
+    }
+
+    private synchronized StockKey page(StockKey from, boolean inclusive, int maxStock,
+                                       int limit, MyLinkedList<Product> out) {
+        // 1. Jump to where the page starts
+        MySkipList.Entry<StockKey, Product> e = byStock.ceilingEntry(from, inclusive);
+        StockKey last = inclusive ? null : from;
+        // 2. Walk forward until the page is full or the stock gets too high
+        for (int i = 0; i < limit && e != null && e.getKey().stock <= maxStock; i++) {
+            out.add(e.getValue());
+            last = e.getKey();
+            e = e.next();
+        }
+        return last;
+    }
+
+    /**
+     * Counts the products whose stock is at or below "threshold".
+     * (Time Complexity: O(K))
+     */
+    public synchronized int countAtOrBelow(int threshold) {
+        int count = 0;
+        MySkipList.Entry<StockKey, Product> e = byStock.firstEntry();
+        while (e != null && e.getKey().stock <= threshold) {
+            count++;
+            e = e.next();
+        }
+        return count;
+    }
+
+    /**
+     * Removes every product from the index.
+     */
+    public synchronized void clear() {
+        byStock.clear();
+        currentKeys.clear();
+    }
+}